@@ -4,23 +4,26 @@ package com.mathworks.ci;
  * Copyright 2024 The MathWorks, Inc.
  */
 
-import hudson.FilePath;
+import hudson.console.PlainTextConsoleOutputStream;
 import hudson.model.Action;
 import hudson.model.Run;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import javax.annotation.CheckForNull;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.io.IOUtils;
 import org.json.simple.parser.ParseException;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
 
 public class BuildArtifactAction implements Action {
     private Run<?, ?> build;
@@ -28,20 +31,35 @@ public class BuildArtifactAction implements Action {
     private int skipCount;
     private int failCount;
     private String actionID;
-    private static final String ROOT_ELEMENT = "taskDetails";
+    // Number of builds whose task results are kept in memory
+    static final int CACHE_SIZE = Integer.getInteger(BuildArtifactAction.class.getName() + ".cacheSize", 64);
+    private static final ArtifactCache cache = new ArtifactCache(CACHE_SIZE);
 
     public BuildArtifactAction(Run<?, ?> build, String actionID) {
         this.build = build;
         this.actionID = actionID;
 
         // Setting the counts of task when Action is created.
-        try {
-            setCounts();
-        } catch (ParseException e) {
-            throw new RuntimeException(e);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        setCounts();
+    }
+
+    /**
+     * Creates the action for tasks that were just read from the build artifact
+     * file. The tasks are cached, so the first view of the results table does
+     * not read the file again.
+     *
+     * @param build    the build the artifact belongs to
+     * @param actionID the ID of the action that wrote the artifact
+     * @param tasks    the tasks read from the build artifact file
+     */
+    public BuildArtifactAction(Run<?, ?> build, String actionID, List<BuildArtifactData> tasks) {
+        this.build = build;
+        this.actionID = actionID;
+
+        File file = getArtifactFile();
+        List<BuildArtifactData> artifactData = Collections.unmodifiableList(tasks);
+        cache.put(file, file.lastModified(), file.length(), artifactData);
+        setCounts(artifactData);
     }
 
     public String getActionID() {
@@ -67,45 +85,67 @@ public class BuildArtifactAction implements Action {
     }
 
     public List<BuildArtifactData> getBuildArtifact() throws ParseException, InterruptedException, IOException {
-        List<BuildArtifactData> artifactData = new ArrayList<BuildArtifactData>();
-        FilePath fl;
-        if (this.actionID == null) {
-            fl = new FilePath(new File(build.getRootDir().getAbsolutePath() + "/" +
-                    MatlabBuilderConstants.BUILD_ARTIFACT + ".json"));
-        } else {
-            fl = new FilePath(new File(build.getRootDir().getAbsolutePath() + "/" +
-                    MatlabBuilderConstants.BUILD_ARTIFACT + this.actionID + ".json"));
+        File file = getArtifactFile();
+        List<BuildArtifactData> artifactData = cache.get(file);
+        if (artifactData == null) {
+            long lastModified = file.lastModified();
+            long length = file.length();
+            artifactData = Collections.unmodifiableList(parseBuildArtifact(file));
+            cache.put(file, lastModified, length, artifactData);
         }
-        try (InputStreamReader reader = new InputStreamReader(new FileInputStream(new File(fl.toURI())), "UTF-8")) {
-            Object obj = new JSONParser().parse(reader);
-            JSONObject jo = (JSONObject) obj;
-            if (jo.get(ROOT_ELEMENT) instanceof JSONArray) {
-                JSONArray ja = (JSONArray) jo.get(ROOT_ELEMENT);
-                Iterator itr2 = ja.iterator();
-                Iterator<Entry> itr1;
-                while (itr2.hasNext()) {
-                    BuildArtifactData data = new BuildArtifactData();
-                    itr1 = ((Map) itr2.next()).entrySet().iterator();
-                    while (itr1.hasNext()) {
-                        Entry pair = itr1.next();
-                        iterateAllTaskAttributes(pair, data);
-                    }
-                    artifactData.add(data);
-                }
-            } else {
-                Map ja = ((Map) jo.get(ROOT_ELEMENT));
-                Iterator<Entry> itr1 = ja.entrySet().iterator();
-                BuildArtifactData data = new BuildArtifactData();
-                while (itr1.hasNext()) {
-                    Entry pair = itr1.next();
-                    iterateAllTaskAttributes(pair, data);
-                }
-                artifactData.add(data);
-            }
+        return artifactData;
+    }
+
+    /**
+     * Whether the output of each task can be shown on its own, see doTaskLog.
+     */
+    public boolean hasTaskLog() {
+        return getTaskLogIndex().getFile().exists() && TaskLogIndex.canIndex(build);
+    }
+
+    /**
+     * Shows the console output of a single task. Only that part of the build
+     * log is read, using the offsets recorded while the build ran once they
+     * are checked against the log.
+     */
+    public void doTaskLog(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        String taskName = req.getParameter("task");
+        long[] range = taskName == null || !hasTaskLog() ? null
+                : getTaskLogIndex().findRange(build.getLogFile(), build.getCharset(), taskName, getActionID());
+        if (range == null) {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        rsp.setContentType("text/plain;charset=" + build.getCharset().name());
+        try (InputStream in = build.getLogInputStream();
+                OutputStream out = new PlainTextConsoleOutputStream(rsp.getOutputStream())) {
+            IOUtils.skipFully(in, range[0]);
+            IOUtils.copyLarge(in, out, 0, range[1] - range[0]);
+        }
+    }
+
+    private TaskLogIndex getTaskLogIndex() {
+        return new TaskLogIndex(new File(build.getRootDir().getAbsolutePath() + "/" +
+                MatlabBuilderConstants.TASK_LOG_INDEX + getActionID() + ".tsv"));
+    }
+
+    /*
+     * Returns the task per line file, or the JSON document that builds of
+     * earlier versions have instead.
+     */
+    private File getArtifactFile() {
+        String base = build.getRootDir().getAbsolutePath() + "/" + MatlabBuilderConstants.BUILD_ARTIFACT + getActionID();
+        File lines = new File(base + BuildArtifactReader.TASK_LINES_EXTENSION);
+        return lines.exists() ? lines : new File(base + BuildArtifactReader.DOCUMENT_EXTENSION);
+    }
+
+    private List<BuildArtifactData> parseBuildArtifact(File file) throws ParseException, IOException {
+        try (InputStreamReader reader = new InputStreamReader(new FileInputStream(file), "UTF-8")) {
+            return BuildArtifactReader.read(reader, file.getName());
         } catch (IOException e) {
             throw new IOException(e.getLocalizedMessage());
         }
-        return artifactData;
     }
 
     public void setTotalcount(int totalCount) {
@@ -143,49 +183,19 @@ public class BuildArtifactAction implements Action {
         this.build = owner;
     }
 
-    private void setCounts() throws InterruptedException, ParseException {
-        List<BuildArtifactData> artifactData = new ArrayList<BuildArtifactData>();
-        FilePath fl;
-        if (this.actionID == null) {
-            fl = new FilePath(new File(build.getRootDir().getAbsolutePath() + "/" +
-                    MatlabBuilderConstants.BUILD_ARTIFACT + ".json"));
-        } else {
-            fl = new FilePath(new File(build.getRootDir().getAbsolutePath() + "/" +
-                    MatlabBuilderConstants.BUILD_ARTIFACT + this.actionID + ".json"));
-        }
-        try (InputStreamReader reader = new InputStreamReader(new FileInputStream(new File(fl.toURI())), "UTF-8")) {
-            Object obj = new JSONParser().parse(reader);
-            JSONObject jo = (JSONObject) obj;
-
-            // getting taskDetails
-            if (jo.get(ROOT_ELEMENT) instanceof JSONArray) {
-                JSONArray ja = (JSONArray) jo.get(ROOT_ELEMENT);
-                Iterator itr2 = ja.iterator();
-                Iterator<Entry> itr1;
-                while (itr2.hasNext()) {
-                    BuildArtifactData data = new BuildArtifactData();
-                    itr1 = ((Map) itr2.next()).entrySet().iterator();
-                    while (itr1.hasNext()) {
-                        Entry pair = itr1.next();
-                        iterateFailedSkipped(pair, data);
-                    }
-                    artifactData.add(data);
-                    setTotalcount(artifactData.size());
-                }
-            } else {
-                Map ja = ((Map) jo.get(ROOT_ELEMENT));
-                Iterator<Entry> itr1 = ja.entrySet().iterator();
-                BuildArtifactData data = new BuildArtifactData();
-                while (itr1.hasNext()) {
-                    Entry pair = itr1.next();
-                    iterateFailedSkipped(pair, data);
-                }
-                artifactData.add(data);
-                setTotalcount(artifactData.size());
-            }
-        } catch (IOException e) {
+    private void setCounts() {
+        List<BuildArtifactData> artifactData = Collections.emptyList();
+        try {
+            artifactData = getBuildArtifact();
+        } catch (IOException | ParseException | InterruptedException e) {
+            // The build page still shows, just without task counts
             e.printStackTrace();
         }
+        setCounts(artifactData);
+    }
+
+    private void setCounts(List<BuildArtifactData> artifactData) {
+        setTotalcount(artifactData.size());
 
         // Update the FAILED and SKIPPED task count
         int failCount = 0;
@@ -202,55 +212,55 @@ public class BuildArtifactAction implements Action {
         setSkipCount(skipCount);
     }
 
-    private void iterateAllTaskAttributes(Entry pair, BuildArtifactData data) {
-        // Iterates across all task attributes and updates
-        String key = pair.getKey().toString();
-        switch (key) {
-            case "duration":
-                data.setTaskDuration(pair.getValue().toString());
-                break;
-            case "name":
-                data.setTaskName(pair.getValue().toString());
-                break;
-            case "description":
-                data.setTaskDescription(pair.getValue().toString());
-                break;
-            case "failed":
-                data.setTaskFailed((Boolean) pair.getValue());
-                break;
-            case "skipped":
-                data.setTaskSkipped((Boolean) pair.getValue());
-                break;
-            case "skipReason":
-                String skipReasonKey = pair.getValue().toString();
-                String skipReason;
-                switch (skipReasonKey) {
-                    case "UpToDate":
-                        skipReason = "up-to-date";
-                        break;
-                    case "UserSpecified":
-                    case "UserRequested":
-                        skipReason = "user requested";
-                        break;
-                    case "DependencyFailed":
-                        skipReason = "dependency failed";
-                        break;
-                    default:
-                        skipReason = skipReasonKey;
-                        break;
+    /*
+     * Parsed task results of recently viewed builds. The results are held
+     * through soft references so the JVM can drop them under memory pressure,
+     * and an entry is only used while the file it was parsed from is
+     * unchanged.
+     */
+    static final class ArtifactCache {
+        private final Map<String, CachedArtifact> entries;
+
+        ArtifactCache(final int maxEntries) {
+            this.entries = new LinkedHashMap<String, CachedArtifact>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedArtifact> eldest) {
+                    return size() > maxEntries;
                 }
-                data.setSkipReason(skipReason);
-                break;
-            default:
-                break;
+            };
+        }
+
+        synchronized List<BuildArtifactData> get(File file) {
+            CachedArtifact entry = entries.get(file.getAbsolutePath());
+            if (entry == null) {
+                return null;
+            }
+            List<BuildArtifactData> data = entry.data.get();
+            if (data == null || entry.lastModified != file.lastModified() || entry.length != file.length()) {
+                entries.remove(file.getAbsolutePath());
+                return null;
+            }
+            return data;
         }
-    }
 
-    private void iterateFailedSkipped(Entry pair, BuildArtifactData data) {
-        if (pair.getKey().toString().equalsIgnoreCase("failed")) {
-            data.setTaskFailed((Boolean) pair.getValue());
-        } else if (pair.getKey().toString().equalsIgnoreCase("skipped")) {
-            data.setTaskSkipped((Boolean) pair.getValue());
+        synchronized void put(File file, long lastModified, long length, List<BuildArtifactData> data) {
+            entries.put(file.getAbsolutePath(), new CachedArtifact(lastModified, length, data));
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private static final class CachedArtifact {
+            private final long lastModified;
+            private final long length;
+            private final SoftReference<List<BuildArtifactData>> data;
+
+            CachedArtifact(long lastModified, long length, List<BuildArtifactData> data) {
+                this.lastModified = lastModified;
+                this.length = length;
+                this.data = new SoftReference<List<BuildArtifactData>>(data);
+            }
         }
     }
 }
@@ -0,0 +1,255 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Reads the task details of a build artifact file, so only the resulting
+ * records are held in memory and never the whole JSON document.
+ *
+ * BuildReportPlugin writes one task object per line to a file ending in
+ * TASK_LINES_EXTENSION. Files written by earlier versions end in
+ * DOCUMENT_EXTENSION and hold a single object whose taskDetails are an array
+ * of tasks or a single task object; these are read token by token.
+ */
+public class BuildArtifactReader implements ContentHandler {
+    // Extensions of build artifact files with one task per line, and with a
+    // single JSON document
+    public static final String TASK_LINES_EXTENSION = ".jsonl";
+    public static final String DOCUMENT_EXTENSION = ".json";
+
+    private static final String ROOT_ELEMENT = "taskDetails";
+
+    private final List<BuildArtifactData> tasks = new ArrayList<BuildArtifactData>();
+
+    // Whether the root object is a task rather than a build artifact
+    private final boolean rootIsTask;
+
+    // Nesting level of the current object or array, where the root object is 1
+    private int depth;
+    private String rootKey;
+    private boolean inTaskArray;
+
+    // Task being read, the nesting level of its object, and the current key
+    private BuildArtifactData task;
+    private int taskDepth;
+    private String taskKey;
+
+    /**
+     * Reads all tasks from a build artifact file, in the format its name
+     * tells.
+     *
+     * @param reader   the build artifact
+     * @param fileName the name of the build artifact file
+     * @return the tasks in the order they appear
+     */
+    public static List<BuildArtifactData> read(Reader reader, String fileName) throws IOException, ParseException {
+        return fileName.endsWith(TASK_LINES_EXTENSION) ? readLines(reader) : read(reader);
+    }
+
+    /**
+     * Reads all tasks from a build artifact JSON document.
+     *
+     * @param reader the build artifact JSON
+     * @return the tasks in the order they appear
+     */
+    public static List<BuildArtifactData> read(Reader reader) throws IOException, ParseException {
+        BufferedReader in = new BufferedReader(reader);
+
+        // An empty file has no tasks rather than being invalid
+        int c;
+        do {
+            in.mark(1);
+            c = in.read();
+        } while (c != -1 && Character.isWhitespace(c));
+        if (c == -1) {
+            return new ArrayList<BuildArtifactData>();
+        }
+        in.reset();
+
+        BuildArtifactReader handler = new BuildArtifactReader(false);
+        new JSONParser().parse(in, handler);
+        return handler.tasks;
+    }
+
+    /**
+     * Reads all tasks from a build artifact file with one task per line. A
+     * last line that is not a complete task is left out, as MATLAB may have
+     * stopped while writing it.
+     *
+     * @param reader the build artifact lines
+     * @return the tasks in the order they appear
+     */
+    public static List<BuildArtifactData> readLines(Reader reader) throws IOException, ParseException {
+        BufferedReader in = new BufferedReader(reader);
+        List<BuildArtifactData> tasks = new ArrayList<BuildArtifactData>();
+        String line = in.readLine();
+        while (line != null) {
+            String next = in.readLine();
+            if (!line.trim().isEmpty()) {
+                try {
+                    tasks.add(readTask(line));
+                } catch (ParseException e) {
+                    if (next != null) {
+                        throw e;
+                    }
+                }
+            }
+            line = next;
+        }
+        return tasks;
+    }
+
+    /**
+     * Reads a single task object, as written per line to the build artifact
+     * file.
+     *
+     * @param json the task JSON
+     * @return the task
+     */
+    public static BuildArtifactData readTask(String json) throws ParseException {
+        BuildArtifactReader handler = new BuildArtifactReader(true);
+        new JSONParser().parse(json, handler);
+        if (handler.tasks.isEmpty()) {
+            throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN);
+        }
+        return handler.tasks.get(0);
+    }
+
+    private BuildArtifactReader(boolean rootIsTask) {
+        this.rootIsTask = rootIsTask;
+    }
+
+    @Override
+    public void startJSON() {
+        tasks.clear();
+        depth = 0;
+        rootKey = null;
+        inTaskArray = false;
+        task = null;
+    }
+
+    @Override
+    public void endJSON() {
+    }
+
+    @Override
+    public boolean startObject() {
+        depth++;
+        if (rootIsTask && depth == 1) {
+            task = new BuildArtifactData();
+            taskDepth = depth;
+        } else if (task == null && !rootIsTask
+                && ((depth == 3 && inTaskArray) || (depth == 2 && ROOT_ELEMENT.equals(rootKey)))) {
+            task = new BuildArtifactData();
+            taskDepth = depth;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endObject() {
+        if (task != null && depth == taskDepth) {
+            tasks.add(task);
+            task = null;
+        }
+        depth--;
+        return true;
+    }
+
+    @Override
+    public boolean startObjectEntry(String key) {
+        if (task != null && depth == taskDepth) {
+            taskKey = key;
+        } else if (depth == 1) {
+            rootKey = key;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endObjectEntry() {
+        if (task != null && depth == taskDepth) {
+            taskKey = null;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean startArray() {
+        depth++;
+        if (depth == 2 && !rootIsTask && ROOT_ELEMENT.equals(rootKey)) {
+            inTaskArray = true;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endArray() {
+        if (depth == 2) {
+            inTaskArray = false;
+        }
+        depth--;
+        return true;
+    }
+
+    @Override
+    public boolean primitive(Object value) {
+        if (task != null && depth == taskDepth && taskKey != null && value != null) {
+            setTaskAttribute(task, taskKey, value);
+        }
+        return true;
+    }
+
+    private static void setTaskAttribute(BuildArtifactData data, String key, Object value) {
+        switch (key) {
+            case "duration":
+                data.setTaskDuration(value.toString());
+                break;
+            case "name":
+                data.setTaskName(value.toString());
+                break;
+            case "description":
+                data.setTaskDescription(value.toString());
+                break;
+            case "failed":
+                data.setTaskFailed((Boolean) value);
+                break;
+            case "skipped":
+                data.setTaskSkipped((Boolean) value);
+                break;
+            case "skipReason":
+                String skipReasonKey = value.toString();
+                String skipReason;
+                switch (skipReasonKey) {
+                    case "UpToDate":
+                        skipReason = "up-to-date";
+                        break;
+                    case "UserSpecified":
+                    case "UserRequested":
+                        skipReason = "user requested";
+                        break;
+                    case "DependencyFailed":
+                        skipReason = "dependency failed";
+                        break;
+                    default:
+                        skipReason = skipReasonKey;
+                        break;
+                }
+                data.setSkipReason(skipReason);
+                break;
+            default:
+                break;
+        }
+    }
+}
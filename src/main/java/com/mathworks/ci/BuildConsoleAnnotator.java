@@ -14,14 +14,33 @@ import java.io.OutputStream;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import jenkins.util.JenkinsJVM;
 
 public class BuildConsoleAnnotator extends LineTransformationOutputStream {
+    private static final Logger LOGGER = Logger.getLogger(BuildConsoleAnnotator.class.getName());
+
+    private static final String MARKER = "[MATLAB-Build-";
+    private static final byte[] MARKER_BYTES = MARKER.getBytes(StandardCharsets.US_ASCII);
+
     private final OutputStream out;
     private final Charset charset;
 
+    // Whether the marker can be found in the raw bytes without decoding them
+    private final boolean matchBytes;
+
     private final byte[][] antNotes;
 
+    private Run<?, ?> build;
+    private TaskLogIndex taskLogIndex;
+
+    // Bytes written through the annotator, and the log offset where they
+    // start, which is known once the first task offset is recorded
+    private long written;
+    private long logStart = -1;
+
     public BuildConsoleAnnotator(OutputStream out, Charset charset) {
         this(out, charset, createBuildNotes());
     }
@@ -30,6 +49,7 @@ public class BuildConsoleAnnotator extends LineTransformationOutputStream {
         this.out = out;
         this.charset = charset;
         this.antNotes = antNotes;
+        this.matchBytes = charset.equals(StandardCharsets.UTF_8) || charset.newEncoder().maxBytesPerChar() == 1;
     }
 
     private static byte[][] createBuildNotes() {
@@ -46,13 +66,83 @@ public class BuildConsoleAnnotator extends LineTransformationOutputStream {
 
     @Override
     protected void eol(byte[] b, int len) throws IOException {
-        String line = charset.decode(ByteBuffer.wrap(b, 0, len)).toString();
-        // trim off CR/LF from the end
-        line = trimEOL(line);
-        if (line.contains("[MATLAB-Build-"))
+        boolean marked = matchBytes
+                ? containsMarker(b, len)
+                : charset.decode(ByteBuffer.wrap(b, 0, len)).toString().contains(MARKER);
+        if (marked) {
+            recordTaskOffset(BuildTargetNote.getTaskName(charset.decode(ByteBuffer.wrap(b, 0, len))));
             out.write(antNotes[0]);
+            written += antNotes[0].length;
+        }
 
         out.write(b, 0, len);
+        written += len;
+    }
+
+    /**
+     * Records where the output of each task starts in the build log, so the
+     * build results page can show the output of a single task. Nothing is
+     * recorded for builds whose log offsets cannot be used, see
+     * TaskLogIndex.canIndex. Filters after this one can still rewrite the log,
+     * so the offsets are checked when they are used.
+     *
+     * @param build the build whose log this annotator writes to
+     * @param index the index to record the offsets in
+     */
+    public void setTaskLogIndex(Run<?, ?> build, TaskLogIndex index) {
+        if (build == null || !TaskLogIndex.canIndex(build)) {
+            return;
+        }
+        this.build = build;
+        this.taskLogIndex = index;
+    }
+
+    /**
+     * Records where the output of the last task ends.
+     */
+    public void markTaskLogEnd() {
+        recordTaskOffset("");
+    }
+
+    private void recordTaskOffset(String taskName) {
+        if (this.taskLogIndex == null || taskName == null) {
+            return;
+        }
+        try {
+            // Only the annotator writes to the log while MATLAB runs, so after
+            // flushing once the offsets follow from the bytes written
+            if (this.logStart < 0) {
+                out.flush();
+                this.logStart = this.build.getLogFile().length() - this.written;
+            }
+            this.taskLogIndex.append(taskName, this.logStart + this.written);
+        } catch (IOException e) {
+            // Only used for navigation, the console still has the anchors
+            LOGGER.log(Level.FINE, "Unable to record the log offset of a MATLAB build task", e);
+        }
+    }
+
+    /*
+     * Searches the raw bytes of a line for the marker. In UTF-8 and single byte
+     * charsets, ASCII bytes only ever encode ASCII characters, so this finds
+     * exactly the lines whose text contains the marker.
+     */
+    static boolean containsMarker(byte[] b, int len) {
+        byte first = MARKER_BYTES[0];
+        int last = len - MARKER_BYTES.length;
+        for (int i = 0; i <= last; i++) {
+            if (b[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < MARKER_BYTES.length && b[i + j] == MARKER_BYTES[j]) {
+                j++;
+            }
+            if (j == MARKER_BYTES.length) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
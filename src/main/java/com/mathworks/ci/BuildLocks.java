@@ -0,0 +1,31 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.model.Run;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * One lock for each build, so steps running in parallel in a build can share
+ * state without holding up the steps of other builds. A lock is dropped when
+ * its build is no longer used.
+ */
+public class BuildLocks {
+    private static final Map<Run<?, ?>, Object> locks = Collections
+            .synchronizedMap(new WeakHashMap<Run<?, ?>, Object>());
+
+    private BuildLocks() {
+    }
+
+    /**
+     * @param build the build
+     * @return the lock of the build, the same object for every call
+     */
+    public static Object get(Run<?, ?> build) {
+        return locks.computeIfAbsent(build, k -> new Object());
+    }
+}
@@ -0,0 +1,77 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.model.Action;
+import hudson.model.Run;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.CheckForNull;
+
+/**
+ * Results of the MATLAB build tasks that completed so far, shown while the
+ * build is running. It is replaced by BuildArtifactAction when the build
+ * finishes.
+ */
+public class BuildProgressAction implements Action {
+    private transient Run<?, ?> build;
+    private String actionID;
+    private transient List<BuildArtifactData> tasks = new CopyOnWriteArrayList<BuildArtifactData>();
+
+    public BuildProgressAction(Run<?, ?> build, String actionID) {
+        this.build = build;
+        this.actionID = actionID;
+    }
+
+    public String getActionID() {
+        return (this.actionID == null) ? "" : this.actionID;
+    }
+
+    @CheckForNull
+    @Override
+    public String getIconFileName() {
+        return "document.png";
+    }
+
+    @CheckForNull
+    @Override
+    public String getDisplayName() {
+        return "MATLAB Build Progress";
+    }
+
+    @CheckForNull
+    @Override
+    public String getUrlName() {
+        return "buildprogress" + getActionID();
+    }
+
+    public Run getOwner() {
+        return this.build;
+    }
+
+    public void addTask(BuildArtifactData task) {
+        this.tasks.add(task);
+    }
+
+    public List<BuildArtifactData> getTasks() {
+        // Empty if the action was saved with the build and loaded again
+        return (this.tasks == null) ? Collections.<BuildArtifactData>emptyList() : this.tasks;
+    }
+
+    public int getTotalCount() {
+        return getTasks().size();
+    }
+
+    public int getFailCount() {
+        int count = 0;
+        for (BuildArtifactData task : getTasks()) {
+            if (task.getTaskFailed()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
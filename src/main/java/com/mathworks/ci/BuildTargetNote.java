@@ -10,9 +10,17 @@ import hudson.MarkupText;
 import hudson.console.ConsoleAnnotationDescriptor;
 import hudson.console.ConsoleAnnotator;
 import hudson.console.ConsoleNote;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class BuildTargetNote extends ConsoleNote {
+    private static final String MARKER_TEXT = "MATLAB-Build";
+
+    // Matches "[MATLAB-Build-<task>-<actionID>]", capturing the task name and
+    // the action ID, which is empty for builds without one
+    private static final Pattern MARKER = Pattern.compile(
+            "\\[" + MARKER_TEXT + "-([^\\]\\s]*?)-([A-Za-z0-9]*)\\]");
+
     @VisibleForTesting
     public static boolean ENABLED = !Boolean.getBoolean(BuildTargetNote.class.getName() + ".disabled");
 
@@ -21,14 +29,25 @@ public class BuildTargetNote extends ConsoleNote {
 
     @Override
     public ConsoleAnnotator annotate(Object context, MarkupText text, int charPos) {
-        MarkupText.SubText t = text.findToken(Pattern.compile("MATLAB-Build-"));
-        String taskName = text.subText(13, text.length() - 2).getText();
-        taskName = taskName.replace("]", "").trim();
-        if (t != null)
-            t.addMarkup(0, t.length() - 1, "<a id= matlab" + taskName + " name=matlab" + taskName + ">", "</a>");
+        Matcher m = MARKER.matcher(text.getText());
+        if (m.find()) {
+            // Matches the anchors the build results page links to
+            String anchor = "matlab-" + m.group(1) + (m.group(2).isEmpty() ? "" : "-" + m.group(2));
+            int start = m.start() + 1;
+            text.addMarkup(start, start + MARKER_TEXT.length(),
+                    "<a id= " + anchor + " name=" + anchor + ">", "</a>");
+        }
         return null;
     }
 
+    /**
+     * @return the name of the task whose marker is in the line, or null
+     */
+    static String getTaskName(CharSequence line) {
+        Matcher m = MARKER.matcher(line);
+        return m.find() ? m.group(1) : null;
+    }
+
     @Extension
     public static final class DescriptorImpl extends ConsoleAnnotationDescriptor {
         public String getDisplayName() {
@@ -0,0 +1,197 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import jenkins.model.TransientActionFactory;
+
+/**
+ * Job level view of how the duration and outcome of each MATLAB build task
+ * changed over time, read from the BuildTrendIndex of the job.
+ */
+public class BuildTrendAction implements Action {
+    private static final Logger LOGGER = Logger.getLogger(BuildTrendAction.class.getName());
+
+    // Number of most recent results shown for each task
+    private static final int RECENT_COUNT = 20;
+
+    private final Job<?, ?> job;
+
+    public BuildTrendAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    @CheckForNull
+    @Override
+    public String getIconFileName() {
+        return "document.png";
+    }
+
+    @CheckForNull
+    @Override
+    public String getDisplayName() {
+        return "MATLAB Build Trend";
+    }
+
+    @CheckForNull
+    @Override
+    public String getUrlName() {
+        return "buildtrend";
+    }
+
+    public Job<?, ?> getOwner() {
+        return this.job;
+    }
+
+    public List<TaskTrend> getTasks() throws IOException {
+        List<TaskTrend> tasks = new ArrayList<TaskTrend>();
+        for (Map.Entry<String, List<BuildTrendIndex.Row>> e : BuildTrendIndex.read(job.getRootDir()).entrySet()) {
+            tasks.add(new TaskTrend(e.getKey(), e.getValue()));
+        }
+        return tasks;
+    }
+
+    /**
+     * Summary of the recorded results of a single task.
+     */
+    public static class TaskTrend {
+        private final String taskName;
+        private final List<BuildTrendIndex.Row> rows;
+
+        TaskTrend(String taskName, List<BuildTrendIndex.Row> rows) {
+            this.taskName = taskName;
+            this.rows = rows;
+        }
+
+        public String getTaskName() {
+            return this.taskName;
+        }
+
+        public int getRunCount() {
+            return this.rows.size();
+        }
+
+        public int getFailCount() {
+            int count = 0;
+            for (BuildTrendIndex.Row row : rows) {
+                if (row.isFailed()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public int getLastBuildNumber() {
+            return rows.get(rows.size() - 1).getBuildNumber();
+        }
+
+        public long getLastDurationMillis() {
+            return rows.get(rows.size() - 1).getDurationMillis();
+        }
+
+        /**
+         * @return the average duration of the runs before the last one that were
+         *         not skipped, or -1 if there are none
+         */
+        public long getAverageDurationMillis() {
+            long total = 0;
+            int count = 0;
+            for (BuildTrendIndex.Row row : rows.subList(0, rows.size() - 1)) {
+                if (!row.isSkipped() && row.getDurationMillis() >= 0) {
+                    total += row.getDurationMillis();
+                    count++;
+                }
+            }
+            return count == 0 ? -1 : total / count;
+        }
+
+        /**
+         * @return how much slower the last run was than the average, in percent,
+         *         or 0 if there is nothing to compare
+         */
+        public long getChangePercent() {
+            long average = getAverageDurationMillis();
+            long last = getLastDurationMillis();
+            if (average <= 0 || last < 0) {
+                return 0;
+            }
+            return Math.round((last - average) * 100.0 / average);
+        }
+
+        public String getLastDuration() {
+            return formatDuration(getLastDurationMillis());
+        }
+
+        public String getAverageDuration() {
+            return formatDuration(getAverageDurationMillis());
+        }
+
+        /**
+         * @return the most recent results, newest first
+         */
+        public List<BuildTrendIndex.Row> getRecent() {
+            List<BuildTrendIndex.Row> recent = new ArrayList<BuildTrendIndex.Row>(
+                    rows.subList(Math.max(0, rows.size() - RECENT_COUNT), rows.size()));
+            Collections.reverse(recent);
+            return recent;
+        }
+
+        public static String formatDuration(long millis) {
+            if (millis < 0) {
+                return "";
+            }
+            long seconds = millis / 1000;
+            return String.format("%02d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+        }
+    }
+
+    @Extension
+    public static final class Factory extends TransientActionFactory<Job> {
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @Nonnull
+        @Override
+        public Collection<? extends Action> createFor(@Nonnull Job target) {
+            if (!new File(target.getRootDir(), BuildTrendIndex.FILE_NAME).exists()) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new BuildTrendAction(target));
+        }
+    }
+
+    /**
+     * Removes deleted builds, such as those discarded by log rotation, from
+     * the history of their job, so the trend never links to them.
+     */
+    @Extension
+    public static final class DeletedBuildListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onDeleted(Run<?, ?> build) {
+            try {
+                BuildTrendIndex.remove(build.getParent().getRootDir(), build.getNumber());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to remove " + build + " from the MATLAB build trend", e);
+            }
+        }
+    }
+}
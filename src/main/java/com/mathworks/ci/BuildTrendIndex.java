@@ -0,0 +1,261 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Per-job history of MATLAB build task results. Every build appends one line
+ * per task when its results are stored, so the history of a job can be read
+ * from a single file without loading any builds. Only the most recent builds
+ * are read, and the file is compacted once it holds twice as many. Lines of
+ * deleted builds are removed when the build is deleted.
+ *
+ * Each line holds the build number, task name, duration in milliseconds and
+ * outcome, separated by tabs.
+ */
+public class BuildTrendIndex {
+    public static final String FILE_NAME = "matlabBuildTrend.tsv";
+
+    // Number of most recent builds in the history of a job
+    public static final int MAX_BUILDS = Integer.getInteger(BuildTrendIndex.class.getName() + ".maxBuilds", 100);
+
+    private static final Object lock = new Object();
+
+    /**
+     * One result of a task in a build.
+     */
+    public static class Row {
+        private final int buildNumber;
+        private final long durationMillis;
+        private final boolean failed;
+        private final boolean skipped;
+
+        Row(int buildNumber, long durationMillis, boolean failed, boolean skipped) {
+            this.buildNumber = buildNumber;
+            this.durationMillis = durationMillis;
+            this.failed = failed;
+            this.skipped = skipped;
+        }
+
+        public int getBuildNumber() {
+            return buildNumber;
+        }
+
+        /**
+         * @return the duration in milliseconds, or -1 if unknown
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        public boolean isSkipped() {
+            return skipped;
+        }
+    }
+
+    /**
+     * Appends the task results of a build to the history of its job.
+     *
+     * @param jobRoot     the root folder of the job
+     * @param buildNumber the number of the build
+     * @param tasks       the task results of the build
+     */
+    public static void append(File jobRoot, int buildNumber, List<BuildArtifactData> tasks) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (BuildArtifactData task : tasks) {
+            String name = task.getTaskName();
+            if (name == null || name.isEmpty()) {
+                continue;
+            }
+            lines.append(buildNumber)
+                    .append('\t').append(name.replaceAll("[\\t\\r\\n]", " "))
+                    .append('\t').append(parseDuration(task.getTaskDuration()))
+                    .append('\t').append(task.getTaskFailed() ? 'F' : task.getTaskSkipped() ? 'S' : 'P')
+                    .append('\n');
+        }
+        if (lines.length() == 0) {
+            return;
+        }
+
+        // Concurrent builds of the same job must not interleave their lines
+        synchronized (lock) {
+            File file = new File(jobRoot, FILE_NAME);
+            Files.write(file.toPath(),
+                    lines.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+            List<String> all = readLines(file);
+            if (countBuilds(all) > 2 * MAX_BUILDS) {
+                writeLines(file, getRecent(all, MAX_BUILDS));
+            }
+        }
+    }
+
+    /**
+     * Removes the task results of a build from the history of its job.
+     *
+     * @param jobRoot     the root folder of the job
+     * @param buildNumber the number of the build
+     */
+    public static void remove(File jobRoot, int buildNumber) throws IOException {
+        synchronized (lock) {
+            File file = new File(jobRoot, FILE_NAME);
+            if (!file.exists()) {
+                return;
+            }
+
+            List<String> lines = readLines(file);
+            List<String> kept = new ArrayList<String>();
+            for (String line : lines) {
+                if (getBuildNumber(line) != buildNumber) {
+                    kept.add(line);
+                }
+            }
+            if (kept.size() < lines.size()) {
+                writeLines(file, kept);
+            }
+        }
+    }
+
+    /**
+     * Reads the history of the most recent builds of a job.
+     *
+     * @param jobRoot the root folder of the job
+     * @return the results of each task in the order they were recorded, keyed by
+     *         task name
+     */
+    public static Map<String, List<Row>> read(File jobRoot) throws IOException {
+        Map<String, List<Row>> tasks = new LinkedHashMap<String, List<Row>>();
+        File file = new File(jobRoot, FILE_NAME);
+        if (!file.exists()) {
+            return tasks;
+        }
+
+        // The file is only ever replaced as a whole, so it can be read without the lock
+        for (String line : getRecent(readLines(file), MAX_BUILDS)) {
+            String[] fields = line.split("\t");
+            Row row = new Row(
+                    Integer.parseInt(fields[0]),
+                    Long.parseLong(fields[2]),
+                    fields[3].charAt(0) == 'F',
+                    fields[3].charAt(0) == 'S');
+            tasks.computeIfAbsent(fields[1], k -> new ArrayList<Row>()).add(row);
+        }
+        return tasks;
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isComplete(line)) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    /*
+     * Keeps the lines of the most recent builds.
+     */
+    private static List<String> getRecent(List<String> lines, int maxBuilds) {
+        if (countBuilds(lines) <= maxBuilds) {
+            return lines;
+        }
+
+        // Builds can finish out of order, so the most recent are the highest numbers
+        TreeSet<Integer> builds = new TreeSet<Integer>();
+        for (String line : lines) {
+            builds.add(getBuildNumber(line));
+        }
+        while (builds.size() > maxBuilds) {
+            builds.pollFirst();
+        }
+        List<String> recent = new ArrayList<String>();
+        for (String line : lines) {
+            if (builds.contains(getBuildNumber(line))) {
+                recent.add(line);
+            }
+        }
+        return recent;
+    }
+
+    private static boolean isComplete(String line) {
+        String[] fields = line.split("\t");
+        if (fields.length != 4 || fields[3].length() != 1) {
+            // Skip lines that were cut short
+            return false;
+        }
+        try {
+            Integer.parseInt(fields[0]);
+            Long.parseLong(fields[2]);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static int getBuildNumber(String line) {
+        return Integer.parseInt(line.substring(0, line.indexOf('\t')));
+    }
+
+    private static int countBuilds(List<String> lines) {
+        TreeSet<Integer> builds = new TreeSet<Integer>();
+        for (String line : lines) {
+            builds.add(getBuildNumber(line));
+        }
+        return builds.size();
+    }
+
+    private static void writeLines(File file, List<String> lines) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+
+        // Write a copy first, so readers never see a partly written file
+        File temp = new File(file.getPath() + ".tmp");
+        Files.write(temp.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /*
+     * Converts a MATLAB duration string such as "00:02:53" or "01:00:00.250"
+     * to milliseconds. Returns -1 for anything else.
+     */
+    static long parseDuration(String duration) {
+        if (duration == null || duration.isEmpty()) {
+            return -1;
+        }
+        try {
+            String[] parts = duration.trim().split(":");
+            double seconds = 0;
+            for (String part : parts) {
+                seconds = seconds * 60 + Double.parseDouble(part);
+            }
+            return Math.round(seconds * 1000);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Merges Cobertura coverage reports, such as those of test shards or matrix
+ * configurations, into one report. Reports are read as streams and only the
+ * hits of each line are kept, so memory depends on the size of the covered
+ * code and not on the number or size of the reports.
+ *
+ * Hits of the same line of the same class add up. For branches, the most
+ * conditions any report covered count as covered, because reports do not
+ * say which conditions were covered.
+ */
+public class CoberturaMerger {
+    // Covered and total conditions of a branch, as in "50% (1/2)"
+    private static final Pattern CONDITIONS = Pattern.compile("\\((\\d+)/(\\d+)\\)");
+
+    private final Set<String> sources = new LinkedHashSet<String>();
+    private final Map<String, Package> packages = new TreeMap<String, Package>();
+
+    /**
+     * Adds the coverage of a report.
+     *
+     * @param in the Cobertura XML report
+     */
+    public void add(InputStream in) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(in);
+
+            // Elements being read
+            Package pkg = null;
+            Clazz clazz = null;
+            Method method = null;
+            StringBuilder source = null;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        String element = reader.getLocalName();
+                        if (element.equals("source")) {
+                            source = new StringBuilder();
+                        } else if (element.equals("package")) {
+                            String name = getAttribute(reader, "name");
+                            pkg = this.packages.computeIfAbsent(name, k -> new Package(name));
+                        } else if (element.equals("class") && pkg != null) {
+                            clazz = pkg.getClass(getAttribute(reader, "name"), getAttribute(reader, "filename"));
+                            clazz.complexity = Math.max(clazz.complexity, getComplexity(reader));
+                        } else if (element.equals("method") && clazz != null) {
+                            method = clazz.getMethod(getAttribute(reader, "name"), getAttribute(reader, "signature"));
+                        } else if (element.equals("line") && clazz != null) {
+                            addLine(method != null ? method.lines : clazz.lines, reader);
+                        }
+                        break;
+
+                    case XMLStreamConstants.CHARACTERS:
+                        if (source != null) {
+                            source.append(reader.getText());
+                        }
+                        break;
+
+                    case XMLStreamConstants.END_ELEMENT:
+                        String end = reader.getLocalName();
+                        if (end.equals("source") && source != null) {
+                            if (source.toString().trim().length() > 0) {
+                                this.sources.add(source.toString().trim());
+                            }
+                            source = null;
+                        } else if (end.equals("package")) {
+                            pkg = null;
+                        } else if (end.equals("class")) {
+                            clazz = null;
+                        } else if (end.equals("method")) {
+                            method = null;
+                        }
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // Nothing left to read
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the merged report, with rates and counts computed from the
+     * merged lines.
+     *
+     * @param out where to write the Cobertura XML report
+     */
+    public void write(OutputStream out) throws IOException {
+        try {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeCharacters("\n");
+
+            Counts total = new Counts();
+            for (Package pkg : this.packages.values()) {
+                for (Clazz clazz : pkg.classes.values()) {
+                    total.add(clazz.lines);
+                }
+            }
+
+            writer.writeStartElement("coverage");
+            writeRates(writer, total);
+            writer.writeAttribute("lines-covered", String.valueOf(total.coveredLines));
+            writer.writeAttribute("lines-valid", String.valueOf(total.lines));
+            writer.writeAttribute("branches-covered", String.valueOf(total.coveredConditions));
+            writer.writeAttribute("branches-valid", String.valueOf(total.conditions));
+            writer.writeAttribute("complexity", "0");
+            writer.writeAttribute("version", "");
+            writer.writeAttribute("timestamp", String.valueOf(System.currentTimeMillis() / 1000));
+            writer.writeCharacters("\n");
+
+            writer.writeStartElement("sources");
+            for (String source : this.sources) {
+                writer.writeStartElement("source");
+                writer.writeCharacters(source);
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+
+            writer.writeStartElement("packages");
+            writer.writeCharacters("\n");
+            for (Package pkg : this.packages.values()) {
+                writePackage(writer, pkg);
+            }
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void writePackage(XMLStreamWriter writer, Package pkg) throws XMLStreamException {
+        Counts counts = new Counts();
+        double complexity = 0;
+        for (Clazz clazz : pkg.classes.values()) {
+            counts.add(clazz.lines);
+            complexity = Math.max(complexity, clazz.complexity);
+        }
+
+        writer.writeStartElement("package");
+        writer.writeAttribute("name", pkg.name);
+        writeRates(writer, counts);
+        writer.writeAttribute("complexity", String.valueOf(complexity));
+        writer.writeCharacters("\n");
+
+        writer.writeStartElement("classes");
+        writer.writeCharacters("\n");
+        for (Clazz clazz : pkg.classes.values()) {
+            Counts classCounts = new Counts();
+            classCounts.add(clazz.lines);
+
+            writer.writeStartElement("class");
+            writer.writeAttribute("name", clazz.name);
+            writer.writeAttribute("filename", clazz.filename);
+            writeRates(writer, classCounts);
+            writer.writeAttribute("complexity", String.valueOf(clazz.complexity));
+
+            writer.writeStartElement("methods");
+            for (Method method : clazz.methods.values()) {
+                Counts methodCounts = new Counts();
+                methodCounts.add(method.lines);
+
+                writer.writeStartElement("method");
+                writer.writeAttribute("name", method.name);
+                writer.writeAttribute("signature", method.signature);
+                writeRates(writer, methodCounts);
+                writeLines(writer, method.lines);
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+
+            writeLines(writer, clazz.lines);
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+        }
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+    }
+
+    private static void writeLines(XMLStreamWriter writer, Map<Integer, Line> lines) throws XMLStreamException {
+        writer.writeStartElement("lines");
+        for (Map.Entry<Integer, Line> e : lines.entrySet()) {
+            Line line = e.getValue();
+            writer.writeEmptyElement("line");
+            writer.writeAttribute("number", String.valueOf(e.getKey()));
+            writer.writeAttribute("hits", String.valueOf(line.hits));
+            writer.writeAttribute("branch", String.valueOf(line.branch));
+            if (line.branch && line.conditions > 0) {
+                writer.writeAttribute("condition-coverage", String.format("%d%% (%d/%d)",
+                        100 * line.coveredConditions / line.conditions, line.coveredConditions, line.conditions));
+            }
+        }
+        writer.writeEndElement();
+    }
+
+    private static void writeRates(XMLStreamWriter writer, Counts counts) throws XMLStreamException {
+        writer.writeAttribute("line-rate", String.valueOf(rate(counts.coveredLines, counts.lines)));
+        writer.writeAttribute("branch-rate", String.valueOf(rate(counts.coveredConditions, counts.conditions)));
+    }
+
+    private static double rate(long covered, long valid) {
+        return valid == 0 ? 0 : (double) covered / valid;
+    }
+
+    private static void addLine(Map<Integer, Line> lines, XMLStreamReader reader) {
+        int number;
+        long hits;
+        try {
+            number = Integer.parseInt(getAttribute(reader, "number"));
+            hits = Long.parseLong(getAttribute(reader, "hits"));
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        Line line = lines.computeIfAbsent(number, k -> new Line());
+        line.hits += hits;
+        if (Boolean.parseBoolean(getAttribute(reader, "branch"))) {
+            line.branch = true;
+            Matcher matcher = CONDITIONS.matcher(getAttribute(reader, "condition-coverage"));
+            if (matcher.find()) {
+                line.coveredConditions = Math.max(line.coveredConditions, Integer.parseInt(matcher.group(1)));
+                line.conditions = Math.max(line.conditions, Integer.parseInt(matcher.group(2)));
+            }
+        }
+    }
+
+    private static double getComplexity(XMLStreamReader reader) {
+        try {
+            return Double.parseDouble(getAttribute(reader, "complexity"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String getAttribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? "" : value;
+    }
+
+    private static class Package {
+        private final String name;
+        private final Map<String, Clazz> classes = new TreeMap<String, Clazz>();
+
+        Package(String name) {
+            this.name = name;
+        }
+
+        Clazz getClass(String name, String filename) {
+            return this.classes.computeIfAbsent(name + "\n" + filename, k -> new Clazz(name, filename));
+        }
+    }
+
+    private static class Clazz {
+        private final String name;
+        private final String filename;
+        private final Map<String, Method> methods = new LinkedHashMap<String, Method>();
+        private final Map<Integer, Line> lines = new TreeMap<Integer, Line>();
+        private double complexity;
+
+        Clazz(String name, String filename) {
+            this.name = name;
+            this.filename = filename;
+        }
+
+        Method getMethod(String name, String signature) {
+            return this.methods.computeIfAbsent(name + "\n" + signature, k -> new Method(name, signature));
+        }
+    }
+
+    private static class Method {
+        private final String name;
+        private final String signature;
+        private final Map<Integer, Line> lines = new TreeMap<Integer, Line>();
+
+        Method(String name, String signature) {
+            this.name = name;
+            this.signature = signature;
+        }
+    }
+
+    private static class Line {
+        private long hits;
+        private boolean branch;
+        private int coveredConditions;
+        private int conditions;
+    }
+
+    /*
+     * Valid and covered lines and conditions of a set of lines.
+     */
+    private static class Counts {
+        private long lines;
+        private long coveredLines;
+        private long conditions;
+        private long coveredConditions;
+
+        void add(Map<Integer, Line> lines) {
+            for (Line line : lines.values()) {
+                this.lines++;
+                if (line.hits > 0) {
+                    this.coveredLines++;
+                }
+                this.conditions += line.conditions;
+                this.coveredConditions += Math.min(line.coveredConditions, line.conditions);
+            }
+        }
+    }
+}
@@ -6,13 +6,11 @@ package com.mathworks.ci;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.Charset;
 import hudson.console.LineTransformationOutputStream;
 import hudson.model.TaskListener;
 
 public class ListenerLogDecorator extends LineTransformationOutputStream {
     private OutputStream listener;
-    private final Charset charsetUtf8 = Charset.forName("UTF-8");
 
     public ListenerLogDecorator(TaskListener listner) throws IOException {
         this.listener = listner != null ? listner.getLogger() : null;
@@ -24,7 +22,14 @@ public class ListenerLogDecorator extends LineTransformationOutputStream {
             return;
         }
 
-        String line = new String(bytes, 0, length, charsetUtf8);
-        this.listener.write(line.getBytes(charsetUtf8));
+        // Lines are passed through unchanged, flushing is left to the caller
+        this.listener.write(bytes, 0, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (this.listener != null) {
+            this.listener.flush();
+        }
     }
 }
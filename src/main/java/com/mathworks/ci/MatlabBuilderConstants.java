@@ -41,14 +41,74 @@ public class MatlabBuilderConstants {
     public static final String TASK_RUN_PROGRESS_PLUGIN = "+ciplugins/+jenkins/TaskRunProgressPlugin.m";
     public static final String BUILD_ARTIFACT = "buildArtifact";
 
+    // Offsets of task output in the build log
+    public static final String TASK_LOG_INDEX = "taskLogIndex";
+
+    // MATLAB function that records when a command starts, and the file it
+    // writes to in the temp folder
+    public static final String TIMING_FUNCTION = "+ciplugins/+jenkins/recordTiming.m";
+    public static final String TIMING_FILE = "timing.txt";
+
+    // MATLAB function that runs the named commands of runMATLABCommands
+    public static final String RUN_COMMANDS_FUNCTION = "+ciplugins/+jenkins/runCommands.m";
+
+    // MATLAB functions that run some of the tests, and select the tests of a
+    // shard or the tests affected by changes
+    public static final String TEST_SELECTION_RUNNER = "+ciplugins/+jenkins/runSelectedTests.m";
+    public static final String TEST_SHARD_SELECTOR = "+ciplugins/+jenkins/selectTestShard.m";
+    public static final String TEST_IMPACT_SELECTOR = "+ciplugins/+jenkins/selectImpactedTests.m";
+    public static final String TEST_ORDER_SELECTOR = "+ciplugins/+jenkins/orderTests.m";
+
+    // MATLAB test runner plugin that skips the remaining tests after a failure
+    public static final String FAIL_FAST_PLUGIN = "+ciplugins/+jenkins/FailFastPlugin.m";
+
+    // Dependencies of test files, in the job and build folders
+    public static final String TEST_IMPACT_FILE = "matlabTestImpact.tsv";
+
+    // Test files affected by changes, dependencies that are still current, and
+    // dependencies MATLAB found, in the temp folder
+    public static final String IMPACTED_TESTS_FILE = "matlabImpactedTests.tsv";
+    public static final String KNOWN_DEPENDENCIES_FILE = "matlabKnownDependencies.tsv";
+    public static final String TEST_DEPENDENCIES_FILE = "matlabTestDependencies.tsv";
+
+    // Test files whose results are cached, in the build and temp folders
+    public static final String CACHED_TESTS_FILE = "matlabCachedTests.txt";
+
+    // Folder of the test result cache, in the Jenkins home folder
+    public static final String TEST_RESULT_CACHE = "matlabTestResultCache";
+
+    // Order of tests from earlier results, in the temp folder
+    public static final String TEST_ORDER_FILE = "matlabTestOrder.tsv";
+
+    // Durations of earlier test runs, used to balance shards, in the job, build and temp folders
+    public static final String TEST_DURATIONS_FILE = "matlabTestDurations.tsv";
+
+    // Test cases of the JUnit results of a step, one JSON object per line, in the build folder
+    public static final String TEST_CASES_FILE_PREFIX = "matlabTestCases";
+    public static final String TEST_CASES_FILE_EXTENSION = ".jsonl";
+
+    // JUnit results written to the temp folder when shards or ordering need
+    // results but there is no JUnit artifact
+    public static final String TEST_HISTORY_RESULTS = "matlabTestResults.xml";
+
+    // MATLAB function that serves commands in a warm MATLAB session
+    public static final String SESSION_SERVER = "+ciplugins/+jenkins/serveMatlabSession.m";
+
     public static final String NEW_LINE = System.getProperty("line.separator");
 
     // MATLAB Runner Script
     public static final String TEST_RUNNER_SCRIPT = String.join(NEW_LINE,
-            "addpath('${TEMP_FOLDER}');",
+            "addpath('${GENSCRIPT_FOLDER}');",
             "testScript = genscript(${PARAMS});",
             "disp('Running MATLAB script with content:');",
             "disp(testScript.Contents);",
             "fprintf('___________________________________\\n\\n');",
             "run(testScript);");
+
+    // MATLAB Runner Script for some of the tests
+    public static final String TEST_SELECTION_RUNNER_SCRIPT = String.join(NEW_LINE,
+            "addpath('${GENSCRIPT_FOLDER}');",
+            "addpath('${TEMP_FOLDER}');",
+            "testScript = genscript(${PARAMS});",
+            "ciplugins.jenkins.runSelectedTests(testScript, ${SELECTION}, ${FAIL_FAST});");
 }
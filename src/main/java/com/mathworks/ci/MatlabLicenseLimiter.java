@@ -0,0 +1,165 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.model.TaskListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.StaplerRequest;
+
+import com.mathworks.ci.utilities.TokenScheduler;
+
+/**
+ * Limits how many MATLAB steps run at the same time, so builds wait on the
+ * controller for a license instead of failing when MATLAB cannot check one
+ * out.
+ *
+ * Each pool has a number of tokens. A pool named like a MATLAB installation
+ * limits the steps that use that installation. Other pools, for example for
+ * toolboxes, are used by steps that list them in the MATLAB_LICENSE_POOLS
+ * environment variable. A step takes one token from each of its pools before
+ * MATLAB starts and returns them when MATLAB exits.
+ */
+@Extension
+@Symbol("matlabLicenses")
+public class MatlabLicenseLimiter extends GlobalConfiguration {
+    // Comma separated pools a step needs in addition to its installation
+    public static final String POOLS_VARIABLE = "MATLAB_LICENSE_POOLS";
+
+    // Steps with a higher priority get tokens first, the default is 0
+    public static final String PRIORITY_VARIABLE = "MATLAB_LICENSE_PRIORITY";
+
+    private static final TokenScheduler scheduler = new TokenScheduler(MatlabLicenseLimiter::getLimit);
+
+    private List<MatlabLicensePool> pools = new ArrayList<MatlabLicensePool>();
+
+    public MatlabLicenseLimiter() {
+        load();
+    }
+
+    public List<MatlabLicensePool> getPools() {
+        return this.pools == null ? Collections.<MatlabLicensePool>emptyList() : this.pools;
+    }
+
+    @DataBoundSetter
+    public void setPools(List<MatlabLicensePool> pools) {
+        this.pools = pools == null ? new ArrayList<MatlabLicensePool>() : new ArrayList<MatlabLicensePool>(pools);
+        save();
+    }
+
+    @Override
+    public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+        // Removing the last pool does not send the field
+        this.pools = new ArrayList<MatlabLicensePool>();
+        req.bindJSON(this, json);
+        save();
+        return true;
+    }
+
+    /**
+     * @return the number of steps waiting for tokens
+     */
+    public int getQueueLength() {
+        return scheduler.getQueueLength();
+    }
+
+    /**
+     * Waits for a token from each pool the step uses. Without any pools
+     * configured, returns right away.
+     *
+     * @param env      the environment of the step
+     * @param listener where to report waiting
+     * @return the ticket to close when MATLAB exits
+     */
+    public static TokenScheduler.Ticket acquire(EnvVars env, TaskListener listener) throws InterruptedException {
+        Set<String> stepPools = new LinkedHashSet<String>();
+        MatlabLicenseLimiter limiter = get();
+        if (limiter != null && !limiter.getPools().isEmpty()) {
+            String installation = getInstallationName(env);
+            if (installation != null) {
+                stepPools.add(installation);
+            }
+            String requested = env.get(POOLS_VARIABLE);
+            if (requested != null) {
+                for (String pool : requested.split(",")) {
+                    if (!pool.trim().isEmpty()) {
+                        stepPools.add(pool.trim());
+                    }
+                }
+            }
+        }
+
+        int priority = 0;
+        try {
+            priority = Integer.parseInt(env.get(PRIORITY_VARIABLE, "0").trim());
+        } catch (NumberFormatException e) {
+            // Keep the default
+        }
+
+        TokenScheduler.Ticket ticket = scheduler.acquire(stepPools, priority);
+        if (ticket.getWaitMillis() >= 1000) {
+            listener.getLogger().println(String.format(
+                    Message.getValue("matlab.license.wait.message"), ticket.getWaitMillis() / 1000));
+        }
+        return ticket;
+    }
+
+    /**
+     * @return the configuration, or null outside of Jenkins
+     */
+    public static MatlabLicenseLimiter get() {
+        if (Jenkins.getInstanceOrNull() == null) {
+            return null;
+        }
+        return GlobalConfiguration.all().get(MatlabLicenseLimiter.class);
+    }
+
+    private static Integer getLimit(String poolName) {
+        MatlabLicenseLimiter limiter = get();
+        if (limiter == null) {
+            return null;
+        }
+        for (MatlabLicensePool pool : limiter.getPools()) {
+            if (poolName.equals(pool.getName()) && pool.getTokens() > 0) {
+                return pool.getTokens();
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Finds the installation a step uses: from the MATLAB axis, or from the
+     * MATLAB root the build wrapper or a tool step put on the PATH.
+     */
+    private static String getInstallationName(EnvVars env) {
+        String axis = env.get(Message.getValue("Axis.matlab.key"));
+        if (axis != null && !axis.isEmpty() && MatlabInstallation.getInstallation(axis) != null) {
+            return axis;
+        }
+
+        String root = env.get("matlabroot");
+        String path = env.get("PATH", "");
+        for (MatlabInstallation inst : MatlabInstallation.getAll()) {
+            String home = inst.getHome();
+            if (home == null) {
+                continue;
+            }
+            if (home.equals(root) || path.contains(home + "/bin") || path.contains(home + "\\bin")) {
+                return inst.getName();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ *
+ * Describable class for a pool of MATLAB license tokens in the global
+ * configuration.
+ */
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+public class MatlabLicensePool extends AbstractDescribableImpl<MatlabLicensePool> {
+
+    private String name;
+    private int tokens;
+
+    @DataBoundConstructor
+    public MatlabLicensePool(String name, int tokens) {
+        this.name = Util.fixEmptyAndTrim(name);
+        this.tokens = tokens;
+    }
+
+    /**
+     * @return the name of a MATLAB installation, or of a pool steps ask for
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return how many MATLAB steps can use the pool at the same time
+     */
+    public int getTokens() {
+        return this.tokens;
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends Descriptor<MatlabLicensePool> {
+        public FormValidation doCheckTokens(@QueryParameter int value) {
+            if (value < 1) {
+                return FormValidation.error(Message.getValue("matlab.license.pool.tokens.error"));
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.model.Action;
+import hudson.model.Api;
+import hudson.model.Run;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.CheckForNull;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Where the time of each MATLAB step of a build went: preparing the agent,
+ * starting MATLAB, running the command, and cleaning up. Available through
+ * the remote API, for example from matlabtiming/api/json.
+ */
+@ExportedBean
+public class StepTimingAction implements Action {
+    private final List<Step> steps = new CopyOnWriteArrayList<Step>();
+
+    /**
+     * Adds the phase times of a step to the build.
+     *
+     * @param build    the build the step ran in
+     * @param stepName the name of the step
+     * @param actionID the ID of the step in the build, or an empty string
+     * @param phases   the milliseconds spent in each phase
+     */
+    public static void record(Run<?, ?> build, String stepName, String actionID, Map<String, Long> phases) {
+        if (build == null || phases == null || phases.isEmpty()) {
+            return;
+        }
+
+        // Parallel steps of the same build must share one action
+        synchronized (BuildLocks.get(build)) {
+            StepTimingAction action = build.getAction(StepTimingAction.class);
+            if (action == null) {
+                action = new StepTimingAction();
+                build.addAction(action);
+            }
+            action.steps.add(new Step(stepName, actionID, phases));
+        }
+    }
+
+    @CheckForNull
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @CheckForNull
+    @Override
+    public String getDisplayName() {
+        return "MATLAB Step Timing";
+    }
+
+    @CheckForNull
+    @Override
+    public String getUrlName() {
+        return "matlabtiming";
+    }
+
+    public Api getApi() {
+        return new Api(this);
+    }
+
+    @Exported(inline = true)
+    public List<Step> getSteps() {
+        return this.steps;
+    }
+
+    /**
+     * Phase times of a single step.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class Step {
+        private final String name;
+        private final String actionID;
+        private final List<Phase> phases = new ArrayList<Phase>();
+
+        Step(String name, String actionID, Map<String, Long> phases) {
+            this.name = name;
+            this.actionID = actionID;
+            for (Map.Entry<String, Long> e : phases.entrySet()) {
+                this.phases.add(new Phase(e.getKey(), e.getValue()));
+            }
+        }
+
+        @Exported
+        public String getName() {
+            return this.name;
+        }
+
+        @Exported
+        public String getActionID() {
+            return this.actionID;
+        }
+
+        @Exported(inline = true)
+        public List<Phase> getPhases() {
+            return this.phases;
+        }
+
+        @Exported
+        public long getTotalMillis() {
+            long total = 0;
+            for (Phase phase : phases) {
+                total += phase.getMillis();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Milliseconds spent in one phase of a step.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class Phase {
+        private final String name;
+        private final long millis;
+
+        Phase(String name, long millis) {
+            this.name = name;
+            this.millis = millis;
+        }
+
+        @Exported
+        public String getName() {
+            return this.name;
+        }
+
+        @Exported
+        public long getMillis() {
+            return this.millis;
+        }
+    }
+}
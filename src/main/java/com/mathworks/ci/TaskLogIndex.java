@@ -0,0 +1,216 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import hudson.model.AbstractBuild;
+import hudson.model.Run;
+
+/**
+ * Byte offsets in the build log where the output of each MATLAB build task
+ * starts, so the output of a single task can be shown without reading the
+ * log from the beginning.
+ *
+ * Each line holds an offset and a task name, separated by a tab. A line with
+ * an empty task name marks where the output of the last task ends.
+ *
+ * Offsets are only recorded for freestyle builds with a plain log file.
+ * Pipeline logs interleave the output of parallel branches, and compressed
+ * logs have no offsets to skip to. Log filters that rewrite bytes after the
+ * offsets were recorded, such as secret masking, shift them, so they are
+ * checked against the log before they are used, see findRange.
+ */
+public class TaskLogIndex {
+    private static final String MARKER = "[MATLAB-Build-";
+
+    // Bytes of a log line read to look for a marker
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private final File file;
+
+    public TaskLogIndex(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Whether the offsets of the log of the build can be recorded and used.
+     *
+     * @param build the build
+     */
+    public static boolean canIndex(Run<?, ?> build) {
+        if (!(build instanceof AbstractBuild)) {
+            return false;
+        }
+        File log = build.getLogFile();
+        return log.isFile() && !log.getName().endsWith(".gz");
+    }
+
+    /**
+     * Records that the output of a task starts at the offset.
+     *
+     * @param taskName the task name, or an empty string to mark the end
+     * @param offset   the byte offset in the build log
+     */
+    public void append(String taskName, long offset) throws IOException {
+        String line = offset + "\t" + taskName.replaceAll("[\\t\\r\\n]", " ") + "\n";
+        Files.write(file.toPath(), line.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Returns where the output of a task starts and ends in the build log. The
+     * end is Long.MAX_VALUE when the output runs to the end of the log.
+     *
+     * @param taskName the task name
+     * @return the start and end offsets, or null if the task is not in the index
+     */
+    public long[] getRange(String taskName) throws IOException {
+        String[] next = new String[1];
+        return getRange(taskName, next);
+    }
+
+    /*
+     * Also returns the name of the entry at the end of the range in next, or
+     * null if the range runs to the end of the log.
+     */
+    private long[] getRange(String taskName, String[] next) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+
+        long start = -1;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab < 0) {
+                    continue;
+                }
+                long offset;
+                try {
+                    offset = Long.parseLong(line.substring(0, tab));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (start >= 0) {
+                    next[0] = line.substring(tab + 1);
+                    return new long[] { start, offset };
+                }
+                if (line.substring(tab + 1).equals(taskName)) {
+                    start = offset;
+                }
+            }
+        }
+        return start < 0 ? null : new long[] { start, Long.MAX_VALUE };
+    }
+
+    /**
+     * Returns where the output of a task starts and ends in the build log,
+     * like getRange, checked against the log. The offsets are used if the
+     * marker of the task is in the line at the start, and the end is the
+     * start of the next marker line or, after the last task, of a line.
+     * Otherwise the log was rewritten after they were recorded, and it is
+     * scanned for the markers: the output of the task then runs to the next
+     * marker line, or to the end of the log.
+     *
+     * @param log      the build log, not compressed
+     * @param charset  the charset of the log
+     * @param taskName the task name
+     * @param actionID the ID of the action that ran the task
+     * @return the start and end offsets, or null if the task is not in the
+     *         index or the log
+     */
+    public long[] findRange(File log, Charset charset, String taskName, String actionID) throws IOException {
+        String[] next = new String[1];
+        long[] range = getRange(taskName, next);
+        if (range == null) {
+            return null;
+        }
+
+        try (RandomAccessFile in = new RandomAccessFile(log, "r")) {
+            if (isLineStart(in, range[0]) && readLine(in, range[0], charset).contains(getMarker(taskName, actionID))
+                    && (range[1] == Long.MAX_VALUE || isLineStart(in, range[1]) && (next[0].isEmpty()
+                            || readLine(in, range[1], charset).contains(getMarker(next[0], actionID))))) {
+                return range;
+            }
+        }
+        return scan(log, charset, getMarker(taskName, actionID));
+    }
+
+    private static String getMarker(String taskName, String actionID) {
+        return MARKER + taskName + "-" + actionID + "]";
+    }
+
+    private static boolean isLineStart(RandomAccessFile in, long offset) throws IOException {
+        if (offset < 0 || offset > in.length()) {
+            return false;
+        }
+        if (offset == 0) {
+            return true;
+        }
+        in.seek(offset - 1);
+        return in.read() == '\n';
+    }
+
+    private static String readLine(RandomAccessFile in, long offset, Charset charset) throws IOException {
+        in.seek(offset);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while (line.size() < MAX_LINE_BYTES && (b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return new String(line.toByteArray(), charset);
+    }
+
+    /*
+     * Finds the line with the marker of the task, and the next line with any
+     * marker.
+     */
+    private static long[] scan(File log, Charset charset, String marker) throws IOException {
+        long start = -1;
+        long offset = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(log.toPath()))) {
+            long lineStart = 0;
+            int b;
+            do {
+                b = in.read();
+                if (b != -1 && b != '\n') {
+                    // Markers are near the start of a line, so long lines are cut
+                    if (line.size() < MAX_LINE_BYTES) {
+                        line.write(b);
+                    }
+                    offset++;
+                    continue;
+                }
+
+                String text = new String(line.toByteArray(), charset);
+                if (start < 0 && text.contains(marker)) {
+                    start = lineStart;
+                } else if (start >= 0 && BuildTargetNote.getTaskName(text) != null) {
+                    return new long[] { start, lineStart };
+                }
+                line.reset();
+                offset++;
+                lineStart = offset;
+            } while (b != -1);
+        }
+        return start < 0 ? null : new long[] { start, Long.MAX_VALUE };
+    }
+}
@@ -0,0 +1,246 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.model.Run;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.mathworks.ci.parameters.TestActionParameters;
+import com.mathworks.ci.utilities.AddCachedTestCases;
+import com.mathworks.ci.utilities.FindMatlabRoot;
+import com.mathworks.ci.utilities.HashWorkspaceFiles;
+import com.mathworks.ci.utilities.MatlabCommandRunner;
+
+/**
+ * Skips the test files whose results are cached in the TestResultCache of
+ * the job, caches the results of the test files that ran and passed, and adds
+ * the cached results to the JUnit results of the step.
+ */
+public class TestCacheSelector {
+    // Size of the test result cache of a job, beyond which old results are
+    // deleted
+    public static final long RESULT_CACHE_MEGABYTES = Long
+            .getLong(TestCacheSelector.class.getName() + ".resultCacheMegabytes", 512);
+
+    private final MatlabCommandRunner runner;
+    private final TestActionParameters params;
+
+    // Cache keys of the test files skipped for their cached results
+    private final Map<String, String> cachedTests = new TreeMap<String, String>();
+
+    // Cache keys of the test files that run, to cache their results
+    private final Map<String, String> testKeys = new TreeMap<String, String>();
+
+    public TestCacheSelector(MatlabCommandRunner runner, TestActionParameters params) {
+        this.runner = runner;
+        this.params = params;
+    }
+
+    /**
+     * @return the number of test files skipped for their cached results
+     */
+    public int getSkippedCount() {
+        return this.cachedTests.size();
+    }
+
+    /**
+     * Tells MATLAB to skip the test files whose results are cached. All shards
+     * of a build use the keys computed when the first shard started, so they
+     * skip the same tests.
+     *
+     * @param build the build, or null
+     */
+    public void select(Run<?, ?> build) throws IOException, InterruptedException {
+        if (build == null) {
+            return;
+        }
+
+        File snapshot = new File(build.getRootDir(), MatlabBuilderConstants.CACHED_TESTS_FILE);
+        String keys;
+        synchronized (BuildLocks.get(build)) {
+            if (!snapshot.exists()) {
+                Files.write(snapshot.toPath(), getCacheKeys(build).getBytes(StandardCharsets.UTF_8));
+            }
+            keys = new String(Files.readAllBytes(snapshot.toPath()), StandardCharsets.UTF_8);
+        }
+
+        // Each line holds whether the results are cached, the key and the test file
+        StringBuilder skipped = new StringBuilder();
+        for (String line : keys.split("\n")) {
+            String[] fields = line.split("\t", 3);
+            if (fields.length < 3) {
+                continue;
+            }
+            if (fields[0].equals("1")) {
+                this.cachedTests.put(fields[2], fields[1]);
+                skipped.append(fields[2]).append('\n');
+            } else {
+                this.testKeys.put(fields[2], fields[1]);
+            }
+        }
+
+        if (!this.cachedTests.isEmpty()) {
+            this.runner.addFileToTempFolder(MatlabBuilderConstants.CACHED_TESTS_FILE, skipped.toString());
+            PrintStream logger = this.params.getTaskListener().getLogger();
+            logger.println(String.format(Message.getValue("matlab.tests.cache.skipped"), this.cachedTests.size()));
+            for (String test : this.cachedTests.keySet()) {
+                logger.println(String.format(Message.getValue("matlab.tests.cache.skipped.test"), test));
+            }
+            logger.println(Message.getValue("matlab.tests.cache.junit.only"));
+        }
+    }
+
+    /*
+     * Computes the cache key of each test file with known dependencies, from
+     * the content of the test file and its dependencies, the MATLAB release
+     * and the options that change which tests run or how.
+     */
+    private String getCacheKeys(Run<?, ?> build) throws IOException, InterruptedException {
+        String release = getMatlabRelease();
+        if (release == null) {
+            this.params.getTaskListener().getLogger().println(Message.getValue("matlab.tests.cache.no.release"));
+            return "";
+        }
+
+        TestImpactIndex index = TestImpactIndex.snapshot(
+                new File(build.getParent().getRootDir(), MatlabBuilderConstants.TEST_IMPACT_FILE),
+                new File(build.getRootDir(), MatlabBuilderConstants.TEST_IMPACT_FILE));
+        Set<String> files = new TreeSet<String>();
+        for (Set<String> dependencies : index.getDependencies().values()) {
+            files.addAll(dependencies);
+        }
+        Map<String, String> digests = this.params.getWorkspace().act(new HashWorkspaceFiles(files));
+
+        TestResultCache cache = getResultCache(build.getParent().getRootDir());
+        StringBuilder keys = new StringBuilder();
+        for (Map.Entry<String, Set<String>> e : index.getDependencies().entrySet()) {
+            // A test file whose dependencies are unknown or gone must run
+            if (e.getValue().isEmpty() || !digests.keySet().containsAll(e.getValue())) {
+                continue;
+            }
+
+            List<String> parts = new ArrayList<String>();
+            parts.add(e.getKey());
+            parts.add(release);
+            parts.add(String.valueOf(this.params.getStartupOptions()));
+            parts.add(String.valueOf(this.params.getStrict()));
+            parts.add(String.valueOf(this.params.getSelectByTag()));
+            parts.add(String.valueOf(this.params.getSourceFolder()));
+            parts.add(String.valueOf(this.params.getUseParallel()));
+            parts.add(String.valueOf(this.params.getOutputDetail()));
+            for (String dependency : e.getValue()) {
+                parts.add(dependency + " " + digests.get(dependency));
+            }
+
+            String key = TestResultCache.getKey(parts);
+            keys.append(cache.contains(key) ? "1" : "0").append('\t').append(key)
+                    .append('\t').append(e.getKey()).append('\n');
+        }
+        return keys.toString();
+    }
+
+    /*
+     * The release of the MATLAB on the PATH of the step, or null if it is not
+     * found.
+     */
+    private String getMatlabRelease() throws IOException, InterruptedException {
+        EnvVars env = this.runner.getEnvVars();
+        FilePath workspace = this.params.getWorkspace();
+        String root = workspace.act(new FindMatlabRoot(Arrays.asList(env.get("PATH+matlabroot"), env.get("PATH"))));
+        if (root == null) {
+            return null;
+        }
+
+        try {
+            return new MatlabReleaseInfo(new FilePath(workspace.getChannel(), root)).getFullMatlabVersionNumber();
+        } catch (MatlabVersionNotFoundException e) {
+            return null;
+        }
+    }
+
+    /*
+     * The cache of a job is kept in the folder of the job, so results cached
+     * by one job, or by a fork or pull request job, never make another job
+     * skip its tests.
+     */
+    static TestResultCache getResultCache(File jobRoot) {
+        return new TestResultCache(
+                new File(jobRoot, MatlabBuilderConstants.TEST_RESULT_CACHE),
+                RESULT_CACHE_MEGABYTES * 1024 * 1024);
+    }
+
+    /**
+     * Caches the results of the test files that ran and passed, and adds the
+     * cached results of skipped test files to the JUnit results. Problems are
+     * reported but do not fail the step.
+     *
+     * @param build        the build, or null
+     * @param junitResults the JUnit results of the step, or null
+     * @param passed       whether the MATLAB command finished without failures
+     */
+    public void update(Run<?, ?> build, String junitResults, boolean passed) {
+        if (build == null || junitResults == null || (this.cachedTests.isEmpty() && this.testKeys.isEmpty())) {
+            return;
+        }
+
+        PrintStream logger = this.params.getTaskListener().getLogger();
+        try {
+            FilePath results = new FilePath(this.params.getWorkspace(), junitResults);
+            if (!results.exists()) {
+                return;
+            }
+            TestResultCache cache = getResultCache(build.getParent().getRootDir());
+
+            // Failing fast leaves the tests after the failure out of the results
+            if (passed || !this.params.getFailFast()) {
+                Map<String, String> passedTestCases;
+                try (InputStream in = results.read()) {
+                    passedTestCases = TestResultCache.getPassedTestCases(in);
+                }
+                for (Map.Entry<String, String> e : this.testKeys.entrySet()) {
+                    String testCases = passedTestCases.get(TestResultCache.getTestParentName(e.getKey()));
+                    if (testCases != null) {
+                        cache.put(e.getValue(), testCases);
+                    }
+                }
+            }
+
+            // Only the JUnit results of the first shard get the cached results
+            if (this.cachedTests.isEmpty() || this.params.getTestResultsJUnit() == null
+                    || this.params.getShardIndex() > 1) {
+                return;
+            }
+            List<String> cached = new ArrayList<String>();
+            for (Map.Entry<String, String> e : this.cachedTests.entrySet()) {
+                String testCases = cache.get(e.getValue());
+                if (testCases == null) {
+                    logger.println(String.format(Message.getValue("matlab.tests.cache.missing"), e.getKey()));
+                    continue;
+                }
+                cached.add(testCases);
+            }
+
+            this.params.getWorkspace().act(new AddCachedTestCases(junitResults, cached));
+        } catch (IOException e) {
+            logger.println(String.format(Message.getValue("matlab.tests.cache.error"), e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * How long each test of a job took the last time it ran, and whether it
+ * failed, taken from the JUnit results of runMATLABTests. Used to split tests
+ * into shards that take about the same time, and to run tests that failed
+ * before first.
+ *
+ * Each line holds the seconds a test took, passed or failed, and the test
+ * name, separated by tabs. Test names are the names MATLAB gives the tests in
+ * a suite, such as MyTestClass/testSomething.
+ */
+public class TestDurationIndex {
+    private static final Object lock = new Object();
+
+    private static final String PASSED = "passed";
+    private static final String FAILED = "failed";
+
+    private final File file;
+
+    public TestDurationIndex(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * @return the seconds each test took, by test name
+     */
+    public Map<String, Double> read() throws IOException {
+        synchronized (lock) {
+            Map<String, Double> durations = new TreeMap<String, Double>();
+            readFile(this.file, durations, new TreeSet<String>());
+            return durations;
+        }
+    }
+
+    /**
+     * @return the names of the tests that failed the last time they ran
+     */
+    public Set<String> readFailed() throws IOException {
+        synchronized (lock) {
+            Set<String> failed = new TreeSet<String>();
+            readFile(this.file, new TreeMap<String, Double>(), failed);
+            return failed;
+        }
+    }
+
+    /**
+     * Replaces the durations and outcomes of the tests with the given ones.
+     * Other tests keep theirs, so shards of a build can record their tests one
+     * after another.
+     *
+     * @param durations the seconds each test took, by test name
+     * @param failed    the names of the tests that failed
+     */
+    public void record(Map<String, Double> durations, Set<String> failed) throws IOException {
+        if (durations.isEmpty()) {
+            return;
+        }
+
+        synchronized (lock) {
+            Map<String, Double> allDurations = new TreeMap<String, Double>();
+            Set<String> allFailed = new TreeSet<String>();
+            readFile(this.file, allDurations, allFailed);
+
+            allDurations.putAll(durations);
+            allFailed.removeAll(durations.keySet());
+            allFailed.addAll(failed);
+            writeFile(this.file, allDurations, allFailed);
+        }
+    }
+
+    /**
+     * Returns the durations of the index as they were when this was first
+     * called for a build. Shards of a build can start at different times while
+     * other shards record their results, and must all split the tests using the
+     * same durations.
+     *
+     * @param buildFile where the durations the build uses are kept
+     * @return the seconds each test took, by test name
+     */
+    public Map<String, Double> snapshot(File buildFile) throws IOException {
+        synchronized (lock) {
+            Map<String, Double> durations = new TreeMap<String, Double>();
+            Set<String> failed = new TreeSet<String>();
+            if (!buildFile.exists()) {
+                readFile(this.file, durations, failed);
+                writeFile(buildFile, durations, failed);
+            } else {
+                readFile(buildFile, durations, failed);
+            }
+            return durations;
+        }
+    }
+
+    /**
+     * @return the durations as lines of seconds and test name, separated by a
+     *         tab, for MATLAB to read
+     */
+    public static String format(Map<String, Double> durations) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Double> e : durations.entrySet()) {
+            text.append(e.getValue()).append('\t').append(clean(e.getKey())).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads the durations of the test cases in JUnit results. The name of a
+     * test is its class name and test case name, joined by a slash.
+     *
+     * @param in     the JUnit XML results
+     * @param failed collects the names of tests with a failure or error
+     * @return the seconds each test took, by test name
+     */
+    public static Map<String, Double> parseJUnit(InputStream in, Set<String> failed) throws IOException {
+        Map<String, Double> durations = new TreeMap<String, Double>();
+        TestResultsSummary.read(in, "", 0, 0, testCase -> testCase.addDuration(durations, failed));
+        return durations;
+    }
+
+    private static void readFile(File file, Map<String, Double> durations, Set<String> failed) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 3);
+                if (fields.length < 3 || fields[2].isEmpty()) {
+                    continue;
+                }
+                try {
+                    durations.put(fields[2], Double.parseDouble(fields[0]));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (fields[1].equals(FAILED)) {
+                    failed.add(fields[2]);
+                }
+            }
+        }
+    }
+
+    private static void writeFile(File file, Map<String, Double> durations, Set<String> failed) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Double> e : durations.entrySet()) {
+            text.append(e.getValue())
+                    .append('\t')
+                    .append(failed.contains(e.getKey()) ? FAILED : PASSED)
+                    .append('\t')
+                    .append(clean(e.getKey()))
+                    .append('\n');
+        }
+
+        // Write a copy first, so readers never see a partly written file
+        File temp = new File(file.getPath() + ".tmp");
+        Files.write(temp.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String clean(String testName) {
+        return testName.replaceAll("[\\t\\r\\n]", " ");
+    }
+}
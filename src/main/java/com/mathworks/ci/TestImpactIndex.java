@@ -0,0 +1,296 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The files each test file of a job depends on, found by MATLAB when the
+ * tests ran. Used to run only the tests affected by the changes of a build.
+ *
+ * Each line holds a test file and a file it depends on, separated by a tab.
+ * Paths are relative to the workspace and use forward slashes. Test files
+ * have no extension, so tests of any kind of file match. The line of a test
+ * file without a dependency may hold, after a second tab, the digest of the
+ * dependencies when they were found, so they are only found again once one
+ * of them changed. A line starting with #full holds the start time of the
+ * last build that ran all tests.
+ */
+public class TestImpactIndex {
+    private static final Object lock = new Object();
+
+    private static final String FULL_RUN = "#full";
+
+    private final Map<String, Set<String>> dependencies;
+    private final Map<String, String> digests;
+    private final long lastFullRun;
+
+    private TestImpactIndex(Map<String, Set<String>> dependencies, Map<String, String> digests,
+            long lastFullRun) {
+        this.dependencies = dependencies;
+        this.digests = digests;
+        this.lastFullRun = lastFullRun;
+    }
+
+    /**
+     * @return the files each test file depends on, by test file
+     */
+    public Map<String, Set<String>> getDependencies() {
+        return this.dependencies;
+    }
+
+    /**
+     * @return the digest of the dependencies of each test file when they were
+     *         found, by test file
+     */
+    public Map<String, String> getDigests() {
+        return this.digests;
+    }
+
+    /**
+     * @return the start time of the last build that ran all tests, or 0
+     */
+    public long getLastFullRun() {
+        return this.lastFullRun;
+    }
+
+    public boolean isEmpty() {
+        return this.dependencies.isEmpty();
+    }
+
+    /**
+     * Finds the test files affected by changed files: test files that changed
+     * themselves, and test files that depend on a changed file. MATLAB does
+     * not find every file a test reads, such as data files it loads, so any
+     * other changed file can affect any test.
+     *
+     * @param changedFiles the changed files, relative to the workspace
+     * @return the affected test files, or null if a changed file is unknown
+     *         to the index and all tests must run
+     */
+    public Set<String> getImpactedTests(Collection<String> changedFiles) {
+        Map<String, Set<String>> dependents = new TreeMap<String, Set<String>>();
+        for (Map.Entry<String, Set<String>> e : this.dependencies.entrySet()) {
+            for (String dependency : e.getValue()) {
+                dependents.computeIfAbsent(dependency, k -> new TreeSet<String>()).add(e.getKey());
+            }
+        }
+
+        Set<String> impacted = new TreeSet<String>();
+        for (String changed : changedFiles) {
+            String path = changed.replace('\\', '/');
+            String test = stripExtension(path);
+            boolean known = false;
+
+            if (this.dependencies.containsKey(test)) {
+                impacted.add(test);
+                known = true;
+            }
+            if (dependents.containsKey(path)) {
+                impacted.addAll(dependents.get(path));
+                known = true;
+            }
+            if (!known) {
+                return null;
+            }
+        }
+        return impacted;
+    }
+
+    /**
+     * Reads the index of a job.
+     *
+     * @param file the index file
+     */
+    public static TestImpactIndex read(File file) throws IOException {
+        synchronized (lock) {
+            return readFile(file);
+        }
+    }
+
+    /**
+     * Returns the index as it was when this was first called for a build, so
+     * all shards of a build select the same tests.
+     *
+     * @param file      the index file of the job
+     * @param buildFile where the index the build uses is kept
+     */
+    public static TestImpactIndex snapshot(File file, File buildFile) throws IOException {
+        synchronized (lock) {
+            if (!buildFile.exists()) {
+                TestImpactIndex index = readFile(file);
+                writeFile(buildFile, index.dependencies, index.digests, index.lastFullRun);
+                return index;
+            }
+            return readFile(buildFile);
+        }
+    }
+
+    /**
+     * Replaces the dependencies of the test files with the given ones. Other
+     * test files keep their dependencies.
+     *
+     * @param file     the index file of the job
+     * @param recorded the files each test file depends on, and their digests
+     * @param fullRun  the start time of the build if it ran all tests, or 0
+     */
+    public static void record(File file, TestImpactIndex recorded, long fullRun) throws IOException {
+        if (recorded.isEmpty()) {
+            return;
+        }
+
+        synchronized (lock) {
+            TestImpactIndex index = readFile(file);
+            for (Map.Entry<String, Set<String>> e : recorded.dependencies.entrySet()) {
+                index.dependencies.put(e.getKey(), e.getValue());
+                index.digests.remove(e.getKey());
+            }
+            index.digests.putAll(recorded.digests);
+            writeFile(file, index.dependencies, index.digests, Math.max(index.lastFullRun, fullRun));
+        }
+    }
+
+    /**
+     * Reads dependencies in the format of the index file.
+     *
+     * @param text the lines of test files and their dependencies
+     */
+    public static TestImpactIndex parse(String text) throws IOException {
+        return parse(new BufferedReader(new StringReader(text)));
+    }
+
+    /**
+     * Sets the digest of the dependencies of each test file, from the digests
+     * of the files. Test files with a dependency that is gone get no digest.
+     *
+     * @param fileDigests the digest of each file, by path
+     */
+    public void setDigests(Map<String, String> fileDigests) {
+        for (Map.Entry<String, Set<String>> e : this.dependencies.entrySet()) {
+            String digest = getDigest(e.getValue(), fileDigests);
+            if (digest == null) {
+                this.digests.remove(e.getKey());
+            } else {
+                this.digests.put(e.getKey(), digest);
+            }
+        }
+    }
+
+    /**
+     * @param fileDigests the digest of each file, by path
+     * @return the test files whose dependencies have not changed since they
+     *         were found
+     */
+    public Set<String> getUnchangedTests(Map<String, String> fileDigests) {
+        Set<String> unchanged = new TreeSet<String>();
+        for (Map.Entry<String, String> e : this.digests.entrySet()) {
+            Set<String> testDependencies = this.dependencies.get(e.getKey());
+            if (testDependencies != null && e.getValue().equals(getDigest(testDependencies, fileDigests))) {
+                unchanged.add(e.getKey());
+            }
+        }
+        return unchanged;
+    }
+
+    private static String getDigest(Set<String> dependencies, Map<String, String> fileDigests) {
+        // A test file always depends on itself, so no dependencies means unknown
+        if (dependencies.isEmpty() || !fileDigests.keySet().containsAll(dependencies)) {
+            return null;
+        }
+
+        List<String> parts = new ArrayList<String>();
+        for (String dependency : dependencies) {
+            parts.add(dependency + " " + fileDigests.get(dependency));
+        }
+        return TestResultCache.getKey(parts);
+    }
+
+    private static TestImpactIndex parse(BufferedReader reader) throws IOException {
+        Map<String, Set<String>> dependencies = new TreeMap<String, Set<String>>();
+        Map<String, String> digests = new TreeMap<String, String>();
+        long lastFullRun = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            String test = line.substring(0, tab);
+            String dependency = line.substring(tab + 1);
+            if (dependency.startsWith("\t")) {
+                // The line of a test file without a dependency holds its digest
+                if (dependency.length() > 1) {
+                    digests.put(test, dependency.substring(1));
+                }
+                dependency = "";
+            }
+
+            if (test.equals(FULL_RUN)) {
+                try {
+                    lastFullRun = Long.parseLong(dependency);
+                } catch (NumberFormatException e) {
+                    // Treated as never
+                }
+                continue;
+            }
+
+            Set<String> testDependencies = dependencies.computeIfAbsent(test, k -> new TreeSet<String>());
+            if (!dependency.isEmpty()) {
+                testDependencies.add(dependency);
+            }
+        }
+        return new TestImpactIndex(dependencies, digests, lastFullRun);
+    }
+
+    private static TestImpactIndex readFile(File file) throws IOException {
+        if (!file.exists()) {
+            return new TestImpactIndex(new TreeMap<String, Set<String>>(), new TreeMap<String, String>(), 0);
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    private static void writeFile(File file, Map<String, Set<String>> dependencies, Map<String, String> digests,
+            long lastFullRun) throws IOException {
+        StringBuilder text = new StringBuilder();
+        text.append(FULL_RUN).append('\t').append(lastFullRun).append('\n');
+        for (Map.Entry<String, Set<String>> e : dependencies.entrySet()) {
+            // A test without dependencies still needs a line, so it is known
+            text.append(e.getKey()).append('\t');
+            if (digests.containsKey(e.getKey())) {
+                text.append('\t').append(digests.get(e.getKey()));
+            }
+            text.append('\n');
+            for (String dependency : e.getValue()) {
+                text.append(e.getKey()).append('\t').append(dependency).append('\n');
+            }
+        }
+
+        // Write a copy first, so readers never see a partly written file
+        File temp = new File(file.getPath() + ".tmp");
+        Files.write(temp.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String stripExtension(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot > path.lastIndexOf('/') ? path.substring(0, dot) : path;
+    }
+}
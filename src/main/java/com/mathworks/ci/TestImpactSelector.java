@@ -0,0 +1,223 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.scm.ChangeLogSet;
+import hudson.triggers.TimerTrigger;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import jenkins.scm.RunWithSCM;
+
+import com.mathworks.ci.parameters.TestActionParameters;
+import com.mathworks.ci.utilities.HashWorkspaceFiles;
+import com.mathworks.ci.utilities.MatlabCommandRunner;
+import com.mathworks.ci.utilities.ResolveChangedFiles;
+
+/**
+ * Selects the tests affected by the changes of a build, using the
+ * dependencies MATLAB found for each test file in earlier runs, see
+ * TestImpactIndex. All tests run when the index is missing or stale, and when
+ * a change cannot be traced to the tests it affects. MATLAB only looks for the
+ * dependencies of test files whose dependencies changed since they were found.
+ */
+public class TestImpactSelector {
+    // Hours after which all tests run again when selecting tests by changes
+    public static final long FULL_RUN_HOURS = Long
+            .getLong(TestImpactSelector.class.getName() + ".fullRunHours", 24);
+
+    private static final String SELECT_ALL = "ciplugins.jenkins.selectImpactedTests(suite, true)";
+
+    private final MatlabCommandRunner runner;
+    private final TestActionParameters params;
+
+    // Whether MATLAB records the dependencies of the tests it runs
+    private boolean selected;
+
+    // Whether all tests run
+    private boolean fullRun;
+
+    // Digests of the files in the workspace, by path
+    private final Map<String, String> fileDigests = new HashMap<String, String>();
+
+    public TestImpactSelector(MatlabCommandRunner runner, TestActionParameters params) {
+        this.runner = runner;
+        this.params = params;
+    }
+
+    /**
+     * Selects all tests, and records their dependencies.
+     *
+     * @param build the build, or null
+     * @return MATLAB expression that selects the tests
+     */
+    public String selectAll(Run<?, ?> build) throws IOException, InterruptedException {
+        if (build != null) {
+            addKnownDependencies(getIndex(build));
+        }
+        return selectAll();
+    }
+
+    private String selectAll() throws IOException {
+        this.runner.addResourceToTempFolder(MatlabBuilderConstants.TEST_IMPACT_SELECTOR,
+                MatlabBuilderConstants.TEST_IMPACT_SELECTOR);
+        this.selected = true;
+        this.fullRun = true;
+        return SELECT_ALL;
+    }
+
+    private static TestImpactIndex getIndex(Run<?, ?> build) throws IOException {
+        return TestImpactIndex.snapshot(
+                new File(build.getParent().getRootDir(), MatlabBuilderConstants.TEST_IMPACT_FILE),
+                new File(build.getRootDir(), MatlabBuilderConstants.TEST_IMPACT_FILE));
+    }
+
+    /*
+     * Tells MATLAB the dependencies of the test files that still have the
+     * same dependencies as when MATLAB found them, so it does not look for
+     * them again.
+     */
+    private void addKnownDependencies(TestImpactIndex index) throws IOException, InterruptedException {
+        Set<String> files = new TreeSet<String>();
+        for (Set<String> dependencies : index.getDependencies().values()) {
+            files.addAll(dependencies);
+        }
+        this.fileDigests.putAll(this.params.getWorkspace().act(new HashWorkspaceFiles(files)));
+
+        StringBuilder known = new StringBuilder();
+        for (String test : index.getUnchangedTests(this.fileDigests)) {
+            known.append(test).append('\t').append('\n');
+            for (String dependency : index.getDependencies().get(test)) {
+                known.append(test).append('\t').append(dependency).append('\n');
+            }
+        }
+        this.runner.addFileToTempFolder(MatlabBuilderConstants.KNOWN_DEPENDENCIES_FILE, known.toString());
+    }
+
+    /**
+     * Decides whether to run all tests or only those affected by the changes
+     * of the build. All shards of a build use the index the job had when the
+     * first shard started, so they select the same tests.
+     *
+     * @param build the build, or null
+     * @return MATLAB expression that selects the tests
+     */
+    public String select(Run<?, ?> build) throws IOException, InterruptedException {
+        String all = selectAll();
+        if (build == null) {
+            return all;
+        }
+
+        TestImpactIndex index = getIndex(build);
+        addKnownDependencies(index);
+
+        // Paths in the index are relative to the workspace
+        List<String> changedFiles = getChangedFiles(build);
+        if (!changedFiles.isEmpty()) {
+            changedFiles = this.params.getWorkspace().act(new ResolveChangedFiles(changedFiles));
+        }
+
+        String reason = null;
+        Set<String> impacted = null;
+        if (index.isEmpty()) {
+            reason = Message.getValue("matlab.tests.impact.no.index");
+        } else if (build.getStartTimeInMillis() - index.getLastFullRun() > TimeUnit.HOURS.toMillis(FULL_RUN_HOURS)) {
+            reason = String.format(Message.getValue("matlab.tests.impact.stale"), FULL_RUN_HOURS);
+        } else if (build.getCause(TimerTrigger.TimerTriggerCause.class) != null) {
+            reason = Message.getValue("matlab.tests.impact.timer");
+        } else if (changedFiles.isEmpty()) {
+            reason = Message.getValue("matlab.tests.impact.no.changes");
+        } else {
+            impacted = index.getImpactedTests(changedFiles);
+            if (impacted == null) {
+                reason = Message.getValue("matlab.tests.impact.unknown.change");
+            }
+        }
+
+        PrintStream logger = this.params.getTaskListener().getLogger();
+        if (reason != null) {
+            logger.println(reason);
+            return all;
+        }
+        logger.println(String.format(Message.getValue("matlab.tests.impact.selected"), changedFiles.size()));
+
+        // Test files the index does not know are new, MATLAB runs them too
+        StringBuilder tests = new StringBuilder();
+        for (String test : index.getDependencies().keySet()) {
+            tests.append(impacted.contains(test) ? "1" : "0").append('\t').append(test).append('\n');
+        }
+        this.runner.addFileToTempFolder(MatlabBuilderConstants.IMPACTED_TESTS_FILE, tests.toString());
+        this.fullRun = false;
+        return "ciplugins.jenkins.selectImpactedTests(suite, false)";
+    }
+
+    /**
+     * Adds the dependencies MATLAB found for the tests that ran to the index
+     * of the job. Problems are reported but do not fail the step.
+     *
+     * @param build  the build, or null
+     * @param allRan whether no other selection left tests out
+     */
+    public void recordDependencies(Run<?, ?> build, boolean allRan) {
+        if (build == null || !this.selected) {
+            return;
+        }
+
+        try {
+            FilePath dependencies = new FilePath(this.runner.getTempFolder(),
+                    MatlabBuilderConstants.TEST_DEPENDENCIES_FILE);
+            if (!dependencies.exists()) {
+                return;
+            }
+
+            TestImpactIndex recorded = TestImpactIndex.parse(dependencies.readToString());
+
+            // Files MATLAB found that were not known yet
+            Set<String> files = new TreeSet<String>();
+            for (Set<String> testDependencies : recorded.getDependencies().values()) {
+                files.addAll(testDependencies);
+            }
+            files.removeAll(this.fileDigests.keySet());
+            this.fileDigests.putAll(this.params.getWorkspace().act(new HashWorkspaceFiles(files)));
+            recorded.setDigests(this.fileDigests);
+
+            TestImpactIndex.record(
+                    new File(build.getParent().getRootDir(), MatlabBuilderConstants.TEST_IMPACT_FILE),
+                    recorded, this.fullRun && allRan ? build.getStartTimeInMillis() : 0);
+        } catch (IOException e) {
+            this.params.getTaskListener().getLogger().println(
+                    String.format(Message.getValue("matlab.tests.impact.error"), e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Files changed by the commits of the build, relative to the root of the
+     * repository. Deleted files count as changed.
+     */
+    public static List<String> getChangedFiles(Run<?, ?> build) {
+        List<String> changedFiles = new ArrayList<String>();
+        if (!(build instanceof RunWithSCM)) {
+            return changedFiles;
+        }
+
+        for (ChangeLogSet<? extends ChangeLogSet.Entry> changeSet : ((RunWithSCM<?, ?>) build).getChangeSets()) {
+            for (ChangeLogSet.Entry entry : changeSet) {
+                changedFiles.addAll(entry.getAffectedPaths());
+            }
+        }
+        return changedFiles;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.model.Run;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.mathworks.ci.utilities.MatlabCommandRunner;
+
+/**
+ * Orders tests so those most likely to fail run first: tests that failed the
+ * last time they ran, then tests whose file changed in the build, then the
+ * others, using the outcomes kept in TestDurationIndex.
+ */
+public class TestOrderSelector {
+    private final MatlabCommandRunner runner;
+
+    public TestOrderSelector(MatlabCommandRunner runner) {
+        this.runner = runner;
+    }
+
+    /**
+     * Gives MATLAB the order of the tests, together with the time each test
+     * took.
+     *
+     * @param build     the build, or null
+     * @param selection MATLAB expression that selects the tests to order
+     * @return MATLAB expression that selects the ordered tests
+     */
+    public String select(Run<?, ?> build, String selection) throws IOException {
+        this.runner.addResourceToTempFolder(MatlabBuilderConstants.TEST_ORDER_SELECTOR,
+                MatlabBuilderConstants.TEST_ORDER_SELECTOR);
+
+        if (build != null) {
+            this.runner.addFileToTempFolder(MatlabBuilderConstants.TEST_ORDER_FILE, getOrder(build));
+        }
+        return "ciplugins.jenkins.orderTests(" + selection + ")";
+    }
+
+    private static String getOrder(Run<?, ?> build) throws IOException {
+        TestDurationIndex index = new TestDurationIndex(
+                new File(build.getParent().getRootDir(), MatlabBuilderConstants.TEST_DURATIONS_FILE));
+        Map<String, Double> durations = index.read();
+        Set<String> failed = index.readFailed();
+
+        // Test classes and functions are named after their files
+        Set<String> changedNames = new HashSet<String>();
+        for (String path : TestImpactSelector.getChangedFiles(build)) {
+            String name = path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1);
+            int dot = name.lastIndexOf('.');
+            changedNames.add(dot < 0 ? name : name.substring(0, dot));
+        }
+
+        StringBuilder order = new StringBuilder();
+        for (Map.Entry<String, Double> e : durations.entrySet()) {
+            String test = e.getKey();
+            String parent = test.contains("/") ? test.substring(0, test.indexOf('/')) : test;
+            int group = failed.contains(test) ? 0
+                    : changedNames.contains(parent.substring(parent.lastIndexOf('.') + 1)) ? 1 : 2;
+            order.append(group).append('\t').append(e.getValue()).append('\t').append(test).append('\n');
+        }
+        return order.toString();
+    }
+}
@@ -0,0 +1,416 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * JUnit results of test files that passed, kept by a hash of everything the
+ * results depend on, so unchanged test files do not have to run again.
+ *
+ * Each entry is a file named after its key, holding the testcase elements of
+ * one test file. Entries used least recently are deleted when the cache grows
+ * beyond its size.
+ */
+public class TestResultCache {
+    private static final Object lock = new Object();
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private static final String CACHED_SUITE = "Cached results";
+
+    private static final XMLEventFactory EVENTS = XMLEventFactory.newInstance();
+
+    private final File root;
+    private final long maxBytes;
+
+    /**
+     * @param root     the folder of the cache
+     * @param maxBytes the size of the entries beyond which old ones are deleted
+     */
+    public TestResultCache(File root, long maxBytes) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param parts everything the results of a test file depend on
+     * @return the key of the results
+     */
+    public static String getKey(List<String> parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Whether results are cached for the key. Counts as a use of the entry.
+     */
+    public boolean contains(String key) {
+        File entry = getEntry(key);
+        synchronized (lock) {
+            return entry.isFile() && entry.setLastModified(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return the cached testcase elements, or null if none are cached
+     */
+    public String get(String key) throws IOException {
+        File entry = getEntry(key);
+        synchronized (lock) {
+            if (!entry.isFile()) {
+                return null;
+            }
+            entry.setLastModified(System.currentTimeMillis());
+            return new String(Files.readAllBytes(entry.toPath()), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Caches testcase elements, then deletes the entries used least recently
+     * until the cache fits its size.
+     */
+    public void put(String key, String testCases) throws IOException {
+        File entry = getEntry(key);
+        synchronized (lock) {
+            Files.createDirectories(this.root.toPath());
+
+            // Write a copy first, so readers never see a partly written entry
+            File temp = new File(entry.getPath() + ".tmp");
+            Files.write(temp.toPath(), testCases.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            evict();
+        }
+    }
+
+    private void evict() {
+        File[] entries = this.root.listFiles(f -> f.isFile() && KEY.matcher(f.getName()).matches());
+        if (entries == null) {
+            return;
+        }
+
+        long size = 0;
+        for (File entry : entries) {
+            size += entry.length();
+        }
+        if (size <= this.maxBytes) {
+            return;
+        }
+
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (File entry : entries) {
+            if (size <= this.maxBytes) {
+                break;
+            }
+            long length = entry.length();
+            if (entry.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    private File getEntry(String key) {
+        if (!KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid cache key: " + key);
+        }
+        return new File(this.root, key);
+    }
+
+    /**
+     * Names a test file the way MATLAB names its tests: the file name with
+     * the packages of its folders, such as pkg.MyTest for tests/+pkg/MyTest.
+     *
+     * @param testFile the test file, with forward slashes and no extension
+     */
+    public static String getTestParentName(String testFile) {
+        String[] segments = testFile.split("/");
+        StringBuilder name = new StringBuilder(segments[segments.length - 1]);
+        for (int i = segments.length - 2; i >= 0 && segments[i].startsWith("+"); i--) {
+            name.insert(0, segments[i].substring(1) + ".");
+        }
+        return name.toString();
+    }
+
+    /**
+     * Collects the testcase elements of the classes in JUnit results whose
+     * tests all passed. Classes with a failed, errored or skipped test are
+     * left out, so they run again. The results are read as a stream, and only
+     * the testcase elements of classes that passed so far are held.
+     *
+     * @param in the JUnit XML results
+     * @return the testcase elements of each class that passed, by class name
+     */
+    public static Map<String, String> getPassedTestCases(InputStream in) throws IOException {
+        // Testcase elements of each class, or null once a test of the class did not pass
+        Map<String, StringWriter> classes = new TreeMap<String, StringWriter>();
+        Map<String, XMLEventWriter> writers = new HashMap<String, XMLEventWriter>();
+
+        XMLEventReader reader = null;
+        try {
+            reader = createReader(in);
+
+            // Class of the testcase being read, and the depth inside it
+            String className = null;
+            int depth = 0;
+
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (className == null) {
+                    if (event.isStartElement() && event.asStartElement().getName().getLocalPart().equals("testcase")) {
+                        className = getAttribute(event.asStartElement(), "classname");
+                        if (className.isEmpty()) {
+                            className = null;
+                            continue;
+                        }
+                        if (!classes.containsKey(className)) {
+                            StringWriter text = new StringWriter();
+                            XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(text);
+                            writer.add(EVENTS.createStartElement("", "", "testcases"));
+                            classes.put(className, text);
+                            writers.put(className, writer);
+                        }
+                        depth = 0;
+                    } else {
+                        continue;
+                    }
+                }
+
+                if (event.isStartElement()) {
+                    depth++;
+                    String element = event.asStartElement().getName().getLocalPart();
+                    if (element.equals("failure") || element.equals("error") || element.equals("skipped")) {
+                        classes.put(className, null);
+                        writers.remove(className);
+                    }
+                } else if (event.isEndElement()) {
+                    depth--;
+                }
+
+                XMLEventWriter writer = writers.get(className);
+                if (writer != null) {
+                    writer.add(event);
+                }
+                if (depth == 0) {
+                    className = null;
+                }
+            }
+
+            Map<String, String> results = new TreeMap<String, String>();
+            for (Map.Entry<String, XMLEventWriter> e : writers.entrySet()) {
+                e.getValue().add(EVENTS.createEndElement("", "", "testcases"));
+                e.getValue().close();
+                results.put(e.getKey(), classes.get(e.getKey()).toString());
+            }
+            return results;
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    /**
+     * Adds cached testcase elements to JUnit results, in a test suite of
+     * their own. The results are copied as a stream, so they are never held
+     * in memory.
+     *
+     * @param in     the JUnit XML results
+     * @param out    where to write the results with the cached tests
+     * @param cached the testcase elements of each cached test file
+     */
+    public static void addTestCases(InputStream in, OutputStream out, Collection<String> cached) throws IOException {
+        // The counts of the cached tests go before the tests themselves
+        int tests = 0;
+        double time = 0;
+        for (String testCases : cached) {
+            XMLEventReader reader = null;
+            try {
+                reader = createReader(new StringReader(testCases));
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (event.isStartElement() && event.asStartElement().getName().getLocalPart().equals("testcase")) {
+                        tests++;
+                        try {
+                            time += Double.parseDouble(getAttribute(event.asStartElement(), "time"));
+                        } catch (NumberFormatException e) {
+                            // Counts as no time
+                        }
+                    }
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            } finally {
+                close(reader);
+            }
+        }
+
+        XMLEventReader reader = null;
+        try {
+            reader = createReader(in);
+            XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, "UTF-8");
+
+            int depth = 0;
+            boolean suites = false;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartDocument()) {
+                    writer.add(EVENTS.createStartDocument("UTF-8", "1.0"));
+                    continue;
+                }
+                if (event.getEventType() == XMLStreamConstants.DTD) {
+                    continue;
+                }
+
+                if (event.isStartElement() && depth++ == 0) {
+                    StartElement root = event.asStartElement();
+                    suites = root.getName().getLocalPart().equals("testsuites");
+                    if (!suites) {
+                        event = addToCount(root, "tests", tests);
+                    }
+                } else if (event.isEndElement() && --depth == 0) {
+                    if (suites) {
+                        writer.add(EVENTS.createStartElement("", "", "testsuite"));
+                        writer.add(EVENTS.createAttribute("name", CACHED_SUITE));
+                        writer.add(EVENTS.createAttribute("tests", String.valueOf(tests)));
+                        writer.add(EVENTS.createAttribute("failures", "0"));
+                        writer.add(EVENTS.createAttribute("errors", "0"));
+                        writer.add(EVENTS.createAttribute("skipped", "0"));
+                        writer.add(EVENTS.createAttribute("time", String.valueOf(time)));
+                    }
+                    for (String testCases : cached) {
+                        copyTestCases(testCases, writer);
+                    }
+                    if (suites) {
+                        writer.add(EVENTS.createEndElement("", "", "testsuite"));
+                    }
+                }
+                writer.add(event);
+            }
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    /*
+     * Copies the testcase elements inside cached testcases, without the
+     * element around them.
+     */
+    private static void copyTestCases(String testCases, XMLEventWriter writer) throws XMLStreamException {
+        XMLEventReader reader = createReader(new StringReader(testCases));
+        try {
+            int depth = 0;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                }
+                if (depth > 1 || (depth == 1 && event.isEndElement())) {
+                    writer.add(event);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /*
+     * A copy of an element whose count attribute is increased, if it has one.
+     */
+    private static StartElement addToCount(StartElement element, String name, int count) {
+        List<Attribute> attributes = new ArrayList<Attribute>();
+        for (Iterator<?> it = element.getAttributes(); it.hasNext();) {
+            Attribute attribute = (Attribute) it.next();
+            if (attribute.getName().getLocalPart().equals(name)) {
+                try {
+                    attribute = EVENTS.createAttribute(name,
+                            String.valueOf(Integer.parseInt(attribute.getValue()) + count));
+                } catch (NumberFormatException e) {
+                    // Left as is
+                }
+            }
+            attributes.add(attribute);
+        }
+        return EVENTS.createStartElement(element.getName(), attributes.iterator(), element.getNamespaces());
+    }
+
+    private static String getAttribute(StartElement element, String name) {
+        Attribute attribute = element.getAttributeByName(new QName(name));
+        return attribute == null ? "" : attribute.getValue();
+    }
+
+    private static XMLEventReader createReader(InputStream in) throws XMLStreamException {
+        return createInputFactory().createXMLEventReader(in);
+    }
+
+    private static XMLEventReader createReader(Reader in) throws XMLStreamException {
+        return createInputFactory().createXMLEventReader(in);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static void close(XMLEventReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // Nothing left to read
+            }
+        }
+    }
+}
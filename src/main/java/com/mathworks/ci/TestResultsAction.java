@@ -0,0 +1,138 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.model.Api;
+import hudson.model.Run;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.CheckForNull;
+import jenkins.model.RunAction2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Results of the MATLAB tests of a build, one summary for each JUnit results
+ * file that runMATLABTests wrote. Available through the remote API, for
+ * example from matlabtests/api/json?depth=3. Only the counts are saved with
+ * the build; the test cases are read from the build folder when asked for.
+ */
+@ExportedBean
+public class TestResultsAction implements RunAction2 {
+    // Number of failed tests listed on the build page
+    private static final int LISTED_FAILURES = 10;
+
+    private final List<TestResultsSummary> results = new CopyOnWriteArrayList<TestResultsSummary>();
+
+    /**
+     * Adds the test results of a step to the build.
+     *
+     * @param build   the build the step ran in
+     * @param summary the test results of the step
+     */
+    public static void record(Run<?, ?> build, TestResultsSummary summary) {
+        if (build == null || summary == null) {
+            return;
+        }
+
+        // Parallel steps of the same build must share one action
+        synchronized (BuildLocks.get(build)) {
+            TestResultsAction action = build.getAction(TestResultsAction.class);
+            if (action == null) {
+                action = new TestResultsAction();
+                build.addAction(action);
+            }
+            summary.setFolder(build.getRootDir());
+            action.results.add(summary);
+        }
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> build) {
+        setFolder(build);
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> build) {
+        setFolder(build);
+    }
+
+    private void setFolder(Run<?, ?> build) {
+        for (TestResultsSummary summary : this.results) {
+            summary.setFolder(build.getRootDir());
+        }
+    }
+
+    @CheckForNull
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @CheckForNull
+    @Override
+    public String getDisplayName() {
+        return "MATLAB Test Results";
+    }
+
+    @CheckForNull
+    @Override
+    public String getUrlName() {
+        return "matlabtests";
+    }
+
+    public Api getApi() {
+        return new Api(this);
+    }
+
+    @Exported(inline = true)
+    public List<TestResultsSummary> getResults() {
+        return this.results;
+    }
+
+    @Exported
+    public int getTotalCount() {
+        int count = 0;
+        for (TestResultsSummary summary : this.results) {
+            count += summary.getTotalCount();
+        }
+        return count;
+    }
+
+    @Exported
+    public int getFailCount() {
+        int count = 0;
+        for (TestResultsSummary summary : this.results) {
+            count += summary.getFailCount();
+        }
+        return count;
+    }
+
+    @Exported
+    public int getSkipCount() {
+        int count = 0;
+        for (TestResultsSummary summary : this.results) {
+            count += summary.getSkipCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the first failed tests, for the build page
+     */
+    public List<TestResultsSummary.TestCase> getFailedTests() {
+        List<TestResultsSummary.TestCase> failed = new ArrayList<TestResultsSummary.TestCase>();
+        for (TestResultsSummary summary : this.results) {
+            if (failed.size() == LISTED_FAILURES) {
+                break;
+            }
+            if (summary.getFailCount() > 0) {
+                failed.addAll(summary.getFailedTests(LISTED_FAILURES - failed.size()));
+            }
+        }
+        return failed;
+    }
+}
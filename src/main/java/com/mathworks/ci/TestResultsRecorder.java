@@ -0,0 +1,94 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.FilePath;
+import hudson.model.Run;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.commons.lang.RandomStringUtils;
+
+import com.mathworks.ci.parameters.TestActionParameters;
+
+/**
+ * Records the JUnit results of a runMATLABTests step: a summary in the
+ * TestResultsAction of the build, and the durations and failures of the tests
+ * in the TestDurationIndex of the job.
+ */
+public class TestResultsRecorder {
+    // Failure messages kept in the test results of a build, and their length
+    public static final int MAX_FAILURE_MESSAGES = Integer
+            .getInteger(TestResultsRecorder.class.getName() + ".maxFailureMessages", 100);
+    public static final int FAILURE_MESSAGE_LENGTH = Integer
+            .getInteger(TestResultsRecorder.class.getName() + ".failureMessageLength", 2000);
+
+    private final TestActionParameters params;
+
+    public TestResultsRecorder(TestActionParameters params) {
+        this.params = params;
+    }
+
+    /**
+     * Reads the JUnit results as a stream and records them. Problems are
+     * reported but do not fail the step.
+     *
+     * @param build        the build, or null
+     * @param junitResults the JUnit results of the step, or null
+     */
+    public void record(Run<?, ?> build, String junitResults) {
+        if (build == null || junitResults == null) {
+            return;
+        }
+
+        try {
+            FilePath results = new FilePath(this.params.getWorkspace(), junitResults);
+            if (!results.exists()) {
+                return;
+            }
+
+            // Each step gets its own details file, as parallel steps record at once
+            String details = MatlabBuilderConstants.TEST_CASES_FILE_PREFIX
+                    + RandomStringUtils.randomAlphanumeric(8) + MatlabBuilderConstants.TEST_CASES_FILE_EXTENSION;
+            File detailsFile = new File(build.getRootDir(), details);
+            File temp = new File(build.getRootDir(), details + ".tmp");
+
+            Set<String> failed = new HashSet<String>();
+            Map<String, Double> durations = new TreeMap<String, Double>();
+            TestResultsSummary summary;
+            try (InputStream in = results.read();
+                    Writer out = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                summary = TestResultsSummary.read(in, junitResults, MAX_FAILURE_MESSAGES, FAILURE_MESSAGE_LENGTH,
+                        testCase -> {
+                            out.write(testCase.toJSON());
+                            out.write('\n');
+                            testCase.addDuration(durations, failed);
+                        });
+            } catch (IOException e) {
+                Files.deleteIfExists(temp.toPath());
+                throw e;
+            }
+            Files.move(temp.toPath(), detailsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            summary.setDetails(details);
+            TestResultsAction.record(build, summary);
+
+            new TestDurationIndex(new File(build.getParent().getRootDir(), MatlabBuilderConstants.TEST_DURATIONS_FILE))
+                    .record(durations, failed);
+        } catch (IOException e) {
+            this.params.getTaskListener().getLogger().println(
+                    String.format(Message.getValue("matlab.tests.results.error"), e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Counts and duration of the tests in one JUnit results file, read as a
+ * stream so neither the document nor long diagnostics are ever held in
+ * memory. Each test case is handed on as it is read. Only the first failure
+ * messages are kept, each cut to a bounded length.
+ *
+ * The summary is saved with the build, so it holds no test cases. Those are
+ * kept in a details file in the build folder, one JSON object per line, and
+ * read only when the page or the remote API asks for them.
+ */
+@ExportedBean(defaultVisibility = 2)
+public class TestResultsSummary {
+    private static final Logger LOGGER = Logger.getLogger(TestResultsSummary.class.getName());
+
+    public static final String PASSED = "passed";
+    public static final String FAILED = "failed";
+    public static final String SKIPPED = "skipped";
+
+    // Marks a failure message that was cut short
+    private static final String TRUNCATED = "...";
+
+    private final String name;
+    private int totalCount;
+    private int failCount;
+    private int skipCount;
+    private double seconds;
+
+    // Name of the details file in the build folder, or null if there is none
+    private String details;
+
+    // Folder of the build, set when the summary is added to or loaded with it
+    private transient File folder;
+
+    /**
+     * Receives the test cases of JUnit results as they are read.
+     */
+    public interface TestCaseHandler {
+        void testCase(TestCase testCase) throws IOException;
+    }
+
+    private TestResultsSummary(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Reads the test cases of JUnit results.
+     *
+     * @param in               the JUnit XML results
+     * @param name             the name of the results, such as their file
+     * @param maxMessages      the number of failure messages to keep
+     * @param maxMessageLength the number of characters kept of each message
+     * @param handler          receives each test case
+     */
+    public static TestResultsSummary read(InputStream in, String name, int maxMessages, int maxMessageLength,
+            TestCaseHandler handler) throws IOException {
+        TestResultsSummary summary = new TestResultsSummary(name);
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(in);
+
+            // Test case being read, and the message of its failure
+            TestCase testCase = null;
+            StringBuilder message = null;
+            boolean inFailure = false;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        String element = reader.getLocalName();
+                        if (element.equals("testcase")) {
+                            testCase = new TestCase(getName(reader), getSeconds(reader));
+                        } else if (testCase != null && (element.equals("failure") || element.equals("error"))) {
+                            testCase.status = FAILED;
+                            inFailure = true;
+                            if (message == null && summary.failCount < maxMessages) {
+                                message = new StringBuilder();
+                                String attribute = reader.getAttributeValue(null, "message");
+                                if (attribute != null) {
+                                    append(message, attribute, maxMessageLength);
+                                    append(message, "\n", maxMessageLength);
+                                }
+                            }
+                        } else if (testCase != null && element.equals("skipped")
+                                && !testCase.status.equals(FAILED)) {
+                            testCase.status = SKIPPED;
+                        }
+                        break;
+
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        // Long diagnostics arrive in chunks, and only the start is kept
+                        if (inFailure && message != null && message.length() <= maxMessageLength) {
+                            int length = Math.min(reader.getTextLength(), maxMessageLength + 1 - message.length());
+                            message.append(reader.getTextCharacters(), reader.getTextStart(), length);
+                        }
+                        break;
+
+                    case XMLStreamConstants.END_ELEMENT:
+                        String end = reader.getLocalName();
+                        if (end.equals("failure") || end.equals("error")) {
+                            inFailure = false;
+                        } else if (end.equals("testcase") && testCase != null) {
+                            if (message != null) {
+                                testCase.message = cut(message.toString().trim(), maxMessageLength);
+                                message = null;
+                            }
+                            summary.add(testCase);
+                            handler.testCase(testCase);
+                            testCase = null;
+                        }
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // Nothing left to read
+                }
+            }
+        }
+        return summary;
+    }
+
+    private void add(TestCase testCase) {
+        this.totalCount++;
+        this.seconds += testCase.getDuration();
+        if (testCase.status.equals(FAILED)) {
+            this.failCount++;
+        } else if (testCase.status.equals(SKIPPED)) {
+            this.skipCount++;
+        }
+    }
+
+    /*
+     * Names a test by its class name and test case name, joined by a slash,
+     * the way MATLAB names the tests of a suite.
+     */
+    private static String getName(XMLStreamReader reader) {
+        String className = reader.getAttributeValue(null, "classname");
+        String name = reader.getAttributeValue(null, "name");
+        if (name == null) {
+            name = "";
+        }
+        return className == null || className.isEmpty() ? name : className + "/" + name;
+    }
+
+    private static double getSeconds(XMLStreamReader reader) {
+        try {
+            return Double.parseDouble(reader.getAttributeValue(null, "time"));
+        } catch (NullPointerException | NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static void append(StringBuilder message, String text, int maxMessageLength) {
+        if (message.length() <= maxMessageLength) {
+            message.append(text, 0, Math.min(text.length(), maxMessageLength + 1 - message.length()));
+        }
+    }
+
+    private static String cut(String message, int maxMessageLength) {
+        if (message.length() <= maxMessageLength) {
+            return message;
+        }
+        return message.substring(0, Math.max(0, maxMessageLength - TRUNCATED.length())) + TRUNCATED;
+    }
+
+    @Exported
+    public String getName() {
+        return this.name;
+    }
+
+    @Exported
+    public int getTotalCount() {
+        return this.totalCount;
+    }
+
+    @Exported
+    public int getFailCount() {
+        return this.failCount;
+    }
+
+    @Exported
+    public int getSkipCount() {
+        return this.skipCount;
+    }
+
+    @Exported
+    public double getDuration() {
+        return this.seconds;
+    }
+
+    /**
+     * @return all test cases, read from the details file
+     */
+    @Exported(inline = true)
+    public List<TestCase> getTestCases() {
+        return readTestCases(false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param max the number of failed tests to return at most
+     * @return the first failed tests, read from the details file until enough
+     *         are found
+     */
+    public List<TestCase> getFailedTests(int max) {
+        return readTestCases(true, max);
+    }
+
+    /**
+     * @param details the name of the file in the build folder that holds the
+     *                test cases
+     */
+    void setDetails(String details) {
+        this.details = details;
+    }
+
+    void setFolder(File folder) {
+        this.folder = folder;
+    }
+
+    private List<TestCase> readTestCases(boolean failedOnly, int max) {
+        List<TestCase> testCases = new ArrayList<TestCase>();
+        if (this.details == null || this.folder == null) {
+            return testCases;
+        }
+        File file = new File(this.folder, this.details);
+        if (!file.exists()) {
+            return testCases;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while (testCases.size() < max && (line = reader.readLine()) != null) {
+                TestCase testCase = TestCase.fromJSON(line);
+                if (testCase != null && (!failedOnly || testCase.status.equals(FAILED))) {
+                    testCases.add(testCase);
+                }
+            }
+        } catch (IOException e) {
+            // The counts are still shown
+            LOGGER.log(Level.WARNING, "Unable to read the test cases in " + file, e);
+        }
+        return testCases;
+    }
+
+    /**
+     * Name, duration and outcome of a single test.
+     */
+    @ExportedBean(defaultVisibility = 3)
+    public static class TestCase {
+        private final String name;
+        private final double seconds;
+        private String status = PASSED;
+        private String message;
+
+        TestCase(String name, double seconds) {
+            this.name = name;
+            this.seconds = seconds;
+        }
+
+        @Exported
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the seconds the test took, or 0 if the results do not say
+         */
+        @Exported
+        public double getDuration() {
+            return Double.isNaN(this.seconds) ? 0 : this.seconds;
+        }
+
+        @Exported
+        public String getStatus() {
+            return this.status;
+        }
+
+        /**
+         * @return the start of the failure message, or null if the test
+         *         passed or its message was not kept
+         */
+        @Exported
+        public String getMessage() {
+            return this.message;
+        }
+
+        /**
+         * Adds the duration of the test to the durations by test name. Tests
+         * without a name or time cannot be told apart or balanced, and are
+         * left out.
+         *
+         * @param durations the seconds each test took, by test name
+         * @param failed    collects the names of the tests that failed
+         */
+        public void addDuration(Map<String, Double> durations, Set<String> failed) {
+            if (this.name.isEmpty() || Double.isNaN(this.seconds)) {
+                return;
+            }
+            durations.merge(this.name, this.seconds, Double::sum);
+            if (this.status.equals(FAILED)) {
+                failed.add(this.name);
+            }
+        }
+
+        /**
+         * @return the test case as a line of the details file
+         */
+        @SuppressWarnings("unchecked")
+        public String toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("name", this.name);
+            if (!Double.isNaN(this.seconds)) {
+                json.put("duration", this.seconds);
+            }
+            json.put("status", this.status);
+            if (this.message != null) {
+                json.put("message", this.message);
+            }
+            return json.toJSONString();
+        }
+
+        /*
+         * Reads a line of the details file, or returns null for a line that
+         * was cut short.
+         */
+        static TestCase fromJSON(String line) {
+            try {
+                Object parsed = new JSONParser().parse(line);
+                if (!(parsed instanceof JSONObject)) {
+                    return null;
+                }
+                JSONObject json = (JSONObject) parsed;
+                Object name = json.get("name");
+                Object duration = json.get("duration");
+                TestCase testCase = new TestCase(name == null ? "" : name.toString(),
+                        duration instanceof Number ? ((Number) duration).doubleValue() : Double.NaN);
+                Object status = json.get("status");
+                if (status != null) {
+                    testCase.status = status.toString();
+                }
+                Object message = json.get("message");
+                testCase.message = message == null ? null : message.toString();
+                return testCase;
+            } catch (ParseException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import hudson.model.Run;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import com.mathworks.ci.parameters.TestActionParameters;
+import com.mathworks.ci.utilities.MatlabCommandRunner;
+
+/**
+ * Selects the shard of the tests one step runs when runMATLABTests is split
+ * across agents with shardIndex and shardCount. Shards take about the same
+ * time, balanced by the durations of earlier test runs of the job.
+ */
+public class TestShardSelector {
+    private final MatlabCommandRunner runner;
+    private final TestActionParameters params;
+
+    public TestShardSelector(MatlabCommandRunner runner, TestActionParameters params) {
+        this.runner = runner;
+        this.params = params;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the shard index is not between 1
+     *                                  and the shard count
+     */
+    public void checkShard() {
+        int shardIndex = this.params.getShardIndex();
+        int shardCount = this.params.getShardCount();
+        if (shardCount < 0 || (shardCount > 0 && (shardIndex < 1 || shardIndex > shardCount))) {
+            throw new IllegalArgumentException(
+                    String.format(Message.getValue("matlab.tests.invalid.shard.error"), shardIndex, shardCount));
+        }
+    }
+
+    public boolean isSharded() {
+        return this.params.getShardCount() > 0;
+    }
+
+    /**
+     * Gives MATLAB the durations of earlier test runs of the job, so shards
+     * can take about the same time. All shards of a build use the durations
+     * the job had when the first shard started.
+     *
+     * @param build     the build, or null
+     * @param selection MATLAB expression that selects the tests to split
+     * @return MATLAB expression that selects the tests of this shard
+     */
+    public String select(Run<?, ?> build, String selection) throws IOException {
+        this.runner.addResourceToTempFolder(MatlabBuilderConstants.TEST_SHARD_SELECTOR,
+                MatlabBuilderConstants.TEST_SHARD_SELECTOR);
+
+        if (build != null) {
+            TestDurationIndex index = new TestDurationIndex(
+                    new File(build.getParent().getRootDir(), MatlabBuilderConstants.TEST_DURATIONS_FILE));
+            Map<String, Double> durations = index.snapshot(
+                    new File(build.getRootDir(), MatlabBuilderConstants.TEST_DURATIONS_FILE));
+            if (!durations.isEmpty()) {
+                this.runner.addFileToTempFolder(MatlabBuilderConstants.TEST_DURATIONS_FILE,
+                        TestDurationIndex.format(durations));
+            }
+        }
+
+        return "ciplugins.jenkins.selectTestShard(" + selection + ", "
+                + this.params.getShardIndex() + ", " + this.params.getShardCount() + ")";
+    }
+
+    /**
+     * Adds the shard to the name of an artifact, so the artifacts of shards do
+     * not overwrite each other when they are collected. For example
+     * results/junit.xml becomes results/junit_shard2.xml.
+     */
+    public String getShardFileName(String path) {
+        if (path == null || !isSharded()) {
+            return path;
+        }
+
+        String suffix = "_shard" + this.params.getShardIndex();
+        int nameStart = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1;
+        int dot = path.lastIndexOf('.');
+        if (dot <= nameStart) {
+            return path + suffix;
+        }
+        return path.substring(0, dot) + suffix + path.substring(dot);
+    }
+}
@@ -5,25 +5,51 @@ package com.mathworks.ci.actions;
  */
 
 import com.mathworks.ci.BuildArtifactAction;
+import com.mathworks.ci.BuildArtifactData;
+import com.mathworks.ci.BuildArtifactReader;
 import com.mathworks.ci.BuildConsoleAnnotator;
+import com.mathworks.ci.BuildProgressAction;
+import com.mathworks.ci.BuildTrendIndex;
 import com.mathworks.ci.MatlabBuilderConstants;
+import com.mathworks.ci.StepTimingAction;
+import com.mathworks.ci.utilities.FileTailer;
 import com.mathworks.ci.utilities.MatlabCommandRunner;
 import hudson.FilePath;
 import hudson.model.Run;
+import jenkins.util.Timer;
 import org.apache.commons.lang.RandomStringUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class MatlabAction {
     MatlabCommandRunner runner;
     BuildConsoleAnnotator annotator;
     String actionID;
 
+    // Seconds between reads of the build progress file
+    private static final long PROGRESS_INTERVAL = 5;
+
+    private BuildProgressAction progress;
+    private ScheduledFuture<?> progressPoll;
+
     public String getActionID() {
         return (this.actionID == null) ? "" : this.actionID;
     }
 
+    /**
+     * Returns the name the phase times of the action are recorded under.
+     */
+    protected String getStepName() {
+        return "MATLAB";
+    }
+
     public MatlabAction(MatlabCommandRunner runner) {
         this.runner = runner;
     }
@@ -35,11 +61,12 @@ public class MatlabAction {
     }
 
     public void copyBuildPluginsToTemp() throws IOException, InterruptedException {
-        // Copy plugins and override default plugins function
-        runner.copyFileToTempFolder(MatlabBuilderConstants.DEFAULT_PLUGIN, MatlabBuilderConstants.DEFAULT_PLUGIN);
-        runner.copyFileToTempFolder(MatlabBuilderConstants.BUILD_REPORT_PLUGIN,
+        // Copy plugins and override default plugins function. The copies are
+        // made together with the rest of the temp folder when the command runs.
+        runner.addResourceToTempFolder(MatlabBuilderConstants.DEFAULT_PLUGIN, MatlabBuilderConstants.DEFAULT_PLUGIN);
+        runner.addResourceToTempFolder(MatlabBuilderConstants.BUILD_REPORT_PLUGIN,
                 MatlabBuilderConstants.BUILD_REPORT_PLUGIN);
-        runner.copyFileToTempFolder(MatlabBuilderConstants.TASK_RUN_PROGRESS_PLUGIN,
+        runner.addResourceToTempFolder(MatlabBuilderConstants.TASK_RUN_PROGRESS_PLUGIN,
                 MatlabBuilderConstants.TASK_RUN_PROGRESS_PLUGIN);
     }
 
@@ -54,7 +81,44 @@ public class MatlabAction {
                 runner.getTempFolder().toString());
     }
 
+    /**
+     * Shows the results of completed tasks on the build page while the build
+     * runs, by reading the lines BuildReportPlugin appends to the build
+     * artifact file.
+     */
+    public void startBuildProgress(Run<?, ?> build) {
+        if (build == null) {
+            return;
+        }
+        FileTailer tailer = new FileTailer(
+                new FilePath(runner.getTempFolder(),
+                        MatlabBuilderConstants.BUILD_ARTIFACT + BuildArtifactReader.TASK_LINES_EXTENSION));
+        BuildProgressAction action = new BuildProgressAction(build, this.getActionID());
+        build.addAction(action);
+        this.progress = action;
+        this.progressPoll = Timer.get().scheduleWithFixedDelay(() -> {
+            try {
+                for (String line : tailer.readLines()) {
+                    if (!line.trim().isEmpty()) {
+                        action.addTask(BuildArtifactReader.readTask(line));
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println(e.toString());
+            }
+        }, PROGRESS_INTERVAL, PROGRESS_INTERVAL, TimeUnit.SECONDS);
+    }
+
     public void teardownAction(Run<?, ?> build) {
+        long teardownStart = System.nanoTime();
+
+        // Stop showing progress, the build results replace it
+        if (this.progress != null) {
+            this.progressPoll.cancel(false);
+            build.removeAction(this.progress);
+            this.progress = null;
+        }
+
         // Handle build result
         if (this.annotator != null) {
             moveJsonArtifactToBuildRoot(build, MatlabBuilderConstants.BUILD_ARTIFACT);
@@ -65,19 +129,31 @@ public class MatlabAction {
         } catch (Exception e) {
             System.err.println(e.toString());
         }
+
+        this.runner.recordPhase(MatlabCommandRunner.PHASE_TEARDOWN, teardownStart);
+        StepTimingAction.record(build, this.getStepName(), this.getActionID(), this.runner.getPhaseTimes());
     }
 
     private void moveJsonArtifactToBuildRoot(Run<?, ?> build, String artifactBaseName) {
         try {
-            FilePath file = new FilePath(this.runner.getTempFolder(), artifactBaseName + ".json");
-            if (file.exists()) {
-                FilePath rootLocation = new FilePath(
-                        new File(
-                                build.getRootDir().getAbsolutePath(),
-                                artifactBaseName + this.getActionID() + ".json"));
-                file.copyTo(rootLocation);
-                file.delete();
-                build.addAction(new BuildArtifactAction(build, this.getActionID()));
+            // Plugins of this version write a task per line, custom plugins may
+            // still write a JSON document
+            for (String extension : new String[] { BuildArtifactReader.TASK_LINES_EXTENSION,
+                    BuildArtifactReader.DOCUMENT_EXTENSION }) {
+                FilePath file = new FilePath(this.runner.getTempFolder(), artifactBaseName + extension);
+                if (file.exists()) {
+                    FilePath rootLocation = new FilePath(
+                            new File(
+                                    build.getRootDir().getAbsolutePath(),
+                                    artifactBaseName + this.getActionID() + extension));
+                    file.copyTo(rootLocation);
+                    file.delete();
+                    List<BuildArtifactData> tasks = readBuildArtifact(build, rootLocation);
+                    build.addAction(tasks == null
+                            ? new BuildArtifactAction(build, this.getActionID())
+                            : new BuildArtifactAction(build, this.getActionID(), tasks));
+                    return;
+                }
             }
         } catch (Exception e) {
             // Don't want to override more important error
@@ -85,4 +161,30 @@ public class MatlabAction {
             System.err.println(e.toString());
         }
     }
+
+    /**
+     * Reads the tasks of the build artifact and adds them to the trend of the
+     * job.
+     *
+     * @return the tasks of the build artifact, or null if it cannot be read
+     */
+    private List<BuildArtifactData> readBuildArtifact(Run<?, ?> build, FilePath artifact) {
+        List<BuildArtifactData> tasks;
+        try (Reader reader = new InputStreamReader(artifact.read(), StandardCharsets.UTF_8)) {
+            tasks = BuildArtifactReader.read(reader, artifact.getName());
+        } catch (Exception e) {
+            System.err.println(e.toString());
+            return null;
+        }
+
+        try {
+            if (build.getParent() != null) {
+                BuildTrendIndex.append(build.getParent().getRootDir(), build.getNumber(), tasks);
+            }
+        } catch (Exception e) {
+            // The build results page does not need the trend
+            System.err.println(e.toString());
+        }
+        return tasks;
+    }
 }
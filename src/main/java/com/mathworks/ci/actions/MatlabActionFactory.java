@@ -14,6 +14,11 @@ public class MatlabActionFactory implements Serializable {
         return new RunMatlabCommandAction(params);
     }
 
+    public RunMatlabCommandsAction createAction(CommandsActionParameters params)
+            throws IOException, InterruptedException {
+        return new RunMatlabCommandsAction(params);
+    }
+
     public RunMatlabBuildAction createAction(BuildActionParameters params) throws IOException, InterruptedException {
         return new RunMatlabBuildAction(params);
     }
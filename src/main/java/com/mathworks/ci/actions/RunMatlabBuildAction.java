@@ -4,10 +4,13 @@ package com.mathworks.ci.actions;
  * Copyright 2024, The MathWorks Inc.
  */
 
+import java.io.File;
 import java.io.IOException;
 
 import com.mathworks.ci.BuildConsoleAnnotator;
+import com.mathworks.ci.MatlabBuilderConstants;
 import com.mathworks.ci.MatlabExecutionException;
+import com.mathworks.ci.TaskLogIndex;
 import com.mathworks.ci.parameters.BuildActionParameters;
 import com.mathworks.ci.utilities.MatlabCommandRunner;
 
@@ -30,6 +33,11 @@ public class RunMatlabBuildAction extends MatlabAction {
                 params);
     }
 
+    @Override
+    protected String getStepName() {
+        return "runMATLABBuild";
+    }
+
     public void run() throws IOException, InterruptedException, MatlabExecutionException {
         super.copyBuildPluginsToTemp();
         super.setBuildEnvVars();
@@ -52,6 +60,13 @@ public class RunMatlabBuildAction extends MatlabAction {
             command += " " + params.getBuildOptions();
         }
 
+        super.startBuildProgress(this.params.getBuild());
+        if (this.params.getBuild() != null) {
+            annotator.setTaskLogIndex(this.params.getBuild(), new TaskLogIndex(new File(
+                    this.params.getBuild().getRootDir(),
+                    MatlabBuilderConstants.TASK_LOG_INDEX + this.getActionID() + ".tsv")));
+        }
+
         try {
             runner.runMatlabCommand(command);
         } catch (Exception e) {
@@ -60,6 +75,7 @@ public class RunMatlabBuildAction extends MatlabAction {
             throw (e);
         } finally {
             annotator.forceEol();
+            annotator.markTaskLogEnd();
 
             Run<?, ?> build = this.params.getBuild();
             super.teardownAction(build);
@@ -30,6 +30,11 @@ public class RunMatlabCommandAction extends MatlabAction {
                 params);
     }
 
+    @Override
+    protected String getStepName() {
+        return "runMATLABCommand";
+    }
+
     public void run() throws IOException, InterruptedException, MatlabExecutionException {
         super.copyBuildPluginsToTemp();
         super.setBuildEnvVars();
@@ -0,0 +1,100 @@
+package com.mathworks.ci.actions;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.mathworks.ci.BuildConsoleAnnotator;
+import com.mathworks.ci.MatlabBuilderConstants;
+import com.mathworks.ci.MatlabExecutionException;
+import com.mathworks.ci.parameters.CommandsActionParameters;
+import com.mathworks.ci.utilities.MatlabCommandRunner;
+
+import hudson.model.Run;
+
+/**
+ * Runs several named commands in one MATLAB session. Each command is reported
+ * like a build task, with its own status, duration and console section.
+ */
+public class RunMatlabCommandsAction extends MatlabAction {
+    private CommandsActionParameters params;
+
+    public RunMatlabCommandsAction(MatlabCommandRunner runner, BuildConsoleAnnotator annotator,
+            CommandsActionParameters params) {
+        super(runner, annotator);
+        this.params = params;
+    }
+
+    public RunMatlabCommandsAction(CommandsActionParameters params) throws IOException, InterruptedException {
+        this(new MatlabCommandRunner(params),
+                new BuildConsoleAnnotator(
+                        params.getTaskListener().getLogger(),
+                        params.getBuild().getCharset()),
+                params);
+    }
+
+    @Override
+    protected String getStepName() {
+        return "runMATLABCommands";
+    }
+
+    public void run() throws IOException, InterruptedException, MatlabExecutionException {
+        runner.addResourceToTempFolder(MatlabBuilderConstants.RUN_COMMANDS_FUNCTION,
+                MatlabBuilderConstants.RUN_COMMANDS_FUNCTION);
+        super.setBuildEnvVars();
+
+        // Redirect output to the build annotator
+        runner.redirectStdOut(annotator);
+
+        // Pass all commands to a single call, as an n-by-2 cell array
+        StringBuilder command = new StringBuilder("addpath('")
+                .append(runner.getTempFolder().getRemote())
+                .append("'); ciplugins.jenkins.runCommands({");
+        for (Map.Entry<String, String> e : this.params.getCommands().entrySet()) {
+            command.append(toMatlabText(e.getKey()))
+                    .append(", ")
+                    .append(toMatlabText(e.getValue()))
+                    .append("; ");
+        }
+        command.append("});");
+
+        super.startBuildProgress(this.params.getBuild());
+
+        try {
+            runner.runMatlabCommand(command.toString());
+        } catch (Exception e) {
+            this.params.getTaskListener().getLogger()
+                    .println(e.getMessage());
+            throw (e);
+        } finally {
+            annotator.forceEol();
+
+            Run<?, ?> build = this.params.getBuild();
+            super.teardownAction(build);
+        }
+    }
+
+    /*
+     * Returns a MATLAB expression for the text. A quoted char array cannot span
+     * lines, so lines are joined with newline.
+     */
+    static String toMatlabText(String text) {
+        String[] lines = text.split("\\r?\\n", -1);
+        if (lines.length == 1) {
+            return singleQuotify(text);
+        }
+
+        StringBuilder expr = new StringBuilder("[");
+        for (int i = 0; i < lines.length; i++) {
+            expr.append(i == 0 ? "" : " newline ").append(singleQuotify(lines[i]));
+        }
+        return expr.append("]").toString();
+    }
+
+    private static String singleQuotify(String in) {
+        return "'" + in.replace("'", "''") + "'";
+    }
+}
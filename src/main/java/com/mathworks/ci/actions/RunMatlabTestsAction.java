@@ -5,8 +5,8 @@ package com.mathworks.ci.actions;
  */
 
 import java.io.IOException;
-import java.util.List;
 import java.util.ArrayList;
+import java.util.List;
 
 import hudson.FilePath;
 import hudson.model.Run;
@@ -14,6 +14,11 @@ import hudson.model.Run;
 import com.mathworks.ci.Utilities;
 import com.mathworks.ci.MatlabBuilderConstants;
 import com.mathworks.ci.MatlabExecutionException;
+import com.mathworks.ci.TestCacheSelector;
+import com.mathworks.ci.TestImpactSelector;
+import com.mathworks.ci.TestOrderSelector;
+import com.mathworks.ci.TestResultsRecorder;
+import com.mathworks.ci.TestShardSelector;
 import com.mathworks.ci.parameters.TestActionParameters;
 import com.mathworks.ci.utilities.MatlabCommandRunner;
 
@@ -29,28 +34,86 @@ public class RunMatlabTestsAction extends MatlabAction {
         this(new MatlabCommandRunner(params), params);
     }
 
+    @Override
+    protected String getStepName() {
+        return "runMATLABTests";
+    }
+
     public void run() throws IOException, InterruptedException, MatlabExecutionException {
-        // Copy in genscript
-        FilePath genScriptZip = runner.copyFileToTempFolder(
-                MatlabBuilderConstants.MATLAB_SCRIPT_GENERATOR,
-                "genscript.zip");
-        genScriptZip.unzip(runner.getTempFolder());
+        TestShardSelector shards = new TestShardSelector(runner, this.params);
+        shards.checkShard();
+
+        Run<?, ?> build = this.params.getBuild();
+        String junitResults = shards.getShardFileName(this.params.getTestResultsJUnit());
+
+        // Select the tests to run
+        TestImpactSelector impact = new TestImpactSelector(runner, this.params);
+        TestCacheSelector cache = new TestCacheSelector(runner, this.params);
+        String selection = "suite";
+        if (this.params.getSelectByChanges()) {
+            selection = impact.select(build);
+        }
+        if (this.params.getCacheResults()) {
+            if (!this.params.getSelectByChanges()) {
+                // Selecting all tests records their dependencies, for the keys
+                selection = impact.selectAll(build);
+            }
+            cache.select(build);
+        }
+        if (shards.isSharded()) {
+            selection = shards.select(build, selection);
+        }
+        if (this.params.getFailedFirst()) {
+            selection = new TestOrderSelector(runner).select(build, selection);
+        }
+
+        // Shards, ordering and caching always need results, for the next build
+        if ((shards.isSharded() || this.params.getFailedFirst() || this.params.getCacheResults())
+                && junitResults == null) {
+            junitResults = new FilePath(runner.getTempFolder(), MatlabBuilderConstants.TEST_HISTORY_RESULTS)
+                    .getRemote();
+        }
+
+        // Locate genscript, extracted once per agent. It builds the suite and
+        // the runner on every path, so selecting tests only filters the suite.
+        FilePath genScriptFolder = runner.getExtractedResource(
+                MatlabBuilderConstants.MATLAB_SCRIPT_GENERATOR);
 
         // Prepare the command
-        String command = MatlabBuilderConstants.TEST_RUNNER_SCRIPT;
-        command = command.replace("${TEMP_FOLDER}", runner.getTempFolder().getRemote());
-        command = command.replace("${PARAMS}", getParameterString());
+        String command;
+        boolean failFast = this.params.getFailFast();
+        if (!selection.equals("suite") || failFast) {
+            runner.addResourceToTempFolder(MatlabBuilderConstants.TEST_SELECTION_RUNNER,
+                    MatlabBuilderConstants.TEST_SELECTION_RUNNER);
+            if (failFast) {
+                runner.addResourceToTempFolder(MatlabBuilderConstants.FAIL_FAST_PLUGIN,
+                        MatlabBuilderConstants.FAIL_FAST_PLUGIN);
+            }
+
+            command = MatlabBuilderConstants.TEST_SELECTION_RUNNER_SCRIPT;
+            command = command.replace("${TEMP_FOLDER}", runner.getTempFolder().getRemote());
+            command = command.replace("${SELECTION}", singleQuotify(selection));
+            command = command.replace("${FAIL_FAST}", String.valueOf(failFast));
+        } else {
+            command = MatlabBuilderConstants.TEST_RUNNER_SCRIPT;
+        }
+        command = command.replace("${GENSCRIPT_FOLDER}", genScriptFolder.getRemote());
+        command = command.replace("${PARAMS}", getParameterString(shards, junitResults));
 
         // Run the command
+        boolean passed = false;
         try {
             runner.runMatlabCommand(command);
+            passed = true;
         } catch (Exception e) {
             this.params.getTaskListener()
                     .getLogger()
                     .println(e.getMessage());
             throw (e);
         } finally {
-            Run<?, ?> build = this.params.getBuild();
+            cache.update(build, junitResults, passed);
+            new TestResultsRecorder(this.params).record(build, junitResults);
+            impact.recordDependencies(build, cache.getSkippedCount() == 0);
             super.teardownAction(build);
         }
     }
@@ -61,10 +124,9 @@ public class RunMatlabTestsAction extends MatlabAction {
 
     // Concatenate the input arguments, try to keep this function as
     // readable as possible because it can get hairy.
-    private String getParameterString() {
+    private String getParameterString(TestShardSelector shards, String junitResults) {
         // The final list to be concatted and returned
         final List<String> inputArgsList = new ArrayList<String>();
-
         inputArgsList.add("'Test'");
 
         // Prepare source and test folder lists
@@ -99,12 +161,12 @@ public class RunMatlabTestsAction extends MatlabAction {
                 "'SelectByFolder'"
         };
         final String[] values = {
-                this.params.getTestResultsPDF(),
-                this.params.getTestResultsTAP(),
-                this.params.getTestResultsJUnit(),
-                this.params.getCodeCoverageCobertura(),
-                this.params.getTestResultsSimulinkTest(),
-                this.params.getModelCoverageCobertura(),
+                shards.getShardFileName(this.params.getTestResultsPDF()),
+                shards.getShardFileName(this.params.getTestResultsTAP()),
+                junitResults,
+                shards.getShardFileName(this.params.getCodeCoverageCobertura()),
+                shards.getShardFileName(this.params.getTestResultsSimulinkTest()),
+                shards.getShardFileName(this.params.getModelCoverageCobertura()),
                 this.params.getSelectByTag(),
                 this.params.getUseParallel(),
                 this.params.getStrict(),
@@ -67,6 +67,8 @@ public class RunMatlabTestsBuilder extends Builder implements SimpleBuildStep {
     private String outputDetail = "default";
     private boolean useParallel = false;
     private boolean strict = false;
+    private boolean failedFirst = false;
+    private boolean failFast = false;
 
     private MatlabActionFactory factory;
 
@@ -151,6 +153,16 @@ public class RunMatlabTestsBuilder extends Builder implements SimpleBuildStep {
         this.strict = strict;
     }
 
+    @DataBoundSetter
+    public void setFailedFirst(boolean failedFirst) {
+        this.failedFirst = failedFirst;
+    }
+
+    @DataBoundSetter
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
     public String getTapReportFilePath() {
         return this.getTapArtifact().getFilePath();
     }
@@ -252,6 +264,14 @@ public class RunMatlabTestsBuilder extends Builder implements SimpleBuildStep {
         return this.useParallel;
     }
 
+    public boolean getFailedFirst() {
+        return this.failedFirst;
+    }
+
+    public boolean getFailFast() {
+        return this.failFast;
+    }
+
     public StartupOptions getStartupOptions() {
         return this.startupOptions;
     }
@@ -404,6 +424,8 @@ public class RunMatlabTestsBuilder extends Builder implements SimpleBuildStep {
                 this.getStrict(),
                 this.getSourceFolderPaths(),
                 this.getSelectByFolderPaths());
+        params.setFailedFirst(this.getFailedFirst());
+        params.setFailFast(this.getFailFast());
         RunMatlabTestsAction action = factory.createAction(params);
 
         try {
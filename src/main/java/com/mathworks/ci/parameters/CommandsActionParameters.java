@@ -0,0 +1,38 @@
+package com.mathworks.ci.parameters;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import hudson.FilePath;
+import hudson.EnvVars;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+
+public class CommandsActionParameters extends MatlabActionParameters {
+    private LinkedHashMap<String, String> commands;
+
+    public CommandsActionParameters(StepContext context, String startupOpts, Map<String, String> commands)
+            throws IOException, InterruptedException {
+        super(context, startupOpts);
+        this.commands = new LinkedHashMap<String, String>(commands);
+    }
+
+    public CommandsActionParameters(Run<?, ?> build, FilePath workspace, EnvVars env, Launcher launcher,
+            TaskListener listener, String startupOpts, Map<String, String> commands) {
+        super(build, workspace, env, launcher, listener, startupOpts);
+        this.commands = new LinkedHashMap<String, String>(commands);
+    }
+
+    /**
+     * @return the commands to run, keyed by name, in the order to run them
+     */
+    public Map<String, String> getCommands() {
+        return commands;
+    }
+}
@@ -5,11 +5,16 @@ package com.mathworks.ci.parameters;
  */
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import hudson.FilePath;
 import hudson.EnvVars;
 import hudson.Launcher;
+import hudson.model.AbstractBuild;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import org.jenkinsci.plugins.workflow.steps.EnvironmentExpander;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 
 public class MatlabActionParameters {
@@ -21,6 +26,9 @@ public class MatlabActionParameters {
 
     private String startupOptions;
 
+    // Variables holding secrets, such as credentials bound to the step
+    private Set<String> sensitiveVariables;
+
     public MatlabActionParameters(StepContext context, String startupOpts) throws IOException, InterruptedException {
         this.build = context.get(Run.class);
         this.workspace = context.get(FilePath.class);
@@ -28,6 +36,11 @@ public class MatlabActionParameters {
         this.launcher = context.get(Launcher.class);
         this.listener = context.get(TaskListener.class);
         this.startupOptions = startupOpts;
+
+        EnvironmentExpander expander = context.get(EnvironmentExpander.class);
+        this.sensitiveVariables = expander == null
+                ? Collections.<String>emptySet()
+                : new HashSet<String>(expander.getSensitiveVariables());
     }
 
     public MatlabActionParameters(Run build, FilePath workspace, EnvVars env, Launcher launcher, TaskListener listener,
@@ -38,6 +51,9 @@ public class MatlabActionParameters {
         this.launcher = launcher;
         this.listener = listener;
         this.startupOptions = startupOpts;
+        this.sensitiveVariables = build instanceof AbstractBuild
+                ? new HashSet<String>(((AbstractBuild<?, ?>) build).getSensitiveBuildVariables())
+                : Collections.<String>emptySet();
     }
 
     public Run<?, ?> getBuild() {
@@ -63,4 +79,8 @@ public class MatlabActionParameters {
     public String getStartupOptions() {
         return startupOptions;
     }
+
+    public Set<String> getSensitiveVariables() {
+        return sensitiveVariables;
+    }
 }
@@ -28,6 +28,12 @@ public class TestActionParameters extends MatlabActionParameters {
     private boolean strict;
     private List<String> sourceFolder = new ArrayList<>();
     private List<String> selectByFolder = new ArrayList<>();
+    private int shardIndex;
+    private int shardCount;
+    private boolean selectByChanges;
+    private boolean failedFirst;
+    private boolean failFast;
+    private boolean cacheResults;
 
     public TestActionParameters(StepContext context, String startupOpts,
             String testResultsPDF, String testResultsTAP, String testResultsJUnit,
@@ -134,4 +140,71 @@ public class TestActionParameters extends MatlabActionParameters {
     public List<String> getSelectByFolder() {
         return selectByFolder;
     }
+
+    /**
+     * Runs only one part of the selected tests, so several agents can share
+     * them.
+     *
+     * @param shardIndex the part to run, from 1 to shardCount
+     * @param shardCount the number of parts, or 0 to run all tests
+     */
+    public void setShard(int shardIndex, int shardCount) {
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Runs only the tests affected by the changes of the build, when the job
+     * knows the dependencies of its tests from earlier builds.
+     */
+    public void setSelectByChanges(boolean selectByChanges) {
+        this.selectByChanges = selectByChanges;
+    }
+
+    public boolean getSelectByChanges() {
+        return selectByChanges;
+    }
+
+    /**
+     * Runs the tests that failed the last time they ran first, then tests that
+     * changed or are new, then the remaining tests from fastest to slowest.
+     */
+    public void setFailedFirst(boolean failedFirst) {
+        this.failedFirst = failedFirst;
+    }
+
+    public boolean getFailedFirst() {
+        return failedFirst;
+    }
+
+    /**
+     * Skips the remaining tests after a test fails.
+     */
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public boolean getFailFast() {
+        return failFast;
+    }
+
+    /**
+     * Skips test files whose results are cached, because neither they nor the
+     * files they depend on changed since they last passed.
+     */
+    public void setCacheResults(boolean cacheResults) {
+        this.cacheResults = cacheResults;
+    }
+
+    public boolean getCacheResults() {
+        return cacheResults;
+    }
 }
@@ -0,0 +1,80 @@
+package com.mathworks.ci.pipeline;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import hudson.model.Result;
+
+import com.mathworks.ci.Message;
+import com.mathworks.ci.actions.MatlabActionFactory;
+import com.mathworks.ci.actions.RunMatlabCommandsAction;
+import com.mathworks.ci.parameters.CommandsActionParameters;
+
+public class MatlabCommandsStepExecution extends SynchronousNonBlockingStepExecution<Void> {
+
+    private static final long serialVersionUID = 1L;
+
+    private MatlabActionFactory factory;
+    private RunMatlabCommandsStep step;
+
+    public MatlabCommandsStepExecution(MatlabActionFactory factory, StepContext context, RunMatlabCommandsStep step)
+            throws IOException, InterruptedException {
+        super(context);
+
+        this.factory = factory;
+        this.step = step;
+    }
+
+    public MatlabCommandsStepExecution(StepContext context, RunMatlabCommandsStep step)
+            throws IOException, InterruptedException {
+        this(new MatlabActionFactory(), context, step);
+    }
+
+    @Override
+    public Void run() throws Exception {
+        try {
+            CommandsActionParameters params = new CommandsActionParameters(
+                    getContext(),
+                    step.getStartupOptions(),
+                    getCommands());
+            RunMatlabCommandsAction action = factory.createAction(params);
+
+            action.run();
+        } catch (Exception e) {
+            stop(e);
+        }
+
+        getContext().setResult(Result.SUCCESS);
+        return null;
+    }
+
+    @Override
+    public void stop(Throwable cause) throws Exception {
+        getContext().onFailure(cause);
+    }
+
+    private Map<String, String> getCommands() {
+        if (step.getCommands().isEmpty()) {
+            throw new IllegalArgumentException(Message.getValue("matlab.empty.command.error"));
+        }
+
+        Map<String, String> commands = new LinkedHashMap<String, String>();
+        for (MatlabNamedCommand command : step.getCommands()) {
+            String name = command.getName();
+            if (name == null || !MatlabNamedCommand.VALID_NAME.matcher(name).matches()) {
+                throw new IllegalArgumentException(Message.getValue("matlab.commands.invalid.name.error"));
+            }
+            if (commands.put(name, command.getCommand() == null ? "" : command.getCommand()) != null) {
+                throw new IllegalArgumentException(
+                        String.format(Message.getValue("matlab.commands.duplicate.name.error"), name));
+            }
+        }
+        return commands;
+    }
+}
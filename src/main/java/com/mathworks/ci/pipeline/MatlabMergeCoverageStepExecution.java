@@ -0,0 +1,58 @@
+package com.mathworks.ci.pipeline;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.IOException;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import hudson.FilePath;
+import hudson.model.Result;
+import hudson.model.TaskListener;
+
+import com.mathworks.ci.Message;
+import com.mathworks.ci.utilities.MergeCoverageFiles;
+
+public class MatlabMergeCoverageStepExecution extends SynchronousNonBlockingStepExecution<Void> {
+
+    private static final long serialVersionUID = 1L;
+
+    private MergeMatlabCoverageStep step;
+
+    public MatlabMergeCoverageStepExecution(StepContext context, MergeMatlabCoverageStep step)
+            throws IOException, InterruptedException {
+        super(context);
+
+        this.step = step;
+    }
+
+    @Override
+    public Void run() throws Exception {
+        try {
+            if (step.getFiles().trim().isEmpty()) {
+                throw new IllegalArgumentException(Message.getValue("matlab.coverage.merge.empty.files.error"));
+            }
+
+            FilePath workspace = getContext().get(FilePath.class);
+            int count = workspace.act(new MergeCoverageFiles(step.getFiles(), step.getOutput()));
+            if (count == 0) {
+                throw new IllegalArgumentException(
+                        String.format(Message.getValue("matlab.coverage.merge.no.files.error"), step.getFiles()));
+            }
+
+            getContext().get(TaskListener.class).getLogger().println(
+                    String.format(Message.getValue("matlab.coverage.merge.done"), count, step.getOutput()));
+        } catch (Exception e) {
+            stop(e);
+        }
+
+        getContext().setResult(Result.SUCCESS);
+        return null;
+    }
+
+    @Override
+    public void stop(Throwable cause) throws Exception {
+        getContext().onFailure(cause);
+    }
+}
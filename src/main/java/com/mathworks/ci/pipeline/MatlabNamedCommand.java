@@ -0,0 +1,53 @@
+package com.mathworks.ci.pipeline;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ *
+ * Describable class for a named command of the runMATLABCommands step.
+ */
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import java.io.Serializable;
+import java.util.regex.Pattern;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import com.mathworks.ci.Message;
+
+public class MatlabNamedCommand extends AbstractDescribableImpl<MatlabNamedCommand> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Names become console anchors and task names in the build results
+    static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9_]+");
+
+    private String name;
+    private String command;
+
+    @DataBoundConstructor
+    public MatlabNamedCommand(String name, String command) {
+        this.name = name;
+        this.command = command;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getCommand() {
+        return this.command;
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends Descriptor<MatlabNamedCommand> {
+        public FormValidation doCheckName(@QueryParameter String value) {
+            if (value == null || !VALID_NAME.matcher(value).matches()) {
+                return FormValidation.error(Message.getValue("matlab.commands.invalid.name.error"));
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -53,6 +53,11 @@ public class MatlabRunTestsStepExecution extends SynchronousNonBlockingStepExecu
                 step.getStrict(),
                 step.getSourceFolder(),
                 step.getSelectByFolder());
+        params.setShard(step.getShardIndex(), step.getShardCount());
+        params.setSelectByChanges(step.getSelectByChanges());
+        params.setFailedFirst(step.getFailedFirst());
+        params.setFailFast(step.getFailFast());
+        params.setCacheResults(step.getCacheResults());
         RunMatlabTestsAction action = factory.createAction(params);
         try {
             action.run();
@@ -0,0 +1,73 @@
+package com.mathworks.ci.pipeline;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.Serializable;
+import java.util.Set;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import com.google.common.collect.ImmutableSet;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.Util;
+
+import com.mathworks.ci.Message;
+
+public class MergeMatlabCoverageStep extends Step implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String DEFAULT_OUTPUT = "matlabMergedCoverage.xml";
+
+    private String files;
+    private String output = DEFAULT_OUTPUT;
+
+    @DataBoundConstructor
+    public MergeMatlabCoverageStep(String files) {
+        this.files = files;
+    }
+
+    public String getFiles() {
+        return Util.fixNull(this.files);
+    }
+
+    @DataBoundSetter
+    public void setOutput(String output) {
+        this.output = output;
+    }
+
+    public String getOutput() {
+        return Util.fixEmptyAndTrim(this.output) == null ? DEFAULT_OUTPUT : this.output;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new MatlabMergeCoverageStepExecution(context, this);
+    }
+
+    @Extension
+    public static class MergeCoverageStepDescriptor extends StepDescriptor {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return ImmutableSet.of(TaskListener.class, FilePath.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return Message.getValue("matlab.coverage.merge.build.step.name");
+        }
+
+        @Override
+        public String getDisplayName() {
+            return Message.getValue("matlab.coverage.merge.step.display.name");
+        }
+    }
+}
@@ -41,6 +41,12 @@ public class RunMatlabTestsStep extends Step implements Serializable {
     private boolean strict;
     private List<String> sourceFolder;
     private List<String> selectByFolder;
+    private int shardIndex;
+    private int shardCount;
+    private boolean selectByChanges;
+    private boolean failedFirst;
+    private boolean failFast;
+    private boolean cacheResults;
 
     private String startupOptions;
 
@@ -166,6 +172,60 @@ public class RunMatlabTestsStep extends Step implements Serializable {
         this.strict = strict;
     }
 
+    public boolean getSelectByChanges() {
+        return selectByChanges;
+    }
+
+    @DataBoundSetter
+    public void setSelectByChanges(boolean selectByChanges) {
+        this.selectByChanges = selectByChanges;
+    }
+
+    public boolean getFailedFirst() {
+        return failedFirst;
+    }
+
+    @DataBoundSetter
+    public void setFailedFirst(boolean failedFirst) {
+        this.failedFirst = failedFirst;
+    }
+
+    public boolean getFailFast() {
+        return failFast;
+    }
+
+    @DataBoundSetter
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public boolean getCacheResults() {
+        return cacheResults;
+    }
+
+    @DataBoundSetter
+    public void setCacheResults(boolean cacheResults) {
+        this.cacheResults = cacheResults;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    @DataBoundSetter
+    public void setShardIndex(int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    @DataBoundSetter
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
     public String getStartupOptions() {
         return Util.fixNull(startupOptions);
     }
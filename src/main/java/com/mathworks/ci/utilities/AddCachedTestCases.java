@@ -0,0 +1,61 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import com.mathworks.ci.TestResultCache;
+
+/**
+ * Adds cached testcase elements to JUnit results in the workspace, on the
+ * agent, so the results are never copied to the controller and back. The
+ * results are copied as a stream to a temporary file that then replaces them.
+ */
+public class AddCachedTestCases extends MasterToSlaveFileCallable<Void> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String results;
+    private final ArrayList<String> cached;
+
+    /**
+     * @param results the JUnit results, relative to the workspace or absolute
+     * @param cached  the testcase elements of each cached test file
+     */
+    public AddCachedTestCases(String results, List<String> cached) {
+        this.results = results;
+        this.cached = new ArrayList<String>(cached);
+    }
+
+    @Override
+    public Void invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+        File resultsFile = new File(results);
+        if (!resultsFile.isAbsolute()) {
+            resultsFile = new File(workspace, results);
+        }
+
+        // Write a copy first, so readers never see partly written results
+        File temp = new File(resultsFile.getPath() + ".tmp");
+        try (InputStream in = Files.newInputStream(resultsFile.toPath());
+                OutputStream out = Files.newOutputStream(temp.toPath())) {
+            TestResultCache.addTestCases(in, out, cached);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        Files.move(temp.toPath(), resultsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return null;
+    }
+}
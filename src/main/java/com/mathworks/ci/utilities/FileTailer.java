@@ -0,0 +1,66 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import hudson.FilePath;
+
+/**
+ * Reads the lines appended to a file since the last call, without reading
+ * the file from the beginning again. A line is only returned once it is
+ * complete.
+ */
+public class FileTailer {
+    private final FilePath file;
+    private long offset;
+    private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+
+    public FileTailer(FilePath file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the lines completed since the last call
+     */
+    public synchronized List<String> readLines() throws IOException, InterruptedException {
+        List<String> lines = new ArrayList<String>();
+        if (!file.exists()) {
+            return lines;
+        }
+
+        try (InputStream in = file.readFromOffset(offset)) {
+            if (in == null) {
+                return lines;
+            }
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                offset += n;
+                int start = 0;
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') {
+                        partial.write(buffer, start, i - start);
+                        lines.add(getLine());
+                        start = i + 1;
+                    }
+                }
+                partial.write(buffer, start, n - start);
+            }
+        }
+        return lines;
+    }
+
+    private String getLine() {
+        String line = new String(partial.toByteArray(), StandardCharsets.UTF_8);
+        partial.reset();
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+}
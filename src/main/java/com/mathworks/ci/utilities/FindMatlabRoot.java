@@ -0,0 +1,51 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Finds the MATLAB root folder of the first MATLAB on the PATH, on the agent.
+ * Returns null if no MATLAB is on the PATH.
+ */
+public class FindMatlabRoot extends MasterToSlaveFileCallable<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> paths;
+
+    /**
+     * @param paths values of PATH to search in order, such as the folder a
+     *              MATLAB axis adds and the PATH of the step
+     */
+    public FindMatlabRoot(List<String> paths) {
+        this.paths = new ArrayList<String>(paths);
+    }
+
+    @Override
+    public String invoke(File workspace, VirtualChannel channel) throws IOException {
+        for (String path : paths) {
+            if (path == null) {
+                continue;
+            }
+            for (String folder : path.split(File.pathSeparator)) {
+                File bin = new File(folder);
+                if (folder.isEmpty() || bin.getParentFile() == null) {
+                    continue;
+                }
+                if (new File(bin, "matlab").isFile() || new File(bin, "matlab.exe").isFile()) {
+                    return bin.getParentFile().getPath();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Computes the SHA-256 digest of files in the workspace on the agent, so their
+ * content can be compared without copying them to the controller. Files that
+ * do not exist are left out of the result.
+ */
+public class HashWorkspaceFiles extends MasterToSlaveFileCallable<Map<String, String>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> paths;
+
+    /**
+     * @param paths the files, relative to the workspace, with forward slashes
+     */
+    public HashWorkspaceFiles(Collection<String> paths) {
+        this.paths = new ArrayList<String>(paths);
+    }
+
+    @Override
+    public Map<String, String> invoke(File workspace, VirtualChannel channel) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        Map<String, String> digests = new HashMap<String, String>();
+        byte[] buffer = new byte[8192];
+        for (String path : paths) {
+            File file = new File(workspace, path);
+            if (!file.isFile()) {
+                continue;
+            }
+
+            digest.reset();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+                while (in.read(buffer) != -1) {
+                    // Read to the end to digest the file
+                }
+            }
+            digests.put(path, Util.toHexString(digest.digest()));
+        }
+        return digests;
+    }
+}
@@ -8,8 +8,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang.RandomStringUtils;
 
 import hudson.FilePath;
@@ -17,39 +22,70 @@ import hudson.EnvVars;
 import hudson.Launcher;
 import hudson.Launcher.ProcStarter;
 import hudson.model.Computer;
+import hudson.model.Run;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
 import hudson.slaves.WorkspaceList;
 import hudson.util.ArgumentListBuilder;
 
 import com.mathworks.ci.Utilities;
+import com.mathworks.ci.MatlabBuilderConstants;
+import com.mathworks.ci.MatlabLicenseLimiter;
 import com.mathworks.ci.MatlabExecutionException;
 import com.mathworks.ci.parameters.MatlabActionParameters;
 
 public class MatlabCommandRunner {
+    // Runner resource detected for each agent connection
+    private static final Map<VirtualChannel, String> runnerSources = Collections
+            .synchronizedMap(new WeakHashMap<VirtualChannel, String>());
+
+    // Names of the phases recorded by the runner
+    public static final String PHASE_SETUP = "setup";
+    public static final String PHASE_LICENSE_QUEUE = "licenseQueue";
+    public static final String PHASE_MATLAB_STARTUP = "matlabStartup";
+    public static final String PHASE_COMMAND = "command";
+    public static final String PHASE_MATLAB = "matlab";
+    public static final String PHASE_TEARDOWN = "teardown";
+
+    // Hours a temp folder left behind by an earlier run must be unchanged
+    // before it is deleted
+    public static final long STALE_TEMP_FOLDER_HOURS = Long
+            .getLong(MatlabCommandRunner.class.getName() + ".staleTempFolderHours", 24);
+
     private MatlabActionParameters params;
     private FilePath tempFolder;
     private OutputStream stdOut;
     private Map<String, String> additionalEnvVars;
+    private Map<String, String> tempFolderResources;
+    private Map<String, String> tempFolderFiles;
+
+    // Milliseconds spent in each phase of running commands, in order
+    private Map<String, Long> phaseTimes;
+
+    // Milliseconds MATLAB ran, split into phases when the temp folder is
+    // removed, or null if MATLAB did not run
+    private Long matlabMillis;
 
     public MatlabCommandRunner(MatlabActionParameters params) throws IOException, InterruptedException {
         this.params = params;
         this.additionalEnvVars = new HashMap<String, String>();
+        this.tempFolderResources = new LinkedHashMap<String, String>();
+        this.tempFolderFiles = new LinkedHashMap<String, String>();
+        this.phaseTimes = new LinkedHashMap<String, Long>();
 
         FilePath workspace = params.getWorkspace();
 
-        // Handle case where workspace doesn't exist
-        if (!workspace.exists()) {
-            workspace.mkdirs();
-        }
-
-        // Create MATLAB folder
+        // Locate MATLAB folder. Nothing is created on the agent yet, that
+        // happens in a single call when the command is run.
         FilePath tmpRoot = WorkspaceList.tempDir(workspace);
         if (tmpRoot == null) {
             throw new IOException("Unable to create temporary directory in workspace.");
         }
-        tmpRoot.mkdirs();
 
-        // Create temp folder
-        this.tempFolder = tmpRoot.createTempDir("matlab", null);
+        // Name temp folder
+        this.tempFolder = new FilePath(tmpRoot, "matlab" + RandomStringUtils.randomAlphanumeric(8));
+
+        addResourceToTempFolder(MatlabBuilderConstants.TIMING_FUNCTION, MatlabBuilderConstants.TIMING_FUNCTION);
     }
 
     /**
@@ -61,21 +97,34 @@ public class MatlabCommandRunner {
         this.params.getTaskListener().getLogger()
                 .println("\n#################### Starting command output ####################");
 
-        // Prepare the executable
-        FilePath exePath = prepareRunnerExecutable();
+        // Prepare the temp folder, script file and executable in one go
+        long setupStart = System.nanoTime();
+        String scriptName = "script_" + RandomStringUtils.randomAlphanumeric(8);
+        String scriptContent = getScriptContent(command);
+        String runnerSource = getRunnerSource();
+        String exe = this.tempFolder.act(new PrepareTempFolder(
+                this.params.getWorkspace().getRemote(),
+                ResourceCache.getRoot(this.params.getWorkspace()).getRemote(),
+                runnerSource,
+                ResourceCache.getDigest(runnerSource),
+                scriptName + ".m",
+                scriptContent,
+                this.tempFolderResources,
+                this.tempFolderFiles));
+        FilePath exePath = new FilePath(this.tempFolder.getChannel(), exe);
+        recordPhase(PHASE_SETUP, setupStart);
 
-        // Create the script file
-        FilePath scriptFile = createFileWithContent(command);
         String cmd = "setenv('MW_ORIG_WORKING_FOLDER', cd('"
                 + this.tempFolder.getRemote()
-                + "'));"
-                + scriptFile.getBaseName();
+                + "'));ciplugins.jenkins.recordTiming('started');"
+                + scriptName;
 
         // Create command
+        String[] startupOptions = this.params.getStartupOptions().split(" ");
         ArgumentListBuilder args = new ArgumentListBuilder();
         args.add(exePath.getRemote());
         args.add(cmd);
-        args.add(this.params.getStartupOptions().split(" "));
+        args.add(startupOptions);
 
         // Add custom environment vars
         EnvVars env = getEnvVars();
@@ -84,23 +133,142 @@ public class MatlabCommandRunner {
                 this.params.getTaskListener(),
                 env);
 
-        ProcStarter proc = this.params.getLauncher().launch()
-                .envs(env)
-                .cmds(args);
-        if (this.stdOut == null) {
-            proc.stdout(this.params.getTaskListener());
-        } else {
-            proc.stdout(this.stdOut);
-        }
-        proc.pwd(this.params.getWorkspace());
+        // Wait until a license is likely to be available
+        Integer code = null;
+        long queueStart = System.nanoTime();
+        try (TokenScheduler.Ticket ticket = MatlabLicenseLimiter.acquire(env, this.params.getTaskListener())) {
+            recordPhase(PHASE_LICENSE_QUEUE, queueStart);
+
+            long matlabStart = System.nanoTime();
+            if (MatlabSessionPool.ENABLED) {
+                // Sessions outlive the step, so they must never see its secrets
+                if (!this.params.getSensitiveVariables().isEmpty()) {
+                    this.params.getTaskListener().getLogger()
+                            .println("Credentials are bound to this step, so MATLAB is not run in a pooled session.");
+                } else if (ticket.isLimited()) {
+                    // An idle session keeps its license checked out after the
+                    // ticket is returned, so license pools would undercount
+                    this.params.getTaskListener().getLogger()
+                            .println("A license pool limits this step, so MATLAB is not run in a pooled session.");
+                } else {
+                    code = runInSession(exePath, cmd, startupOptions, env);
+                }
+            }
 
-        int code = proc.join();
+            if (code == null) {
+                ProcStarter proc = this.params.getLauncher().launch()
+                        .envs(env)
+                        .cmds(args);
+                if (this.stdOut == null) {
+                    proc.stdout(this.params.getTaskListener());
+                } else {
+                    proc.stdout(this.stdOut);
+                }
+                proc.pwd(this.params.getWorkspace());
+
+                code = proc.join();
+            }
+            long millis = (System.nanoTime() - matlabStart) / 1000000;
+            this.matlabMillis = this.matlabMillis == null ? millis : this.matlabMillis + millis;
+        }
 
         if (code != 0) {
             throw new MatlabExecutionException(code);
         }
     }
 
+    /**
+     * Splits the time MATLAB ran into starting MATLAB and running the command,
+     * using the times written to the timing file on the agent. Both times come
+     * from the clock of the agent, so the clock of the controller does not
+     * matter. The time MATLAB takes to exit is part of running the command.
+     *
+     * @param timing the content of the timing file, or null if it was not read
+     */
+    private void recordMatlabPhases(String timing) {
+        if (this.matlabMillis == null) {
+            return;
+        }
+        long millis = this.matlabMillis;
+        this.matlabMillis = null;
+
+        long prepared = -1;
+        long started = -1;
+        if (timing != null) {
+            try {
+                for (String line : timing.split("\n")) {
+                    String[] fields = line.trim().split(" ");
+                    if (fields.length != 2) {
+                        continue;
+                    }
+                    if (fields[0].equals("prepared")) {
+                        prepared = Long.parseLong(fields[1]);
+                    } else if (fields[0].equals("started")) {
+                        started = Long.parseLong(fields[1]);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // Only the total is known
+                prepared = -1;
+            }
+        }
+
+        if (prepared < 0 || started < prepared) {
+            addPhaseTime(PHASE_MATLAB, millis);
+            return;
+        }
+        long startup = Math.min(started - prepared, millis);
+        addPhaseTime(PHASE_MATLAB_STARTUP, startup);
+        addPhaseTime(PHASE_COMMAND, millis - startup);
+    }
+
+    /**
+     * Adds the time since startNanos to a phase.
+     *
+     * @param phase      the phase name
+     * @param startNanos the System.nanoTime() when the phase started
+     */
+    public void recordPhase(String phase, long startNanos) {
+        addPhaseTime(phase, (System.nanoTime() - startNanos) / 1000000);
+    }
+
+    private void addPhaseTime(String phase, long millis) {
+        phaseTimes.merge(phase, millis, Long::sum);
+    }
+
+    /**
+     * Returns the milliseconds spent in each phase so far, in the order the
+     * phases were first recorded.
+     */
+    public Map<String, Long> getPhaseTimes() {
+        return Collections.unmodifiableMap(phaseTimes);
+    }
+
+    /**
+     * Runs the command in a warm MATLAB session on the agent.
+     *
+     * @return the exit code, or null if no session was available
+     */
+    private Integer runInSession(FilePath exePath, String cmd, String[] startupOptions, EnvVars env)
+            throws IOException, InterruptedException {
+        OutputStream out = this.stdOut == null
+                ? this.params.getTaskListener().getLogger()
+                : this.stdOut;
+        Run<?, ?> build = this.params.getBuild();
+
+        return this.tempFolder.act(new RunMatlabSessionCommand(
+                exePath.getRemote(),
+                cmd,
+                Arrays.asList(startupOptions),
+                build == null ? "" : build.getParent().getFullName(),
+                this.params.getWorkspace().getRemote(),
+                env,
+                new RemoteOutputStream(out),
+                MatlabSessionPool.MAX_SESSIONS,
+                MatlabSessionPool.IDLE_TIMEOUT_MINUTES,
+                MatlabSessionPool.COMMAND_TIMEOUT_MINUTES));
+    }
+
     /**
      * Redirects stdout.
      *
@@ -126,6 +294,27 @@ public class MatlabCommandRunner {
         return env;
     }
 
+    /**
+     * Copies a resource into the temporary folder when the command is run. Unlike
+     * copyFileToTempFolder this does not cost an extra call to the agent.
+     *
+     * @param sourceFile the name of a resource the class loader can find.
+     * @param targetFile the name of the file to create in the temp folder.
+     */
+    public void addResourceToTempFolder(String sourceFile, String targetFile) {
+        tempFolderResources.put(targetFile, sourceFile);
+    }
+
+    /**
+     * Writes a file into the temporary folder when the command is run.
+     *
+     * @param targetFile the name of the file to create in the temp folder.
+     * @param content    the text of the file, written as UTF-8.
+     */
+    public void addFileToTempFolder(String targetFile, String content) {
+        tempFolderFiles.put(targetFile, content);
+    }
+
     /**
      * Copies a resource into the temporary folder.
      *
@@ -144,29 +333,47 @@ public class MatlabCommandRunner {
         return targetFilePath;
     }
 
+    /**
+     * Returns a folder with the contents of a zip resource, extracted once per
+     * agent into the resource cache. The folder is shared between runs and must
+     * not be modified.
+     *
+     * @param sourceFile the name of a zip resource the class loader can find.
+     * @return the FilePath to the extracted folder.
+     */
+    public FilePath getExtractedResource(String sourceFile) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        FilePath folder = ResourceCache.getExtractedResource(
+                ResourceCache.getRoot(this.params.getWorkspace()),
+                sourceFile);
+        recordPhase(PHASE_SETUP, start);
+        return folder;
+    }
+
     public FilePath getTempFolder() {
         return tempFolder;
     }
 
+    /**
+     * Removes the temp folder in the background on the agent, together with
+     * temp folders earlier runs left behind. The folder is gone when this
+     * returns, but its contents may not be deleted yet. The same call returns
+     * the timing file, which splits the time MATLAB ran into phases.
+     */
     public void removeTempFolder() throws IOException, InterruptedException {
-        if (tempFolder.exists()) {
-            tempFolder.deleteRecursive();
+        String timing = null;
+        try {
+            timing = tempFolder.act(new RemoveTempFolder(TimeUnit.HOURS.toMillis(STALE_TEMP_FOLDER_HOURS)));
+        } finally {
+            recordMatlabPhases(timing);
         }
     }
 
     /**
-     * Creates a file with the specified content in the temporary folder.
-     *
-     * Additionally, the file content will be prefixed with a statement returning to
-     * the MATLAB starting folder.
-     *
-     * @param content string that represents the content of the file.
-     * @return the FilePath to the script file that is created.
+     * Returns the content of the script file for the specified command, and
+     * echoes it to the build log.
      */
-    protected FilePath createFileWithContent(String content) throws IOException, InterruptedException {
-        String fileName = "script_" + RandomStringUtils.randomAlphanumeric(8) + ".m";
-        FilePath scriptFile = new FilePath(this.tempFolder, fileName);
-
+    private String getScriptContent(String content) {
         String expandedContent = getEnvVars().expand(content);
         String finalContent = "cd(getenv('MW_ORIG_WORKING_FOLDER'));\n"
                 + expandedContent;
@@ -174,52 +381,56 @@ public class MatlabCommandRunner {
         this.params.getTaskListener().getLogger()
                 .println("Generating MATLAB script with content:\n" + expandedContent + "\n\n");
 
-        scriptFile.write(finalContent, "UTF-8");
-
-        return scriptFile;
+        return finalContent;
     }
 
     /**
-     * Copies platform specific runner file into the temporary folder.
-     *
-     * @return the FilePath to the runner executable
+     * Returns the name of the runner resource for the platform of the agent.
+     * The platform cannot change while the agent stays connected, so it is only
+     * detected once per connection.
      */
-    protected FilePath prepareRunnerExecutable() throws IOException, InterruptedException {
+    private String getRunnerSource() throws IOException, InterruptedException {
         Launcher launcher = this.params.getLauncher();
-        if (launcher.isUnix()) {
-            // Run uname to check if we're on Linux
-            ByteArrayOutputStream kernelStream = new ByteArrayOutputStream();
-
-            ArgumentListBuilder args = new ArgumentListBuilder();
-            args.add("uname");
-            args.add("-s");
-            args.add("-m");
-
-            launcher.launch()
-                    .cmds(args)
-                    .masks(true, true, true)
-                    .stdout(kernelStream)
-                    .join();
-
-            String runnerSource;
-            String kernelArch = kernelStream.toString("UTF-8");
-            if (kernelArch.contains("Linux")) {
-                runnerSource = "glnxa64/run-matlab-command";
-            } else if (kernelArch.contains("arm64")) {
-                runnerSource = "maca64/run-matlab-command";
-            } else {
-                runnerSource = "maci64/run-matlab-command";
+        if (!launcher.isUnix()) {
+            return "win64/run-matlab-command.exe";
+        }
+
+        Computer computer = this.params.getWorkspace().toComputer();
+        VirtualChannel channel = computer == null ? null : computer.getChannel();
+        if (channel != null) {
+            String cached = runnerSources.get(channel);
+            if (cached != null) {
+                return cached;
             }
+        }
 
-            String dest = "run-matlab-command";
-            copyFileToTempFolder(runnerSource, dest);
+        // Run uname to check if we're on Linux
+        ByteArrayOutputStream kernelStream = new ByteArrayOutputStream();
 
-            return new FilePath(this.tempFolder, dest);
+        ArgumentListBuilder args = new ArgumentListBuilder();
+        args.add("uname");
+        args.add("-s");
+        args.add("-m");
+
+        launcher.launch()
+                .cmds(args)
+                .masks(true, true, true)
+                .stdout(kernelStream)
+                .join();
+
+        String runnerSource;
+        String kernelArch = kernelStream.toString("UTF-8");
+        if (kernelArch.contains("Linux")) {
+            runnerSource = "glnxa64/run-matlab-command";
+        } else if (kernelArch.contains("arm64")) {
+            runnerSource = "maca64/run-matlab-command";
+        } else {
+            runnerSource = "maci64/run-matlab-command";
         }
 
-        // Windows
-        String dest = "run-matlab-command.exe";
-        copyFileToTempFolder("win64/run-matlab-command.exe", dest);
-        return new FilePath(this.tempFolder, dest);
+        if (channel != null) {
+            runnerSources.put(channel, runnerSource);
+        }
+        return runnerSource;
     }
 }
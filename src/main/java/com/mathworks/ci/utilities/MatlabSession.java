@@ -0,0 +1,251 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ *
+ * A long-lived MATLAB process on an agent that runs one command at a time.
+ * Requests, output, and exit codes are exchanged through files in the
+ * session folder, see serveMatlabSession.m.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.mathworks.ci.MatlabBuilderConstants;
+
+public class MatlabSession {
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    // Variables Jenkins uses to find and kill processes spawned by a build.
+    // Sessions outlive builds, so they must never carry them.
+    static final List<String> PROCESS_COOKIES = Arrays.asList(
+            "BUILD_ID", "JENKINS_NODE_COOKIE", "JENKINS_SERVER_COOKIE");
+
+    // Variables MATLAB needs to start. Sessions are shared between builds, so
+    // they start with these only, and every other variable of a build, such
+    // as bound credentials, is only set while a command of that build runs.
+    static final List<String> STARTUP_VARIABLES = Arrays.asList(
+            "PATH", "HOME", "USER", "LOGNAME", "USERNAME", "USERPROFILE", "HOMEDRIVE", "HOMEPATH",
+            "TMP", "TEMP", "TMPDIR", "LANG", "LC_ALL", "LC_CTYPE", "DISPLAY",
+            "SystemRoot", "SystemDrive", "windir", "ComSpec", "PATHEXT", "APPDATA", "LOCALAPPDATA",
+            "ProgramData", "ProgramFiles", "ProgramFiles(x86)",
+            "MLM_LICENSE_FILE", "LM_LICENSE_FILE");
+
+    private final String key;
+    private final File folder;
+    private final Process process;
+    private long lastUsed;
+
+    MatlabSession(String key, File folder, Process process) {
+        this.key = key;
+        this.folder = folder;
+        this.process = process;
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Starts a MATLAB process that serves requests from the specified folder.
+     *
+     * @param key            the pool key the session is started for
+     * @param folder         an empty folder owned by the session
+     * @param runner         the run-matlab-command executable to start MATLAB with
+     * @param startupOptions MATLAB startup options, split into arguments
+     * @param env            the environment of the command the session is
+     *                       started for, of which only the startup variables
+     *                       are used
+     * @return the started session
+     */
+    public static MatlabSession start(String key, File folder, File runner, List<String> startupOptions,
+            Map<String, String> env) throws IOException {
+        File sessionRunner = new File(folder, runner.getName());
+        Files.copy(runner.toPath(), sessionRunner.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        sessionRunner.setExecutable(true);
+
+        File server = new File(folder, MatlabBuilderConstants.SESSION_SERVER);
+        server.getParentFile().mkdirs();
+        try (InputStream in = MatlabSession.class.getClassLoader()
+                .getResourceAsStream(MatlabBuilderConstants.SESSION_SERVER)) {
+            Files.copy(in, server.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        String sessionFolder = folder.getAbsolutePath().replace("'", "''");
+        List<String> cmds = new ArrayList<String>();
+        cmds.add(sessionRunner.getAbsolutePath());
+        cmds.add("addpath('" + sessionFolder + "'); ciplugins.jenkins.serveMatlabSession('" + sessionFolder + "')");
+        cmds.addAll(startupOptions);
+
+        ProcessBuilder pb = new ProcessBuilder(cmds)
+                .directory(folder)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(folder, "session.log"));
+        pb.environment().clear();
+        pb.environment().putAll(getStartupEnvironment(env));
+
+        return new MatlabSession(key, folder, pb.start());
+    }
+
+    /**
+     * Returns the variables of an environment that a session starts with, by
+     * name. Names are matched without case, as Windows does.
+     */
+    static Map<String, String> getStartupEnvironment(Map<String, String> env) {
+        Map<String, String> startupEnv = new TreeMap<String, String>();
+        for (Map.Entry<String, String> e : env.entrySet()) {
+            for (String name : STARTUP_VARIABLES) {
+                if (name.equalsIgnoreCase(e.getKey())) {
+                    startupEnv.put(e.getKey(), e.getValue());
+                }
+            }
+        }
+        return startupEnv;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Runs a command in the session and copies its output as it is produced.
+     *
+     * @param workspace the folder to run the command from
+     * @param env       the environment variables to set for the command
+     * @param command   the MATLAB statement to evaluate
+     * @param out       the stream to copy command output to
+     * @param timeoutMs the time the command may take, or 0 for no limit
+     * @return the exit code of the command
+     */
+    public int run(String workspace, Map<String, String> env, String command, OutputStream out, long timeoutMs)
+            throws IOException, InterruptedException {
+        File log = new File(folder, "job.log");
+        File status = new File(folder, "status");
+        Files.deleteIfExists(log.toPath());
+        Files.deleteIfExists(status.toPath());
+
+        writeRequest(workspace, env, command);
+
+        long offset = 0;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        try {
+            while (true) {
+                boolean done = status.exists();
+                offset = copyNewOutput(log, offset, out);
+                if (done) {
+                    break;
+                }
+                if (!process.isAlive()) {
+                    // MATLAB went away mid-command, e.g. the command called exit.
+                    copyNewOutput(new File(folder, "session.log"), 0, out);
+                    return process.exitValue();
+                }
+                if (timeoutMs > 0 && System.currentTimeMillis() > deadline) {
+                    // The command cannot be stopped on its own, so the session goes
+                    kill();
+                    throw new IOException(String.format(
+                            "The MATLAB command did not finish within %d minutes and was stopped.",
+                            TimeUnit.MILLISECONDS.toMinutes(timeoutMs)));
+                }
+                Thread.sleep(POLL_INTERVAL_MS);
+            }
+        } catch (InterruptedException e) {
+            // There is no way to interrupt the running command, so the
+            // session cannot be reused.
+            kill();
+            throw e;
+        } finally {
+            lastUsed = System.currentTimeMillis();
+        }
+
+        int code = Integer.parseInt(new String(Files.readAllBytes(status.toPath()), StandardCharsets.UTF_8).trim());
+        Files.delete(status.toPath());
+        return code;
+    }
+
+    /**
+     * Asks MATLAB to exit and kills it if it does not do so in time.
+     */
+    public void shutdown() {
+        try {
+            new File(folder, "shutdown").createNewFile();
+            if (!process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                kill();
+            }
+        } catch (IOException | InterruptedException e) {
+            kill();
+        }
+        deleteFolder(folder);
+    }
+
+    void kill() {
+        process.destroyForcibly();
+    }
+
+    void writeRequest(String workspace, Map<String, String> env, String command) throws IOException {
+        StringBuilder request = new StringBuilder();
+        request.append("cd:").append(workspace).append('\n');
+        for (Map.Entry<String, String> e : env.entrySet()) {
+            String value = e.getValue();
+            // The request is line based, skip what cannot be represented.
+            if (PROCESS_COOKIES.contains(e.getKey()) || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                continue;
+            }
+            request.append("env:").append(e.getKey()).append('=').append(value).append('\n');
+        }
+        request.append("cmd:").append(command).append('\n');
+
+        // Write then rename so MATLAB never sees a partial request.
+        File tmp = new File(folder, "request.tmp");
+        Files.write(tmp.toPath(), request.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp.toPath(), new File(folder, "request").toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long copyNewOutput(File file, long offset, OutputStream out) throws IOException {
+        if (!file.exists()) {
+            return offset;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() <= offset) {
+                return offset;
+            }
+            raf.seek(offset);
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = raf.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+                offset += n;
+            }
+            out.flush();
+        }
+        return offset;
+    }
+
+    private static void deleteFolder(File dir) {
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteFolder(child);
+            }
+        }
+        dir.delete();
+    }
+}
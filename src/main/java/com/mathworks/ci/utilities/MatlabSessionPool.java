@@ -0,0 +1,158 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ *
+ * Agent-side pool of warm MATLAB sessions. The pool is opt-in and configured
+ * on the controller with the following system properties:
+ *
+ * com.mathworks.ci.utilities.MatlabSessionPool.enabled - reuse sessions (default false)
+ * com.mathworks.ci.utilities.MatlabSessionPool.maxSessions - sessions per agent (default 2)
+ * com.mathworks.ci.utilities.MatlabSessionPool.idleTimeoutMinutes - idle time before a session exits (default 30)
+ * com.mathworks.ci.utilities.MatlabSessionPool.commandTimeoutMinutes - time a command may take before its session is stopped (default 1440)
+ *
+ * Sessions are only shared between builds of the same project. Steps with
+ * bound credentials never use them, and neither do steps limited by a license
+ * pool of MatlabLicenseLimiter, because an idle session keeps its license
+ * checked out.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class MatlabSessionPool {
+    public static final boolean ENABLED = Boolean.getBoolean(MatlabSessionPool.class.getName() + ".enabled");
+    public static final int MAX_SESSIONS = Integer.getInteger(MatlabSessionPool.class.getName() + ".maxSessions", 2);
+    public static final long IDLE_TIMEOUT_MINUTES = Long
+            .getLong(MatlabSessionPool.class.getName() + ".idleTimeoutMinutes", 30);
+    public static final long COMMAND_TIMEOUT_MINUTES = Long
+            .getLong(MatlabSessionPool.class.getName() + ".commandTimeoutMinutes", 1440);
+
+    private static MatlabSessionPool instance;
+
+    private final List<MatlabSession> idle = new ArrayList<MatlabSession>();
+    private int size;
+    private long idleTimeoutMillis = TimeUnit.MINUTES.toMillis(IDLE_TIMEOUT_MINUTES);
+    private ScheduledExecutorService reaper;
+
+    MatlabSessionPool() {
+    }
+
+    /**
+     * Returns the pool of the JVM this is called in. Only meaningful on the agent
+     * that runs MATLAB.
+     */
+    public static synchronized MatlabSessionPool get() {
+        if (instance == null) {
+            instance = new MatlabSessionPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Takes an idle session for the key out of the pool, starting a new one if
+     * the pool has room.
+     *
+     * @return the session, or null when every slot is busy
+     */
+    public MatlabSession acquire(String key, int maxSessions, long idleTimeoutMinutes, File runner,
+            List<String> startupOptions, Map<String, String> env) throws IOException {
+        MatlabSession evicted = null;
+        synchronized (this) {
+            this.idleTimeoutMillis = TimeUnit.MINUTES.toMillis(idleTimeoutMinutes);
+            startReaper();
+
+            Iterator<MatlabSession> it = idle.iterator();
+            while (it.hasNext()) {
+                MatlabSession s = it.next();
+                if (!s.isAlive()) {
+                    it.remove();
+                    size--;
+                } else if (s.getKey().equals(key)) {
+                    it.remove();
+                    return s;
+                }
+            }
+
+            if (size >= maxSessions) {
+                if (idle.isEmpty()) {
+                    return null;
+                }
+                // Make room by retiring the least recently used idle session.
+                evicted = idle.remove(0);
+                size--;
+            }
+            size++;
+        }
+
+        if (evicted != null) {
+            evicted.shutdown();
+        }
+
+        try {
+            File folder = Files.createTempDirectory("matlab-session").toFile();
+            return MatlabSession.start(key, folder, runner, startupOptions, env);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                size--;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a session to the pool after use.
+     */
+    public void release(MatlabSession session) {
+        synchronized (this) {
+            if (session.isAlive()) {
+                idle.add(session);
+                return;
+            }
+            size--;
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void startReaper() {
+        if (reaper != null) {
+            return;
+        }
+        reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "MATLAB session reaper");
+            t.setDaemon(true);
+            return t;
+        });
+        reaper.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    void evictIdle() {
+        List<MatlabSession> expired = new ArrayList<MatlabSession>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            Iterator<MatlabSession> it = idle.iterator();
+            while (it.hasNext()) {
+                MatlabSession s = it.next();
+                if (!s.isAlive() || now - s.getLastUsed() > idleTimeoutMillis) {
+                    it.remove();
+                    size--;
+                    expired.add(s);
+                }
+            }
+        }
+        for (MatlabSession s : expired) {
+            s.shutdown();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import com.mathworks.ci.CoberturaMerger;
+
+/**
+ * Merges the Cobertura reports in the workspace that match a pattern into one
+ * report, on the agent, so the reports are never copied to the controller.
+ * Returns the number of reports merged. Nothing is written when no report
+ * matches.
+ */
+public class MergeCoverageFiles extends MasterToSlaveFileCallable<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String files;
+    private final String output;
+
+    /**
+     * @param files  Ant pattern of the reports, relative to the workspace
+     * @param output the merged report, relative to the workspace
+     */
+    public MergeCoverageFiles(String files, String output) {
+        this.files = files;
+        this.output = output;
+    }
+
+    @Override
+    public Integer invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+        File outputFile = new File(workspace, output).getCanonicalFile();
+
+        CoberturaMerger merger = new CoberturaMerger();
+        int count = 0;
+        for (FilePath report : new FilePath(workspace).list(files)) {
+            // An earlier merged report must not be merged into the new one
+            if (new File(report.getRemote()).getCanonicalFile().equals(outputFile)) {
+                continue;
+            }
+            try (InputStream in = report.read()) {
+                merger.add(in);
+            }
+            count++;
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        // Write a copy first, so readers never see a partly written report
+        Files.createDirectories(outputFile.getParentFile().toPath());
+        File temp = new File(outputFile.getPath() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp.toPath())) {
+            merger.write(out);
+        }
+        Files.move(temp.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import com.mathworks.ci.MatlabBuilderConstants;
+
+/**
+ * Prepares everything a command needs in the temp folder in a single call to
+ * the agent: creates the workspace and temp folder, copies plugin resources,
+ * writes the script and other files, and makes sure the runner is in the agent cache.
+ * The folder is locked until RemoveTempFolder removes it. Returns the path to
+ * the runner executable.
+ *
+ * The time the folder was ready is written to the timing file, using the
+ * clock of the agent so it can be compared with the times MATLAB writes.
+ */
+public class PrepareTempFolder extends MasterToSlaveFileCallable<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String workspace;
+    private final String cacheRoot;
+    private final String runnerSource;
+    private final String runnerDigest;
+    private final String scriptName;
+    private final String scriptContent;
+    private final LinkedHashMap<String, String> resources;
+    private final LinkedHashMap<String, String> files;
+
+    /**
+     * @param workspace     the workspace to create if it does not exist
+     * @param cacheRoot     the resource cache folder of the agent
+     * @param runnerSource  the runner resource for the platform of the agent
+     * @param runnerDigest  the digest of the runner resource
+     * @param scriptName    the name of the script file to write
+     * @param scriptContent the content of the script file
+     * @param resources     resources to copy, keyed by target file name
+     * @param files         contents of files to write, keyed by file name
+     */
+    public PrepareTempFolder(String workspace, String cacheRoot, String runnerSource, String runnerDigest,
+            String scriptName, String scriptContent, Map<String, String> resources, Map<String, String> files) {
+        this.workspace = workspace;
+        this.cacheRoot = cacheRoot;
+        this.runnerSource = runnerSource;
+        this.runnerDigest = runnerDigest;
+        this.scriptName = scriptName;
+        this.scriptContent = scriptContent;
+        this.resources = new LinkedHashMap<String, String>(resources);
+        this.files = new LinkedHashMap<String, String>(files);
+    }
+
+    @Override
+    public String invoke(File tempFolder, VirtualChannel channel) throws IOException {
+        // Handle case where workspace doesn't exist
+        Files.createDirectories(new File(workspace).toPath());
+        Files.createDirectories(tempFolder.toPath());
+        TempFolderLock.lock(tempFolder);
+
+        for (Map.Entry<String, String> resource : resources.entrySet()) {
+            File target = new File(tempFolder, resource.getKey());
+            Files.createDirectories(target.getParentFile().toPath());
+            try (InputStream in = ResourceCache.getResourceAsStream(resource.getValue())) {
+                Files.copy(in, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Files.write(new File(tempFolder, file.getKey()).toPath(),
+                    file.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+
+        Files.write(new File(tempFolder, scriptName).toPath(), scriptContent.getBytes(StandardCharsets.UTF_8));
+
+        String runnerName = runnerSource.substring(runnerSource.indexOf('/') + 1);
+        String exe = ResourceCache.getLocalResource(new File(cacheRoot), runnerDigest, runnerSource, runnerName)
+                .getPath();
+
+        Files.write(new File(tempFolder, MatlabBuilderConstants.TIMING_FILE).toPath(),
+                ("prepared " + System.currentTimeMillis() + "\n").getBytes(StandardCharsets.UTF_8));
+        return exe;
+    }
+}
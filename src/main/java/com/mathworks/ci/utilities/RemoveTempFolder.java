@@ -0,0 +1,161 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import com.mathworks.ci.MatlabBuilderConstants;
+
+/**
+ * Removes a temp folder without making the step wait for it. The folder is
+ * renamed, which is immediate, and deleted by a background thread on the
+ * agent.
+ *
+ * Folders left behind when an agent stopped before a deletion finished, or
+ * when a step never got to clean up, are deleted as well: renamed folders
+ * right away, and temp folders once nobody holds their lock, see
+ * TempFolderLock. Folders of earlier versions have no lock file, and are
+ * deleted once they have not changed for a while. Those versions named them
+ * with FilePath.createTempDir, which adds a random number to the prefix.
+ *
+ * The timing file of the folder is returned, so the step does not need
+ * another call to the agent to read it.
+ */
+public class RemoveTempFolder extends MasterToSlaveFileCallable<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = Logger.getLogger(RemoveTempFolder.class.getName());
+
+    // Suffix of temp folders waiting to be deleted
+    static final String TRASH_SUFFIX = ".trash";
+
+    // Names of the temp folders MatlabCommandRunner creates, and of those
+    // earlier versions created
+    private static final Pattern TEMP_FOLDER = Pattern.compile(
+            "matlab([A-Za-z0-9]{8}|[0-9]+)(\\" + TRASH_SUFFIX + ")?");
+
+    // Deletions queued on the agent before callers delete the folder themselves
+    private static final int QUEUE_SIZE = 64;
+
+    // Seconds a stopping agent waits for queued deletions
+    private static final long SHUTDOWN_SECONDS = 5;
+
+    private static final ThreadPoolExecutor reaper = createReaper();
+
+    // Folders being deleted, so a sweep does not queue them again
+    private static final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final long staleMillis;
+
+    /**
+     * @param staleMillis how long a temp folder must be unchanged before a
+     *                    sweep deletes it
+     */
+    public RemoveTempFolder(long staleMillis) {
+        this.staleMillis = staleMillis;
+    }
+
+    @Override
+    public String invoke(File tempFolder, VirtualChannel channel) throws IOException {
+        File parent = tempFolder.getParentFile();
+
+        String timing = null;
+        File timingFile = new File(tempFolder, MatlabBuilderConstants.TIMING_FILE);
+        if (timingFile.isFile()) {
+            timing = new String(Files.readAllBytes(timingFile.toPath()), StandardCharsets.UTF_8);
+        }
+
+        TempFolderLock.unlock(tempFolder);
+        if (tempFolder.exists()) {
+            File trash = new File(parent, tempFolder.getName() + TRASH_SUFFIX);
+
+            // A file still in use can prevent the rename on Windows
+            delete(tempFolder.renameTo(trash) ? trash : tempFolder);
+        }
+
+        File[] stale = parent == null ? null : parent.listFiles(f -> f.isDirectory()
+                && TEMP_FOLDER.matcher(f.getName()).matches()
+                && (f.getName().endsWith(TRASH_SUFFIX) || isLeftBehind(f)));
+        if (stale != null) {
+            for (File folder : stale) {
+                delete(folder);
+            }
+        }
+        return timing;
+    }
+
+    private boolean isLeftBehind(File folder) {
+        Boolean released = TempFolderLock.isReleased(folder);
+        if (released != null) {
+            return released;
+        }
+        return folder.lastModified() < System.currentTimeMillis() - staleMillis;
+    }
+
+    private static void delete(File folder) throws IOException {
+        if (!pending.add(folder.getPath())) {
+            return;
+        }
+        try {
+            reaper.execute(() -> {
+                try {
+                    Util.deleteRecursive(folder);
+                } catch (IOException e) {
+                    // Tried again by the next sweep
+                    LOGGER.log(Level.WARNING, "Unable to delete the MATLAB temp folder " + folder, e);
+                } finally {
+                    pending.remove(folder.getPath());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Too much is queued already, the caller has to wait
+            try {
+                Util.deleteRecursive(folder);
+            } finally {
+                pending.remove(folder.getPath());
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor createReaper() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_SIZE),
+                r -> {
+                    Thread t = new Thread(r, "MATLAB temp folder reaper");
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        // Give queued deletions a few seconds to finish when the agent stops,
+        // the rest are swept up by the next step on the agent
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "MATLAB temp folder reaper shutdown"));
+        return executor;
+    }
+}
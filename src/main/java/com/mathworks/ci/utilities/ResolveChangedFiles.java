@@ -0,0 +1,97 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Makes the paths of changed files relative to the workspace, on the agent.
+ * Source control reports them relative to the root of the repository, which
+ * is the workspace itself, a folder the repository was checked out to inside
+ * the workspace, or a folder above the workspace. Files outside the workspace
+ * start with ../ and paths are left as they are if no single repository is
+ * found.
+ */
+public class ResolveChangedFiles extends MasterToSlaveFileCallable<List<String>> {
+
+    private static final long serialVersionUID = 1L;
+
+    // Folders or files that mark the root of a repository
+    private static final List<String> REPOSITORY_MARKERS = Arrays.asList(".git", ".hg", ".svn");
+
+    private final List<String> paths;
+
+    /**
+     * @param paths the changed files, relative to the root of the repository
+     */
+    public ResolveChangedFiles(Collection<String> paths) {
+        this.paths = new ArrayList<String>(paths);
+    }
+
+    @Override
+    public List<String> invoke(File workspace, VirtualChannel channel) throws IOException {
+        File root = findRepository(workspace);
+        if (root == null || root.equals(workspace)) {
+            return this.paths;
+        }
+
+        Path base = workspace.toPath().toAbsolutePath().normalize();
+        Path rootPath = root.toPath().toAbsolutePath().normalize();
+        List<String> resolved = new ArrayList<String>();
+        for (String path : this.paths) {
+            Path file = rootPath.resolve(path.replace('\\', '/')).normalize();
+            resolved.add(base.relativize(file).toString().replace('\\', '/'));
+        }
+        return resolved;
+    }
+
+    private static File findRepository(File workspace) {
+        if (isRepository(workspace)) {
+            return workspace;
+        }
+
+        // A checkout to a subfolder, as long as it is the only one
+        File checkout = null;
+        File[] children = workspace.listFiles(File::isDirectory);
+        if (children != null) {
+            for (File child : children) {
+                if (isRepository(child)) {
+                    if (checkout != null) {
+                        return null;
+                    }
+                    checkout = child;
+                }
+            }
+        }
+        if (checkout != null) {
+            return checkout;
+        }
+
+        for (File folder = workspace.getParentFile(); folder != null; folder = folder.getParentFile()) {
+            if (isRepository(folder)) {
+                return folder;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRepository(File folder) {
+        for (String marker : REPOSITORY_MARKERS) {
+            if (new File(folder, marker).exists()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
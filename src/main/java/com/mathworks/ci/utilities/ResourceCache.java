@@ -0,0 +1,199 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ *
+ * Keeps read-only copies of plugin resources on agents, keyed by the content
+ * digest of the resource, so each agent receives a resource once per plugin
+ * version rather than once per step.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.apache.commons.lang.RandomStringUtils;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.WorkspaceList;
+import jenkins.MasterToSlaveFileCallable;
+
+public class ResourceCache {
+    private static final String CACHE_FOLDER = "caches/matlab";
+
+    private static final Map<String, String> digests = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Returns the cache folder of the agent that owns the workspace. Falls back to
+     * the workspace temp folder when the agent cannot be determined.
+     *
+     * @param workspace a folder on the agent
+     * @return the cache folder
+     */
+    public static FilePath getRoot(FilePath workspace) throws IOException {
+        FilePath root = null;
+        Computer computer = workspace.toComputer();
+        if (computer != null) {
+            Node node = computer.getNode();
+            root = node == null ? null : node.getRootPath();
+        }
+        if (root == null) {
+            root = WorkspaceList.tempDir(workspace);
+        }
+        if (root == null) {
+            throw new IOException("Unable to locate cache directory for " + workspace.getRemote());
+        }
+        return new FilePath(root, CACHE_FOLDER);
+    }
+
+    /**
+     * Returns the digest of a resource the class loader can find. Resources do not
+     * change while the plugin is loaded, so the digest is computed only once.
+     *
+     * @param resource the name of the resource
+     * @return the hex encoded digest
+     */
+    public static String getDigest(String resource) throws IOException {
+        String digest = digests.get(resource);
+        if (digest == null) {
+            try (InputStream in = getResourceAsStream(resource)) {
+                digest = Util.getDigestOf(in);
+            }
+            digests.put(resource, digest);
+        }
+        return digest;
+    }
+
+    /**
+     * Returns a read-only copy of the resource in the cache, copying it only if
+     * no copy with the same content exists yet. Runs on the agent, inside
+     * callables such as PrepareTempFolder.
+     *
+     * @param root       the cache folder
+     * @param digest     the digest of the resource, see getDigest
+     * @param resource   the name of a resource the class loader can find
+     * @param targetFile the name of the file to create
+     * @return the cached copy
+     */
+    public static File getLocalResource(File root, String digest, String resource, String targetFile)
+            throws IOException {
+        File folder = new File(root, digest);
+        File target = new File(folder, targetFile);
+        if (target.exists()) {
+            return target;
+        }
+
+        // Copy under a unique name and rename, so concurrent steps on the same
+        // agent never see a partially written file.
+        Files.createDirectories(folder.toPath());
+        File tmp = new File(folder, targetFile + "." + RandomStringUtils.randomAlphanumeric(8) + ".tmp");
+        try (InputStream in = getResourceAsStream(resource)) {
+            Files.copy(in, tmp.toPath());
+        }
+        tmp.setExecutable(true, false);
+        tmp.setWritable(false, false);
+        try {
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Another step may have published the same content first.
+            Files.deleteIfExists(tmp.toPath());
+            if (!target.exists()) {
+                throw e;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Returns a folder in the cache with the contents of a zip resource,
+     * extracting it only if no folder for the same content exists yet.
+     *
+     * @param root     the cache folder
+     * @param resource the name of a zip resource the class loader can find
+     * @return the FilePath to the extracted folder
+     */
+    public static FilePath getExtractedResource(FilePath root, String resource)
+            throws IOException, InterruptedException {
+        String path = root.act(new GetExtractedResource(getDigest(resource), resource));
+        return new FilePath(root.getChannel(), path);
+    }
+
+    /**
+     * Agent-side counterpart of getExtractedResource.
+     *
+     * @param root     the cache folder
+     * @param digest   the digest of the resource, see getDigest
+     * @param resource the name of a zip resource the class loader can find
+     * @return the extracted folder
+     */
+    public static File getLocalExtractedResource(File root, String digest, String resource) throws IOException {
+        File folder = new File(root, digest);
+        File target = new File(folder, resource.replaceFirst("\\.zip$", ""));
+        if (target.isDirectory()) {
+            return target;
+        }
+
+        // Extract under a unique name and rename, as in getLocalResource.
+        Path tmp = new File(folder, target.getName() + "." + RandomStringUtils.randomAlphanumeric(8) + ".tmp").toPath();
+        Files.createDirectories(tmp);
+        try {
+            try (ZipInputStream zip = new ZipInputStream(getResourceAsStream(resource))) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    Path file = tmp.resolve(entry.getName()).normalize();
+                    if (!file.startsWith(tmp)) {
+                        throw new IOException("Invalid entry " + entry.getName() + " in " + resource);
+                    }
+                    if (entry.isDirectory()) {
+                        Files.createDirectories(file);
+                    } else {
+                        Files.createDirectories(file.getParent());
+                        Files.copy(zip, file);
+                    }
+                }
+            }
+            Files.move(tmp, target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Util.deleteRecursive(tmp.toFile());
+            if (!target.isDirectory()) {
+                throw e;
+            }
+        }
+        return target;
+    }
+
+    static InputStream getResourceAsStream(String resource) throws IOException {
+        InputStream in = ResourceCache.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Unable to find resource " + resource);
+        }
+        return in;
+    }
+
+    private static final class GetExtractedResource extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        private final String digest;
+        private final String resource;
+
+        GetExtractedResource(String digest, String resource) {
+            this.digest = digest;
+            this.resource = resource;
+        }
+
+        @Override
+        public String invoke(File root, VirtualChannel channel) throws IOException {
+            return getLocalExtractedResource(root, digest, resource).getPath();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import hudson.EnvVars;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Runs a command in a pooled MATLAB session on the agent that owns the temp
+ * folder. Returns null when no session is available so the caller can fall
+ * back to starting MATLAB normally.
+ */
+public class RunMatlabSessionCommand extends MasterToSlaveFileCallable<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String runner;
+    private final String command;
+    private final ArrayList<String> startupOptions;
+    private final String project;
+    private final String workspace;
+    private final EnvVars env;
+    private final OutputStream out;
+    private final int maxSessions;
+    private final long idleTimeoutMinutes;
+    private final long commandTimeoutMinutes;
+
+    /**
+     * @param startupOptions MATLAB startup options, split into arguments the
+     *                       same way as when MATLAB is started for the step
+     * @param project        the full name of the project the command runs for
+     */
+    public RunMatlabSessionCommand(String runner, String command, List<String> startupOptions, String project,
+            String workspace, EnvVars env, OutputStream out, int maxSessions, long idleTimeoutMinutes,
+            long commandTimeoutMinutes) {
+        this.runner = runner;
+        this.command = command;
+        this.startupOptions = new ArrayList<String>(startupOptions);
+        this.project = project;
+        this.workspace = workspace;
+        this.env = env;
+        this.out = out;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMinutes = idleTimeoutMinutes;
+        this.commandTimeoutMinutes = commandTimeoutMinutes;
+    }
+
+    @Override
+    public Integer invoke(File tempFolder, VirtualChannel channel) throws IOException, InterruptedException {
+        // Resolve PATH+XYZ style entries against the agent environment, the
+        // same way a launcher would.
+        EnvVars resolved = new EnvVars(EnvVars.masterEnvVars);
+        resolved.overrideAll(env);
+
+        MatlabSessionPool pool = MatlabSessionPool.get();
+        MatlabSession session = pool.acquire(
+                getKey(resolved), maxSessions, idleTimeoutMinutes, new File(runner), startupOptions, resolved);
+        if (session == null) {
+            return null;
+        }
+
+        try {
+            return session.run(workspace, resolved, command, out, TimeUnit.MINUTES.toMillis(commandTimeoutMinutes));
+        } finally {
+            pool.release(session);
+        }
+    }
+
+    /*
+     * Sessions can only be shared between commands of the same project that
+     * would have started the same MATLAB the same way.
+     */
+    String getKey(Map<String, String> resolved) {
+        StringBuilder key = new StringBuilder();
+        key.append(project).append('\n').append(String.join(" ", startupOptions)).append('\n');
+        for (Map.Entry<String, String> e : MatlabSession.getStartupEnvironment(resolved).entrySet()) {
+            key.append(e.getKey()).append('=').append(e.getValue()).append('\n');
+        }
+        return key.toString();
+    }
+}
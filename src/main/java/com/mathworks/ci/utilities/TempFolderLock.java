@@ -0,0 +1,104 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Marks a temp folder as in use for as long as a step uses it, however long
+ * that is. The folder holds a lock file that the agent keeps locked until the
+ * step removes the folder. If the agent process ends first, the operating
+ * system releases the lock, and a later sweep knows the folder was left
+ * behind.
+ *
+ * Locks are kept by this class on the agent, as closing any other channel to
+ * a lock file can release the lock the agent holds on it.
+ */
+class TempFolderLock {
+    static final String LOCK_FILE = ".lock";
+
+    private static final Logger LOGGER = Logger.getLogger(TempFolderLock.class.getName());
+
+    // Locks held on this agent, by folder path
+    private static final Map<String, FileLock> locks = new HashMap<String, FileLock>();
+
+    private TempFolderLock() {
+    }
+
+    /**
+     * Locks the folder, unless this agent holds its lock already.
+     *
+     * @param folder an existing temp folder
+     */
+    static synchronized void lock(File folder) throws IOException {
+        if (locks.containsKey(folder.getPath())) {
+            return;
+        }
+        FileChannel channel = FileChannel.open(new File(folder, LOCK_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            locks.put(folder.getPath(), channel.lock());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the lock this agent holds on the folder, if any.
+     *
+     * @param folder a temp folder
+     */
+    static synchronized void unlock(File folder) {
+        FileLock lock = locks.remove(folder.getPath());
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.channel().close();
+        } catch (IOException e) {
+            // The lock is released when the channel goes away
+            LOGGER.log(Level.FINE, "Unable to close the lock file of " + folder, e);
+        }
+    }
+
+    /**
+     * Tells whether the folder was left behind: it has a lock file that
+     * nobody holds.
+     *
+     * @param folder a temp folder
+     * @return true if the lock file is free, false if it is held, and null if
+     *         the folder has no lock file
+     */
+    static synchronized Boolean isReleased(File folder) {
+        if (locks.containsKey(folder.getPath())) {
+            return false;
+        }
+        File lockFile = new File(folder, LOCK_FILE);
+        if (!lockFile.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.WRITE)) {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                // Held by another process
+                return false;
+            }
+            lock.release();
+            return true;
+        } catch (OverlappingFileLockException | IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Hands out tokens from named pools, so no more than a set number of holders
+ * use a pool at the same time. A caller can need tokens from several pools
+ * and gets all of them at once, or waits.
+ *
+ * Waiters are served by priority, then in the order they arrived. Tokens a
+ * waiter is still waiting for are kept for it, so a request for several pools
+ * is not starved by requests for one. Later waiters go ahead only if enough
+ * tokens are left for everyone before them.
+ */
+public class TokenScheduler {
+    private final Function<String, Integer> limits;
+
+    private final Map<String, Integer> used = new HashMap<String, Integer>();
+    private final List<Waiter> waiters = new ArrayList<Waiter>();
+    private long sequence;
+
+    /**
+     * @param limits returns the number of tokens in a pool, or null if the pool
+     *               is not limited. Called every time tokens are handed out, so
+     *               limits can change while waiters are queued.
+     */
+    public TokenScheduler(Function<String, Integer> limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Tokens taken from the pools, returned by closing.
+     */
+    public final class Ticket implements AutoCloseable {
+        private final Set<String> pools;
+        private final long waitMillis;
+        private boolean closed;
+
+        private Ticket(Set<String> pools, long waitMillis) {
+            this.pools = pools;
+            this.waitMillis = waitMillis;
+        }
+
+        /**
+         * @return how long the caller waited for the tokens
+         */
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+
+        /**
+         * @return whether the ticket holds a token from any pool
+         */
+        public boolean isLimited() {
+            return !pools.isEmpty();
+        }
+
+        @Override
+        public void close() {
+            synchronized (TokenScheduler.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                for (String pool : pools) {
+                    used.merge(pool, -1, Integer::sum);
+                }
+                TokenScheduler.this.notifyAll();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final Set<String> pools;
+        final int priority;
+        final long sequence;
+
+        Waiter(Set<String> pools, int priority, long sequence) {
+            this.pools = pools;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Takes one token from each pool, waiting until all are available and no
+     * earlier or higher priority waiter needs them.
+     *
+     * @param pools    the names of the pools
+     * @param priority waiters with a higher priority are served first
+     * @return the ticket to close when done
+     */
+    public synchronized Ticket acquire(Collection<String> pools, int priority) throws InterruptedException {
+        long start = System.nanoTime();
+        Set<String> limited = new LinkedHashSet<String>();
+        for (String pool : pools) {
+            if (limits.apply(pool) != null) {
+                limited.add(pool);
+            }
+        }
+
+        Waiter waiter = new Waiter(limited, priority, sequence++);
+        int i = 0;
+        while (i < waiters.size() && (waiters.get(i).priority > priority
+                || (waiters.get(i).priority == priority && waiters.get(i).sequence < waiter.sequence))) {
+            i++;
+        }
+        waiters.add(i, waiter);
+
+        try {
+            while (!isNext(waiter)) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            waiters.remove(waiter);
+            notifyAll();
+            throw e;
+        }
+
+        waiters.remove(waiter);
+        for (String pool : waiter.pools) {
+            used.merge(pool, 1, Integer::sum);
+        }
+        // Later waiters might have been held back by this one
+        notifyAll();
+        return new Ticket(waiter.pools, (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * @return the number of callers waiting for tokens
+     */
+    public synchronized int getQueueLength() {
+        return waiters.size();
+    }
+
+    /*
+     * Whether the waiter can take its tokens now. Waiters ahead of it count as
+     * if they held their tokens already.
+     */
+    private boolean isNext(Waiter waiter) {
+        Map<String, Integer> reserved = new HashMap<String, Integer>();
+        for (Waiter w : waiters) {
+            if (w == waiter) {
+                for (String pool : w.pools) {
+                    Integer limit = limits.apply(pool);
+                    if (limit != null
+                            && used.getOrDefault(pool, 0) + reserved.getOrDefault(pool, 0) >= limit) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (String pool : w.pools) {
+                reserved.merge(pool, 1, Integer::sum);
+            }
+        }
+        return false;
+    }
+}
@@ -2,31 +2,31 @@ classdef BuildReportPlugin < matlab.buildtool.plugins.BuildRunnerPlugin
 
 %   Copyright 2024 The MathWorks, Inc.
 
-    properties
-        TaskDetails = {};
+    properties (Access=private)
+        FileID = -1;
     end
 
     methods (Access=protected)
         function runTaskGraph(plugin, pluginData)
-            runTaskGraph@matlab.buildtool.plugins.BuildRunnerPlugin(plugin, pluginData);
-
-            [fID, msg] = fopen(fullfile(getenv("MW_MATLAB_TEMP_FOLDER"),"buildArtifact.json"), "w");
+            % Write one line of JSON per task as it completes, so results
+            % never have to be collected in memory and Jenkins can read them
+            % while the build runs.
+            [fID, msg] = fopen(fullfile(getenv("MW_MATLAB_TEMP_FOLDER"),"buildArtifact.jsonl"), "w");
             if fID == -1
                 warning("ciplugins:jenkins:BuildReportPlugin:UnableToOpenFile","Could not open a file for Jenkins build result table due to: %s", msg);
             else
-                closeFile = onCleanup(@()fclose(fID));
-                a = struct();
-                a.taskDetails = plugin.TaskDetails;
-                s = jsonencode(a, PrettyPrint=true);
-                fprintf(fID, "%s", s);
+                plugin.FileID = fID;
+                closeFile = onCleanup(@()plugin.closeFile());
             end
+
+            runTaskGraph@matlab.buildtool.plugins.BuildRunnerPlugin(plugin, pluginData);
         end
 
         function runTask(plugin, pluginData)
             runTask@matlab.buildtool.plugins.BuildRunnerPlugin(plugin, pluginData);
 
             taskDetail = getCommonTaskDetail(pluginData);
-            plugin.TaskDetails = [plugin.TaskDetails, taskDetail];
+            plugin.writeTaskDetail(taskDetail);
         end
 
         function skipTask(plugin, pluginData)
@@ -34,7 +34,20 @@ classdef BuildReportPlugin < matlab.buildtool.plugins.BuildRunnerPlugin
 
             taskDetail = getCommonTaskDetail(pluginData);
             taskDetail.skipReason = pluginData.SkipReason;
-            plugin.TaskDetails = [plugin.TaskDetails, taskDetail];
+            plugin.writeTaskDetail(taskDetail);
+        end
+    end
+
+    methods (Access=private)
+        function writeTaskDetail(plugin, taskDetail)
+            if plugin.FileID ~= -1
+                fprintf(plugin.FileID, "%s\n", jsonencode(taskDetail));
+            end
+        end
+
+        function closeFile(plugin)
+            fclose(plugin.FileID);
+            plugin.FileID = -1;
         end
     end
 end
@@ -46,4 +59,4 @@ function taskDetail = getCommonTaskDetail(pluginData)
     taskDetail.failed = pluginData.TaskResults.Failed;
     taskDetail.skipped = pluginData.TaskResults.Skipped;
     taskDetail.duration = string(pluginData.TaskResults.Duration);
-end
\ No newline at end of file
+end
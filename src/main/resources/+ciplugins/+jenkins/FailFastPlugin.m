@@ -0,0 +1,40 @@
+classdef FailFastPlugin < matlab.unittest.plugins.TestRunnerPlugin
+% Skips the remaining tests after a test fails, so a run that is going to
+% fail ends as soon as possible. Skipped tests are reported as not run, and
+% the class fixtures of skipped classes are not set up.
+
+%   Copyright 2024 The MathWorks, Inc.
+
+    properties (Access=private)
+        Failed = false;
+    end
+
+    methods (Access=protected)
+        function runTestClass(plugin, pluginData)
+            if plugin.Failed
+                return;
+            end
+
+            runTestClass@matlab.unittest.plugins.TestRunnerPlugin(plugin, pluginData);
+
+            % Class setup can fail before any test of the class runs
+            if ~plugin.Failed && any([pluginData.TestResult.Failed])
+                plugin.Failed = true;
+                fprintf("Skipping the remaining tests because %s failed.\n", pluginData.Name);
+            end
+        end
+
+        function runTest(plugin, pluginData)
+            if plugin.Failed
+                return;
+            end
+
+            runTest@matlab.unittest.plugins.TestRunnerPlugin(plugin, pluginData);
+
+            if any([pluginData.TestResult.Failed])
+                plugin.Failed = true;
+                fprintf("Skipping the remaining tests because %s failed.\n", pluginData.Name);
+            end
+        end
+    end
+end
@@ -0,0 +1,46 @@
+function suite = orderTests(suite)
+% Orders tests so failures show up early: first the tests that failed the
+% last time they ran, then tests whose file changed and tests that have not
+% run before, then the remaining tests. Tests of a class stay together
+% within each of these groups, so class fixtures are not set up more often
+% than needed. Within a group, classes run from the fastest to the slowest
+% in total, and the tests of a class from the fastest to the slowest.
+%
+% The order file holds a group, the seconds a test took, and the test name,
+% separated by tabs, on each line.
+
+%   Copyright 2024 The MathWorks, Inc.
+if isempty(suite)
+    return;
+end
+
+names = string({suite.Name});
+classes = extractBefore(names + "/", "/");
+
+% Tests missing from the order file have not run before
+groups = ones(1, numel(suite));
+seconds = zeros(1, numel(suite));
+
+% The temp folder of the step holds the +ciplugins package
+tempFolder = fileparts(fileparts(fileparts(mfilename("fullpath"))));
+file = fullfile(tempFolder, "matlabTestOrder.tsv");
+if isfile(file)
+    lines = splitlines(string(fileread(file)));
+    lines = lines(count(lines, sprintf("\t")) == 2);
+    if ~isempty(lines)
+        fields = split(lines, sprintf("\t"), 2);
+        [found, where] = ismember(names, fields(:, 3)');
+        groups(found) = str2double(fields(where(found), 1));
+        seconds(found) = str2double(fields(where(found), 2));
+    end
+end
+
+% Order classes by their total time within each group, then the tests of
+% each class by their own time
+[classGroups, ~, ~] = findgroups(groups, classes);
+classSeconds = splitapply(@sum, seconds, classGroups);
+[~, order] = sortrows([groups(:), reshape(classSeconds(classGroups), [], 1), classGroups(:), seconds(:)]);
+suite = suite(order);
+
+fprintf("Running %d tests that failed the last time they ran first.\n", nnz(groups == 0));
+end
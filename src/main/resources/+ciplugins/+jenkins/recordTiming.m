@@ -0,0 +1,16 @@
+function recordTiming(event)
+% Appends the current time in milliseconds since the epoch to the timing
+% file in the current folder, so the plugin can tell how long MATLAB took to
+% start. Never errors, timing must not affect the command.
+
+%   Copyright 2024 The MathWorks, Inc.
+try
+    millis = round(1000 * posixtime(datetime("now", "TimeZone", "UTC")));
+    fid = fopen("timing.txt", "a");
+    if fid >= 0
+        fprintf(fid, "%s %d\n", event, millis);
+        fclose(fid);
+    end
+catch
+end
+end
@@ -0,0 +1,52 @@
+function runCommands(commands)
+% Runs named commands one after another in the base workspace, and writes
+% the outcome of each to the build artifact file like a build task. After a
+% command errors, the remaining commands are skipped and the error is
+% rethrown so the step fails.
+%
+%   commands - n-by-2 cell array of command names and command text
+
+%   Copyright 2024 The MathWorks, Inc.
+actionID = getenv("MW_BUILD_PLUGIN_ACTION_ID");
+[fID, msg] = fopen(fullfile(getenv("MW_MATLAB_TEMP_FOLDER"), "buildArtifact.jsonl"), "w");
+if fID == -1
+    warning("ciplugins:jenkins:runCommands:UnableToOpenFile", "Could not open a file for Jenkins build result table due to: %s", msg);
+else
+    closeFile = onCleanup(@()fclose(fID));
+end
+
+failure = [];
+failedName = "";
+for i = 1:size(commands, 1)
+    commandDetail = struct();
+    commandDetail.name = commands{i, 1};
+    commandDetail.description = commands{i, 2};
+    commandDetail.failed = false;
+    commandDetail.skipped = ~isempty(failure);
+    commandDetail.duration = "00:00:00";
+
+    if commandDetail.skipped
+        commandDetail.skipReason = "DependencyFailed";
+    else
+        % Marks the start of the command in the console, like a build task
+        disp("[MATLAB-Build-" + commandDetail.name + "-" + actionID + "]");
+        startTime = tic;
+        try
+            evalin("base", commands{i, 2});
+        catch failure
+            disp(getReport(failure));
+            commandDetail.failed = true;
+            failedName = commandDetail.name;
+        end
+        commandDetail.duration = string(duration(0, 0, toc(startTime)));
+    end
+
+    if fID ~= -1
+        fprintf(fID, "%s\n", jsonencode(commandDetail));
+    end
+end
+
+if ~isempty(failure)
+    error("ciplugins:jenkins:runCommands:CommandFailed", "Command '%s' failed.", failedName);
+end
+end
@@ -0,0 +1,49 @@
+function runSelectedTests(testScript, selection, failFast)
+% Runs a script generated by genscript with only the tests a selection picks,
+% in the order the selection puts them. genscript still finds the tests and
+% adds the plugins that write the test artifacts, so selecting tests does not
+% change either. The selection is applied as a filter to the suite the script
+% passes to the runner, and failing fast as a plugin added to that runner.
+%
+%   testScript - script generated by genscript
+%   selection  - MATLAB expression that selects tests from the variable
+%                suite, such as ciplugins.jenkins.selectTestShard(suite, 1, 2)
+%   failFast   - whether to skip the remaining tests after a test fails
+
+%   Copyright 2024 The MathWorks, Inc.
+contents = string(testScript.Contents);
+
+% The suite must be run in exactly one place, or tests could run unfiltered
+pattern = "^([ \t]*)(.*?)runner\.(run|runInParallel)\(\s*suite\s*\)";
+if numel(regexp(contents, pattern, "lineanchors", "dotexceptnewline")) ~= 1
+    error("ciplugins:jenkins:runSelectedTests:UnsupportedScript", ...
+        "Unable to select tests because the test script does not run the suite in a known way.");
+end
+
+filter = "$1suite = " + strrep(selection, "$", "\$") + ";\n";
+runMethod = "$3";
+if failFast
+    % Tests must run one after another to stop after the first failure
+    filter = filter + "$1runner.addPlugin(ciplugins.jenkins.FailFastPlugin);\n";
+    runMethod = "run";
+end
+contents = regexprep(contents, pattern, filter + "$1$2runner." + runMethod + "(suite)", ...
+    "lineanchors", "dotexceptnewline");
+
+disp('Running MATLAB script with content:');
+disp(contents);
+fprintf('___________________________________\n\n');
+
+% The temp folder of the step holds the +ciplugins package. Running a script
+% changes to its folder, so the script changes back to find the tests.
+tempFolder = fileparts(fileparts(fileparts(mfilename("fullpath"))));
+scriptFile = fullfile(tempFolder, "testSelectionScript.m");
+[fID, msg] = fopen(scriptFile, "w");
+if fID == -1
+    error("ciplugins:jenkins:runSelectedTests:UnableToOpenFile", "Could not write the test script due to: %s", msg);
+end
+fprintf(fID, "%s\n%s", "cd('" + strrep(pwd, "'", "''") + "');", contents);
+fclose(fID);
+
+evalin("base", "run('" + strrep(scriptFile, "'", "''") + "');");
+end
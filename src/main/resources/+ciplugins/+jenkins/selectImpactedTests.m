@@ -0,0 +1,118 @@
+function suite = selectImpactedTests(suite, runAll)
+% Selects the tests affected by the changes of the build, and records the
+% files each selected test file depends on for the test impact index. Test
+% files with cached results are left out, whether they are affected or not.
+% Dependencies are only looked for again when one of them changed, because
+% finding them can take longer than running the tests.
+%
+% Test files are named by their path relative to the workspace, without
+% extension. Tests are selected when the list of impacted tests marks their
+% file as impacted, or when their file is not in the list because the index
+% does not know it yet.
+%
+%   suite  - test suite to select from
+%   runAll - whether to select all tests
+
+%   Copyright 2024 The MathWorks, Inc.
+
+% The temp folder of the step holds the +ciplugins package
+tempFolder = fileparts(fileparts(fileparts(mfilename("fullpath"))));
+root = string(pwd);
+
+testFiles = strings(1, numel(suite));
+for i = 1:numel(suite)
+    parts = split(string(suite(i).TestParentName), ".");
+    parts(1:end-1) = "+" + parts(1:end-1);
+    testFiles(i) = relativePath(fullfile(suite(i).BaseFolder, parts{:}), root);
+end
+
+cachedFile = fullfile(tempFolder, "matlabCachedTests.txt");
+if isfile(cachedFile)
+    cached = splitlines(string(fileread(cachedFile)));
+    skipped = ismember(testFiles, cached);
+    suite = suite(~skipped);
+    testFiles = testFiles(~skipped);
+
+    fprintf("Skipping %d tests with cached results.\n", nnz(skipped));
+end
+
+total = numel(suite);
+if ~runAll
+    lines = readLines(fullfile(tempFolder, "matlabImpactedTests.tsv"));
+    known = extractAfter(lines, sprintf("\t"));
+    impacted = known(startsWith(lines, "1" + sprintf("\t")));
+
+    selected = ~ismember(testFiles, known) | ismember(testFiles, impacted);
+    suite = suite(selected);
+    testFiles = testFiles(selected);
+
+    fprintf("Running %d of %d tests affected by changes.\n", numel(suite), total);
+end
+
+known = readLines(fullfile(tempFolder, "matlabKnownDependencies.tsv"));
+recordDependencies(unique(testFiles), known, root, fullfile(tempFolder, "matlabTestDependencies.tsv"));
+end
+
+function recordDependencies(testFiles, known, root, file)
+% Writes the files each test file needs, relative to the workspace. Files
+% outside the workspace, such as those of installed toolboxes, are left out.
+% Test files with known dependencies keep them.
+[fID, msg] = fopen(file, "w");
+if fID == -1
+    warning("ciplugins:jenkins:selectImpactedTests:UnableToOpenFile", "Could not record test dependencies due to: %s", msg);
+    return;
+end
+closeFile = onCleanup(@()fclose(fID));
+
+for testFile = testFiles
+    knownLines = known(startsWith(known, testFile + sprintf("\t")));
+    if ~isempty(knownLines)
+        fprintf(fID, "%s\n", knownLines);
+        continue;
+    end
+
+    source = findSource(fullfile(root, testFile));
+    if source == ""
+        continue;
+    end
+
+    try
+        required = string(matlab.codetools.requiredFilesAndProducts(char(source)));
+    catch e
+        warning("ciplugins:jenkins:selectImpactedTests:AnalysisFailed", ...
+            "Could not find the dependencies of %s due to: %s", testFile, e.message);
+        continue;
+    end
+
+    fprintf(fID, "%s\t\n", testFile);
+    for dependency = required(startsWith(required, root + filesep))
+        fprintf(fID, "%s\t%s\n", testFile, relativePath(dependency, root));
+    end
+end
+end
+
+function source = findSource(testFile)
+source = "";
+for extension = [".m", ".mlx", ".p"]
+    if isfile(testFile + extension)
+        source = testFile + extension;
+        return;
+    end
+end
+end
+
+function path = relativePath(path, root)
+path = string(path);
+if startsWith(path, root + filesep)
+    path = extractAfter(path, strlength(root) + 1);
+end
+path = replace(path, filesep, "/");
+end
+
+function lines = readLines(file)
+lines = strings(0, 1);
+if isfile(file)
+    lines = splitlines(string(fileread(file)));
+    lines = lines(contains(lines, sprintf("\t")));
+end
+end
@@ -0,0 +1,69 @@
+function suite = selectTestShard(suite, shardIndex, shardCount)
+% Selects the tests of one shard. When durations of earlier runs are known,
+% tests are assigned longest first, each to the shard with the least total
+% time so far, so all shards take about the same time. Tests without a
+% known duration count as taking the median known duration. Without any
+% durations, tests are sorted by name and split into contiguous slices whose
+% sizes differ by at most one.
+%
+% Every shard makes the same assignment from the same suite and durations,
+% so together the shards run each test once.
+%
+%   suite      - test suite to split
+%   shardIndex - shard to select, from 1 to shardCount
+%   shardCount - number of shards
+
+%   Copyright 2024 The MathWorks, Inc.
+names = string({suite.Name});
+[names, order] = sort(names);
+suite = suite(order);
+total = numel(suite);
+
+durations = readDurations(names);
+known = ~isnan(durations);
+
+if any(known)
+    durations(~known) = median(durations(known));
+
+    % Stable sort, so tests of equal duration stay in name order
+    [~, byDuration] = sort(durations, "descend");
+    loads = zeros(1, shardCount);
+    owners = zeros(1, total);
+    for k = byDuration
+        [~, shard] = min(loads);
+        owners(k) = shard;
+        loads(shard) = loads(shard) + durations(k);
+    end
+    suite = suite(owners == shardIndex);
+
+    fprintf("Running %d of %d tests in shard %d of %d, expected to take %.1f of %.1f seconds.\n", ...
+        numel(suite), total, shardIndex, shardCount, loads(shardIndex), sum(loads));
+else
+    first = floor((shardIndex - 1) * total / shardCount) + 1;
+    last = floor(shardIndex * total / shardCount);
+    suite = suite(first:last);
+
+    fprintf("Running %d of %d tests in shard %d of %d.\n", numel(suite), total, shardIndex, shardCount);
+end
+end
+
+function durations = readDurations(names)
+% Seconds each test took in earlier runs, or NaN if not known. The file
+% holds a duration and a test name, separated by a tab, on each line.
+durations = NaN(1, numel(names));
+
+% The temp folder of the step holds the +ciplugins package
+tempFolder = fileparts(fileparts(fileparts(mfilename("fullpath"))));
+file = fullfile(tempFolder, "matlabTestDurations.tsv");
+if ~isfile(file)
+    return;
+end
+
+lines = splitlines(string(fileread(file)));
+lines = lines(contains(lines, sprintf("\t")));
+known = extractAfter(lines, sprintf("\t"));
+seconds = str2double(extractBefore(lines, sprintf("\t")));
+
+[found, where] = ismember(names, known);
+durations(found) = seconds(where(found));
+end
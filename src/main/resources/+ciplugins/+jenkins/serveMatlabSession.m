@@ -0,0 +1,161 @@
+function serveMatlabSession(sessionFolder)
+% Keeps MATLAB running and executes the requests that the Jenkins plugin
+% writes into sessionFolder. Each request is run with its own environment,
+% working folder, and output log, and the session is reset afterwards so
+% that nothing leaks into the next request. See applyEnvironment for the
+% one exception in releases before R2023a.
+
+%   Copyright 2024 The MathWorks, Inc.
+
+requestFile = fullfile(sessionFolder, "request");
+shutdownFile = fullfile(sessionFolder, "shutdown");
+logFile = fullfile(sessionFolder, "job.log");
+
+basePath = path;
+homeFolder = pwd;
+
+while ~isfile(shutdownFile)
+    if ~isfile(requestFile)
+        pause(0.05);
+        continue;
+    end
+
+    request = splitlines(string(fileread(requestFile)));
+    delete(requestFile);
+
+    [folder, env, command] = parseRequest(request);
+    previousEnv = applyEnvironment(env);
+
+    if isfile(logFile)
+        delete(logFile);
+    end
+    diary(char(logFile));
+    exitCode = runRequest(folder, command);
+    diary off;
+
+    restoreEnvironment(previousEnv);
+    resetSession(basePath, homeFolder);
+    writeStatus(sessionFolder, exitCode);
+end
+end
+
+function [folder, env, command] = parseRequest(request)
+    folder = "";
+    command = "";
+    env = strings(0, 2);
+    for line = request'
+        if startsWith(line, "cd:")
+            folder = extractAfter(line, "cd:");
+        elseif startsWith(line, "env:")
+            entry = extractAfter(line, "env:");
+            env(end+1, :) = [extractBefore(entry, "="), extractAfter(entry, "=")]; %#ok<AGROW>
+        elseif startsWith(line, "cmd:")
+            command = extractAfter(line, "cmd:");
+        end
+    end
+end
+
+function previousEnv = applyEnvironment(env)
+    % Remembers the whole environment, so that the variables the request
+    % sets, and those the command it runs sets, can be put back. Releases
+    % before R2023a cannot list the environment. There only the variables of
+    % the request and MW_ORIG_WORKING_FOLDER are put back, and variables the
+    % command sets with setenv carry over into the next request.
+    previousEnv.all = getAllVariables();
+
+    names = unique([env(:, 1); "MW_ORIG_WORKING_FOLDER"]);
+    previousEnv.listed = struct("name", {}, "value", {}, "isSet", {});
+    for name = names'
+        previousEnv.listed(end+1) = struct("name", name, "value", string(getenv(name)), "isSet", isSet(name));
+    end
+
+    for i = 1:size(env, 1)
+        setenv(env(i, 1), env(i, 2));
+    end
+end
+
+function restoreEnvironment(previousEnv)
+    if isa(previousEnv.all, "dictionary")
+        current = getAllVariables();
+        for name = keys(current)'
+            if ~isKey(previousEnv.all, name)
+                unsetVariable(name);
+            end
+        end
+        for name = keys(previousEnv.all)'
+            value = previousEnv.all(name);
+            if ~isKey(current, name) || current(name) ~= value
+                setenv(name, value);
+            end
+        end
+        return;
+    end
+
+    for entry = previousEnv.listed
+        if entry.isSet
+            setenv(entry.name, entry.value);
+        else
+            unsetVariable(entry.name);
+        end
+    end
+end
+
+function variables = getAllVariables()
+    % All environment variables, or [] if the release cannot list them
+    try
+        variables = getenv();
+    catch
+        variables = [];
+    end
+end
+
+function tf = isSet(name)
+    if ~isempty(which("isenv"))
+        tf = isenv(name);
+    else
+        % Earlier releases cannot tell an empty variable from a missing one
+        tf = getenv(name) ~= "";
+    end
+end
+
+function unsetVariable(name)
+    if ~isempty(which("unsetenv"))
+        unsetenv(name);
+    else
+        % Earlier releases cannot remove a variable, so it is left empty
+        setenv(name, "");
+    end
+end
+
+function exitCode = runRequest(folder, command)
+    exitCode = 0;
+    try
+        cd(folder);
+        evalin("base", command);
+    catch e
+        disp(getReport(e, "extended"));
+        exitCode = 1;
+    end
+end
+
+function resetSession(basePath, homeFolder)
+    % Forget the variables, globals, functions with their persistent
+    % variables, MEX files and class definitions the request left behind
+    evalin("base", "clear all");
+    evalin("base", "clear classes");
+    close all force;
+    path(basePath);
+    cd(homeFolder);
+end
+
+function writeStatus(sessionFolder, exitCode)
+    statusFile = fullfile(sessionFolder, "status");
+    tempFile = statusFile + ".tmp";
+    [fID, msg] = fopen(tempFile, "w");
+    if fID == -1
+        error("ciplugins:jenkins:serveMatlabSession:UnableToOpenFile", "Could not write session status due to: %s", msg);
+    end
+    fprintf(fID, "%d", exitCode);
+    fclose(fID);
+    movefile(tempFile, statusFile);
+end
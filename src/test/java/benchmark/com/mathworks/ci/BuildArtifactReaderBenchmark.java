@@ -0,0 +1,58 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ *
+ * Throughput of reading the tasks of build artifact files, in the task per
+ * line format and in the JSON document of earlier versions.
+ */
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@JmhBenchmark
+public class BuildArtifactReaderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Artifact {
+        @Param({ "10", "1000", "100000" })
+        public int tasks;
+
+        String lines;
+        String document;
+
+        @Setup
+        public void setup() {
+            StringBuilder lines = new StringBuilder();
+            StringBuilder document = new StringBuilder("{\"taskDetails\":[");
+            for (int i = 0; i < tasks; i++) {
+                String task = "{\"name\":\"task" + i + "\",\"description\":\"Task " + i + "\","
+                        + "\"failed\":" + (i % 7 == 0) + ",\"skipped\":" + (i % 5 == 0) + ","
+                        + "\"skipReason\":\"UpToDate\",\"duration\":\"00:00:01\"}";
+                lines.append(task).append('\n');
+                document.append(i == 0 ? "" : ",").append(task);
+            }
+            document.append("]}");
+            this.lines = lines.toString();
+            this.document = document.toString();
+        }
+    }
+
+    @Benchmark
+    public List<BuildArtifactData> readTaskLines(Artifact artifact) throws IOException, ParseException {
+        return BuildArtifactReader.readLines(new StringReader(artifact.lines));
+    }
+
+    @Benchmark
+    public List<BuildArtifactData> readDocument(Artifact artifact) throws IOException, ParseException {
+        return BuildArtifactReader.read(new StringReader(artifact.document));
+    }
+}
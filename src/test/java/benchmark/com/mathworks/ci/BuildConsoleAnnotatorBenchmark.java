@@ -0,0 +1,51 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ *
+ * Throughput and allocation rate of annotating MATLAB build output. Lines in
+ * UTF-8 are searched for task markers as bytes, lines in other multibyte
+ * charsets are decoded first.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+@JmhBenchmark
+public class BuildConsoleAnnotatorBenchmark {
+
+    // Creating the annotator needs a running Jenkins to sign its console notes
+    public static class Console extends JmhBenchmarkState {
+        @Param({ "UTF-8", "Shift_JIS" })
+        public String charset;
+
+        BuildConsoleAnnotator annotator;
+        byte[] log;
+
+        @Override
+        public void setup() throws Exception {
+            Charset cs = Charset.forName(this.charset);
+            this.annotator = new BuildConsoleAnnotator(OutputStream.nullOutputStream(), cs);
+
+            // A build of 20 tasks with 50 lines of output each
+            StringBuilder log = new StringBuilder();
+            for (int task = 0; task < 20; task++) {
+                log.append("[MATLAB-Build-task").append(task).append("-abc123]\n");
+                for (int line = 0; line < 50; line++) {
+                    log.append("Running MyTest/test").append(line).append(" .......... Done MyTest\n");
+                }
+            }
+            this.log = log.toString().getBytes(cs);
+        }
+    }
+
+    @Benchmark
+    public void annotate(Console console) throws IOException {
+        console.annotator.write(console.log);
+    }
+}
@@ -0,0 +1,44 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ *
+ * Throughput of turning the task markers of MATLAB builds into console
+ * anchors with BuildTargetNote, and of reading their task names.
+ */
+
+import hudson.MarkupText;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@JmhBenchmark
+public class BuildTargetNoteBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Lines {
+        BuildTargetNote note = new BuildTargetNote();
+        String marker = "[MATLAB-Build-compileAndTest-abc123]";
+        String plain = "Running MyTest/testSomething .......... Done MyTest";
+    }
+
+    @Benchmark
+    public String annotateMarker(Lines lines) {
+        MarkupText text = new MarkupText(lines.marker);
+        lines.note.annotate(null, text, 0);
+        return text.toString(false);
+    }
+
+    @Benchmark
+    public String annotatePlainLine(Lines lines) {
+        MarkupText text = new MarkupText(lines.plain);
+        lines.note.annotate(null, text, 0);
+        return text.toString(false);
+    }
+
+    @Benchmark
+    public String getTaskName(Lines lines) {
+        return BuildTargetNote.getTaskName(lines.marker);
+    }
+}
@@ -10,6 +10,7 @@ import hudson.model.FreeStyleProject;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.List;
@@ -265,6 +266,43 @@ public class BuildArtifactActionTest {
         Assert.assertEquals("Total task skip count is not correct", 1, ac.getSkipCount());
     }
 
+    /**
+     * Verify if counts are returned from an artifact file with one task per line.
+     *
+     */
+
+    @Test
+    public void verifyTaskPerLineCountsAreAccurate()
+            throws ExecutionException, InterruptedException, URISyntaxException, IOException, ParseException {
+        FreeStyleBuild build = getFreestyleBuild();
+        FilePath artifactRoot = new FilePath(build.getRootDir());
+        final String actionID = "abc123";
+        final String targetFile = "buildArtifact" + actionID + ".jsonl";
+        copyFileInWorkspace("buildArtifacts/t3/buildArtifact.jsonl", targetFile, artifactRoot);
+        BuildArtifactAction ac = new BuildArtifactAction(build, actionID);
+        Assert.assertEquals("Total task count is not correct", 3, ac.getTotalCount());
+        Assert.assertEquals("Total task failed count is not correct", 1, ac.getFailCount());
+        Assert.assertEquals("Total task skip count is not correct", 1, ac.getSkipCount());
+        Assert.assertEquals("Incorrect task name", "show", ac.getBuildArtifact().get(1).getTaskName());
+    }
+
+    /**
+     * Verify an unreadable build artifact leaves the counts at zero instead of
+     * failing.
+     *
+     */
+
+    @Test
+    public void verifyInvalidArtifactDoesNotFailAction()
+            throws ExecutionException, InterruptedException, URISyntaxException, IOException, ParseException {
+        FreeStyleBuild build = getFreestyleBuild();
+        final String actionID = "abc123";
+        FilePath artifact = new FilePath(build.getRootDir()).child("buildArtifact" + actionID + ".json");
+        artifact.write("{\"taskDetails\":[", "UTF-8");
+        BuildArtifactAction ac = new BuildArtifactAction(build, actionID);
+        Assert.assertEquals("Total task count is not correct", 0, ac.getTotalCount());
+    }
+
     /**
      * Verify if ActionID is set correctly.
      *
@@ -282,6 +320,48 @@ public class BuildArtifactActionTest {
         Assert.assertEquals("Incorrect ActionID", actionID, ac.getActionID());
     }
 
+    /**
+     * Verify if build artifact is parsed once and reparsed when the file changes.
+     *
+     */
+
+    @Test
+    public void verifyBuildArtifactIsCachedUntilFileChanges()
+            throws ExecutionException, InterruptedException, URISyntaxException, IOException, ParseException {
+        FreeStyleBuild build = getFreestyleBuild();
+        FilePath artifactRoot = new FilePath(build.getRootDir());
+        final String actionID = "abc123";
+        final String targetFile = "buildArtifact" + actionID + ".json";
+        copyFileInWorkspace("buildArtifacts/t1/buildArtifact.json", targetFile, artifactRoot);
+        BuildArtifactAction ac = new BuildArtifactAction(build, actionID);
+        List<BuildArtifactData> first = ac.getBuildArtifact();
+        Assert.assertSame("Build artifact was parsed again", first, ac.getBuildArtifact());
+
+        copyFileInWorkspace("buildArtifacts/t2/buildArtifact.json", targetFile, artifactRoot);
+        Assert.assertEquals("Changed build artifact was not parsed again", 1, ac.getBuildArtifact().size());
+    }
+
+    /**
+     * Verify the tasks an action is created with are cached, so the results
+     * table does not read the file again.
+     *
+     */
+
+    @Test
+    public void verifyTasksReadAtCreationAreCached()
+            throws ExecutionException, InterruptedException, URISyntaxException, IOException, ParseException {
+        FreeStyleBuild build = getFreestyleBuild();
+        FilePath artifactRoot = new FilePath(build.getRootDir());
+        final String actionID = "abc123";
+        final String targetFile = "buildArtifact" + actionID + ".jsonl";
+        copyFileInWorkspace("buildArtifacts/t3/buildArtifact.jsonl", targetFile, artifactRoot);
+        List<BuildArtifactData> tasks = BuildArtifactReader.read(
+                new StringReader("{\"taskDetails\":{\"name\":\"cached\",\"failed\":true}}"));
+        BuildArtifactAction ac = new BuildArtifactAction(build, actionID, tasks);
+        Assert.assertEquals("Total task failed count is not correct", 1, ac.getFailCount());
+        Assert.assertEquals("Build artifact was parsed again", "cached", ac.getBuildArtifact().get(0).getTaskName());
+    }
+
     private void copyFileInWorkspace(String sourceFile, String targetFile, FilePath targetWorkspace)
             throws IOException, InterruptedException {
         final ClassLoader classLoader = getClass().getClassLoader();
@@ -0,0 +1,85 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ *
+ * Test class for the calls MatlabCommandRunner makes to a remote agent
+ */
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.Command;
+import hudson.remoting.Request;
+import hudson.slaves.DumbSlave;
+
+import com.mathworks.ci.parameters.MatlabActionParameters;
+import com.mathworks.ci.utilities.MatlabCommandRunner;
+
+public class MatlabCommandRunnerRoundTripTest {
+
+    // Requests the controller sent to the agent
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private DumbSlave agent;
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Before
+    public void testSetup() throws Exception {
+        this.agent = jenkins.createOnlineSlave();
+        ((Channel) this.agent.getChannel()).addListener(new Channel.Listener() {
+            @Override
+            public void onWrite(Channel channel, Command cmd, long blockSize) {
+                // Each request waits for its response, so it is one round trip
+                if (cmd instanceof Request) {
+                    requests.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    private int countRoundTrips(int resources) throws IOException, InterruptedException {
+        FilePath workspace = this.agent.getRootPath().child("workspace/roundtrips");
+        MatlabActionParameters params = new MatlabActionParameters(null, workspace, new EnvVars(),
+                this.agent.createLauncher(TaskListener.NULL), TaskListener.NULL, "");
+        MatlabCommandRunner runner = new MatlabCommandRunner(params);
+        for (int i = 0; i < resources; i++) {
+            runner.addResourceToTempFolder(MatlabBuilderConstants.TIMING_FUNCTION, "resource" + i + ".m");
+            runner.addFileToTempFolder("file" + i + ".txt", "content" + i);
+        }
+
+        this.requests.set(0);
+        try {
+            runner.runMatlabCommand("disp('hello')");
+        } catch (MatlabExecutionException e) {
+            // There is no MATLAB on the agent, only the calls to it matter
+        }
+        return this.requests.get();
+    }
+
+    /*
+     * Test to verify preparing a command takes the same number of round trips
+     * to the agent however many files it needs, and reports the number.
+     */
+    @Test
+    public void verifyRoundTripsDoNotGrowWithFiles() throws Exception {
+        // Detects the platform of the agent, which is done once per connection
+        countRoundTrips(0);
+
+        int none = countRoundTrips(0);
+        int many = countRoundTrips(20);
+        System.out.println("Round trips to run a command on an agent: " + none + " (" + many + " with 40 files)");
+
+        Assert.assertEquals(none, many);
+    }
+}
@@ -0,0 +1,68 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ *
+ * Test class for MatlabLicenseLimiter
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import hudson.EnvVars;
+import hudson.model.TaskListener;
+
+import com.mathworks.ci.utilities.TokenScheduler;
+
+public class MatlabLicenseLimiterTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    /*
+     * Test to verify token pools survive a round trip through the global
+     * configuration page.
+     */
+    @Test
+    public void verifyPoolsAreSavedWithGlobalConfiguration() throws Exception {
+        MatlabLicenseLimiter limiter = MatlabLicenseLimiter.get();
+        limiter.setPools(Arrays.asList(new MatlabLicensePool("Simulink", 3)));
+
+        jenkins.configRoundtrip();
+
+        Assert.assertEquals(1, MatlabLicenseLimiter.get().getPools().size());
+        Assert.assertEquals("Simulink", MatlabLicenseLimiter.get().getPools().get(0).getName());
+        Assert.assertEquals(3, MatlabLicenseLimiter.get().getPools().get(0).getTokens());
+    }
+
+    /*
+     * Test to verify a step waits while the tokens of a pool it lists are taken.
+     */
+    @Test
+    public void verifyStepWaitsForRequestedPool() throws Exception {
+        MatlabLicenseLimiter.get().setPools(Arrays.asList(new MatlabLicensePool("Simulink", 1)));
+        EnvVars env = new EnvVars(Collections.singletonMap(MatlabLicenseLimiter.POOLS_VARIABLE, "Simulink"));
+
+        TokenScheduler.Ticket first = MatlabLicenseLimiter.acquire(env, TaskListener.NULL);
+        Thread second = new Thread(() -> {
+            try (TokenScheduler.Ticket ticket = MatlabLicenseLimiter.acquire(env, TaskListener.NULL)) {
+                // Returned right away
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        second.start();
+
+        for (int i = 0; i < 500 && MatlabLicenseLimiter.get().getQueueLength() == 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, MatlabLicenseLimiter.get().getQueueLength());
+
+        first.close();
+        second.join(5000);
+        Assert.assertEquals(0, MatlabLicenseLimiter.get().getQueueLength());
+    }
+}
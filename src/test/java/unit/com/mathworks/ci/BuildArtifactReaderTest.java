@@ -0,0 +1,149 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import org.json.simple.parser.ParseException;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+public class BuildArtifactReaderTest {
+
+    private Reader getResource(String name) throws IOException {
+        return new InputStreamReader(getClass().getClassLoader().getResourceAsStream(name), "UTF-8");
+    }
+
+    @Test
+    public void readsArrayOfTasks() throws IOException, ParseException {
+        List<BuildArtifactData> tasks;
+        try (Reader reader = getResource("buildArtifacts/t1/buildArtifact.json")) {
+            tasks = BuildArtifactReader.read(reader);
+        }
+
+        Assert.assertEquals(3, tasks.size());
+        Assert.assertEquals("check", tasks.get(0).getTaskName());
+        Assert.assertEquals("Checks Description", tasks.get(0).getTaskDescription());
+        Assert.assertEquals("00:00:00", tasks.get(0).getTaskDuration());
+        Assert.assertTrue(tasks.get(1).getTaskFailed());
+        Assert.assertTrue(tasks.get(2).getTaskSkipped());
+        Assert.assertEquals("user requested", tasks.get(2).getSkipReason());
+    }
+
+    @Test
+    public void readsTaskPerLine() throws IOException, ParseException {
+        List<BuildArtifactData> tasks;
+        try (Reader reader = getResource("buildArtifacts/t3/buildArtifact.jsonl")) {
+            tasks = BuildArtifactReader.read(reader, "buildArtifact.jsonl");
+        }
+
+        Assert.assertEquals(3, tasks.size());
+        Assert.assertEquals("check", tasks.get(0).getTaskName());
+        Assert.assertTrue(tasks.get(1).getTaskFailed());
+        Assert.assertEquals("user requested", tasks.get(2).getSkipReason());
+    }
+
+    @Test
+    public void ignoresIncompleteLastLine() throws IOException, ParseException {
+        List<BuildArtifactData> tasks = BuildArtifactReader.readLines(
+                new StringReader("{\"name\":\"a\"}\n\n{\"name\":\"b\"}\n{\"name\":\"c\",\"fai"));
+
+        Assert.assertEquals(2, tasks.size());
+        Assert.assertEquals("b", tasks.get(1).getTaskName());
+    }
+
+    @Test(expected = ParseException.class)
+    public void rejectsInvalidLineBeforeLastLine() throws IOException, ParseException {
+        BuildArtifactReader.readLines(new StringReader("{\"name\":\"a\"\n{\"name\":\"b\"}\n"));
+    }
+
+    @Test
+    public void readsDocumentByFileName() throws IOException, ParseException {
+        List<BuildArtifactData> tasks = BuildArtifactReader.read(
+                new StringReader("{\n  \"taskDetails\": {\"name\":\"a\"}\n}"), "buildArtifact.json");
+
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals("a", tasks.get(0).getTaskName());
+    }
+
+    @Test
+    public void readsEmptyFile() throws IOException, ParseException {
+        Assert.assertTrue(BuildArtifactReader.read(new StringReader("\n")).isEmpty());
+        Assert.assertTrue(BuildArtifactReader.readLines(new StringReader("\n")).isEmpty());
+    }
+
+    @Test
+    public void readsSingleLineArtifact() throws IOException, ParseException {
+        List<BuildArtifactData> tasks = BuildArtifactReader.read(
+                new StringReader("{\"taskDetails\":[{\"name\":\"a\"},{\"name\":\"b\"}]}"));
+
+        Assert.assertEquals(2, tasks.size());
+        Assert.assertEquals("b", tasks.get(1).getTaskName());
+    }
+
+    @Test
+    public void readsSingleTask() throws IOException, ParseException {
+        List<BuildArtifactData> tasks;
+        try (Reader reader = getResource("buildArtifacts/t2/buildArtifact.json")) {
+            tasks = BuildArtifactReader.read(reader);
+        }
+
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals("show", tasks.get(0).getTaskName());
+        Assert.assertEquals("00:02:53", tasks.get(0).getTaskDuration());
+        Assert.assertTrue(tasks.get(0).getTaskSkipped());
+    }
+
+    @Test
+    public void ignoresOtherKeysAndNestedValues() throws IOException, ParseException {
+        String json = "{\"other\":{\"name\":\"no\"},"
+                + "\"taskDetails\":[{\"name\":\"a\",\"inputs\":{\"name\":\"no\"},\"tags\":[\"x\"],"
+                + "\"skipReason\":\"DependencyFailed\",\"failed\":true}],"
+                + "\"more\":[{\"name\":\"no\"}]}";
+
+        List<BuildArtifactData> tasks = BuildArtifactReader.read(new StringReader(json));
+
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals("a", tasks.get(0).getTaskName());
+        Assert.assertEquals("dependency failed", tasks.get(0).getSkipReason());
+        Assert.assertTrue(tasks.get(0).getTaskFailed());
+    }
+
+    @Test
+    public void readsManyTasks() throws IOException, ParseException {
+        StringBuilder json = new StringBuilder("{\"taskDetails\":[");
+        for (int i = 0; i < 20000; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"name\":\"task").append(i).append("\",\"failed\":").append(i % 2 == 0)
+                    .append(",\"skipped\":false,\"duration\":\"00:00:01\"}");
+        }
+        json.append("]}");
+
+        List<BuildArtifactData> tasks = BuildArtifactReader.read(new StringReader(json.toString()));
+
+        Assert.assertEquals(20000, tasks.size());
+        Assert.assertEquals("task19999", tasks.get(19999).getTaskName());
+        Assert.assertFalse(tasks.get(19999).getTaskFailed());
+    }
+
+    @Test
+    public void readsTaskLine() throws ParseException {
+        BuildArtifactData task = BuildArtifactReader.readTask(
+                "{\"name\":\"test\",\"failed\":false,\"skipped\":true,\"skipReason\":\"UpToDate\"}");
+
+        Assert.assertEquals("test", task.getTaskName());
+        Assert.assertTrue(task.getTaskSkipped());
+        Assert.assertEquals("up-to-date", task.getSkipReason());
+    }
+
+    @Test(expected = ParseException.class)
+    public void rejectsTaskLineThatIsNotAnObject() throws ParseException {
+        BuildArtifactReader.readTask("[]");
+    }
+}
@@ -0,0 +1,41 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+public class BuildConsoleAnnotatorTest {
+
+    private boolean containsMarker(String line) {
+        byte[] b = line.getBytes(StandardCharsets.UTF_8);
+        // Leave room after the line, as the annotator's buffer does
+        byte[] buffer = new byte[b.length + 16];
+        System.arraycopy(b, 0, buffer, 0, b.length);
+        return BuildConsoleAnnotator.containsMarker(buffer, b.length);
+    }
+
+    @Test
+    public void findsMarkerAnywhereInLine() {
+        Assert.assertTrue(containsMarker("[MATLAB-Build-test-abc123]\n"));
+        Assert.assertTrue(containsMarker("  \u00e9[[MATLAB-Build-test-abc123]\r\n"));
+    }
+
+    @Test
+    public void ignoresLinesWithoutMarker() {
+        Assert.assertFalse(containsMarker("Running test\n"));
+        Assert.assertFalse(containsMarker("[MATLAB-Build\n"));
+        Assert.assertFalse(containsMarker(""));
+    }
+
+    @Test
+    public void ignoresMarkerBeyondLineLength() {
+        byte[] b = "abc[MATLAB-Build-test]".getBytes(StandardCharsets.UTF_8);
+
+        Assert.assertFalse(BuildConsoleAnnotator.containsMarker(b, 10));
+    }
+}
@@ -0,0 +1,43 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import org.junit.Test;
+import org.junit.Assert;
+import static org.hamcrest.CoreMatchers.containsString;
+
+import hudson.MarkupText;
+
+public class BuildTargetNoteTest {
+
+    private String annotate(String line) {
+        MarkupText text = new MarkupText(line);
+        new BuildTargetNote().annotate(null, text, 0);
+        return text.toString(false);
+    }
+
+    @Test
+    public void addsAnchorWithTaskAndActionID() {
+        Assert.assertThat(annotate("[MATLAB-Build-test-abc123]\n"),
+                containsString("<a id= matlab-test-abc123 name=matlab-test-abc123>MATLAB-Build</a>"));
+    }
+
+    @Test
+    public void addsAnchorWithoutActionID() {
+        Assert.assertThat(annotate("[MATLAB-Build-test-]\n"),
+                containsString("<a id= matlab-test name=matlab-test>"));
+    }
+
+    @Test
+    public void keepsDashesInTaskName() {
+        Assert.assertThat(annotate("  [MATLAB-Build-my-task-abc123]\n"),
+                containsString("name=matlab-my-task-abc123>"));
+    }
+
+    @Test
+    public void leavesOtherLinesAlone() {
+        Assert.assertEquals("Running MATLAB-Build tests\n", annotate("Running MATLAB-Build tests\n"));
+    }
+}
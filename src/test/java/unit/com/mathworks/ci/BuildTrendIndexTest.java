@@ -0,0 +1,123 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.Assert;
+import org.junit.rules.TemporaryFolder;
+
+public class BuildTrendIndexTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private BuildArtifactData task(String name, boolean failed, boolean skipped, String duration) {
+        BuildArtifactData data = new BuildArtifactData();
+        data.setTaskName(name);
+        data.setTaskFailed(failed);
+        data.setTaskSkipped(skipped);
+        data.setTaskDuration(duration);
+        return data;
+    }
+
+    @Test
+    public void readReturnsEmptyWithoutHistory() throws IOException {
+        Assert.assertTrue(BuildTrendIndex.read(tempDir.getRoot()).isEmpty());
+    }
+
+    @Test
+    public void appendsRowsPerBuild() throws IOException {
+        File root = tempDir.getRoot();
+        List<BuildArtifactData> first = new ArrayList<BuildArtifactData>();
+        first.add(task("check", false, false, "00:00:01"));
+        first.add(task("test", true, false, "00:01:00"));
+        BuildTrendIndex.append(root, 1, first);
+
+        List<BuildArtifactData> second = new ArrayList<BuildArtifactData>();
+        second.add(task("check", false, true, "00:00:00"));
+        BuildTrendIndex.append(root, 2, second);
+
+        Map<String, List<BuildTrendIndex.Row>> tasks = BuildTrendIndex.read(root);
+
+        Assert.assertEquals(2, tasks.size());
+        List<BuildTrendIndex.Row> check = tasks.get("check");
+        Assert.assertEquals(2, check.size());
+        Assert.assertEquals(1, check.get(0).getBuildNumber());
+        Assert.assertEquals(1000, check.get(0).getDurationMillis());
+        Assert.assertTrue(check.get(1).isSkipped());
+        Assert.assertTrue(tasks.get("test").get(0).isFailed());
+        Assert.assertEquals(60000, tasks.get("test").get(0).getDurationMillis());
+    }
+
+    @Test
+    public void removesDeletedBuilds() throws IOException {
+        File root = tempDir.getRoot();
+        List<BuildArtifactData> tasks = new ArrayList<BuildArtifactData>();
+        tasks.add(task("check", false, false, "00:00:01"));
+        for (int build = 1; build <= 3; build++) {
+            BuildTrendIndex.append(root, build, tasks);
+        }
+
+        BuildTrendIndex.remove(root, 2);
+
+        List<BuildTrendIndex.Row> check = BuildTrendIndex.read(root).get("check");
+        Assert.assertEquals(2, check.size());
+        Assert.assertEquals(1, check.get(0).getBuildNumber());
+        Assert.assertEquals(3, check.get(1).getBuildNumber());
+    }
+
+    @Test
+    public void keepsMostRecentBuilds() throws IOException {
+        File root = tempDir.getRoot();
+        List<BuildArtifactData> tasks = new ArrayList<BuildArtifactData>();
+        tasks.add(task("check", false, false, "00:00:01"));
+        int builds = 2 * BuildTrendIndex.MAX_BUILDS;
+        for (int build = 1; build <= builds; build++) {
+            BuildTrendIndex.append(root, build, tasks);
+        }
+        File file = new File(root, BuildTrendIndex.FILE_NAME);
+        Assert.assertEquals(builds, Files.readAllLines(file.toPath()).size());
+
+        List<BuildTrendIndex.Row> check = BuildTrendIndex.read(root).get("check");
+        Assert.assertEquals(BuildTrendIndex.MAX_BUILDS, check.size());
+        Assert.assertEquals(BuildTrendIndex.MAX_BUILDS + 1, check.get(0).getBuildNumber());
+
+        // The file is compacted once it holds twice as many builds
+        BuildTrendIndex.append(root, builds + 1, tasks);
+        Assert.assertEquals(BuildTrendIndex.MAX_BUILDS, Files.readAllLines(file.toPath()).size());
+        Assert.assertEquals(builds + 1, BuildTrendIndex.read(root).get("check")
+                .get(BuildTrendIndex.MAX_BUILDS - 1).getBuildNumber());
+    }
+
+    @Test
+    public void skipsIncompleteLines() throws IOException {
+        File root = tempDir.getRoot();
+        List<BuildArtifactData> tasks = new ArrayList<BuildArtifactData>();
+        tasks.add(task("check", false, false, "00:00:01"));
+        BuildTrendIndex.append(root, 1, tasks);
+        Files.write(new File(root, BuildTrendIndex.FILE_NAME).toPath(),
+                "2\tcheck\t10".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        Assert.assertEquals(1, BuildTrendIndex.read(root).get("check").size());
+    }
+
+    @Test
+    public void parsesDurations() {
+        Assert.assertEquals(173000, BuildTrendIndex.parseDuration("00:02:53"));
+        Assert.assertEquals(3600250, BuildTrendIndex.parseDuration("01:00:00.250"));
+        Assert.assertEquals(-1, BuildTrendIndex.parseDuration(null));
+        Assert.assertEquals(-1, BuildTrendIndex.parseDuration("soon"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+public class CoberturaMergerTest {
+
+    private static String report(String source, String lines) {
+        return "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+                + "<!DOCTYPE coverage SYSTEM \"http://cobertura.sourceforge.net/xml/coverage-04.dtd\">"
+                + "<coverage line-rate=\"0\" branch-rate=\"0\"><sources><source>" + source + "</source></sources>"
+                + "<packages><package name=\"\"><classes>"
+                + "<class name=\"add\" filename=\"src/add.m\" line-rate=\"0\" branch-rate=\"0\" complexity=\"1\">"
+                + "<methods><method name=\"add\" signature=\"\" line-rate=\"0\" branch-rate=\"0\">"
+                + "<lines>" + lines + "</lines></method></methods>"
+                + "<lines>" + lines + "</lines></class>"
+                + "</classes></package></packages></coverage>";
+    }
+
+    private static String merge(String... reports) throws IOException {
+        CoberturaMerger merger = new CoberturaMerger();
+        for (String report : reports) {
+            merger.add(new ByteArrayInputStream(report.getBytes(StandardCharsets.UTF_8)));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        merger.write(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void addsHitsOfSameLines() throws IOException {
+        String merged = merge(
+                report("/ws/shard1", "<line number=\"1\" hits=\"2\" branch=\"false\"/>"
+                        + "<line number=\"2\" hits=\"0\" branch=\"false\"/>"),
+                report("/ws/shard2", "<line number=\"2\" hits=\"3\" branch=\"false\"/>"
+                        + "<line number=\"3\" hits=\"0\" branch=\"false\"/>"));
+
+        Assert.assertTrue(merged.contains("<line number=\"1\" hits=\"2\" branch=\"false\"/>"));
+        Assert.assertTrue(merged.contains("<line number=\"2\" hits=\"3\" branch=\"false\"/>"));
+        Assert.assertTrue(merged.contains("<line number=\"3\" hits=\"0\" branch=\"false\"/>"));
+        Assert.assertTrue(merged.contains("lines-covered=\"2\" lines-valid=\"3\""));
+        Assert.assertTrue(merged.contains("<source>/ws/shard1</source><source>/ws/shard2</source>"));
+
+        // Method lines are kept apart from class lines
+        Assert.assertEquals(1, merged.split("<class ", -1).length - 1);
+        Assert.assertEquals(1, merged.split("<method ", -1).length - 1);
+        Assert.assertEquals(2, merged.split("<line number=\"2\"", -1).length - 1);
+    }
+
+    @Test
+    public void keepsMostCoveredConditions() throws IOException {
+        String merged = merge(
+                report("/ws", "<line number=\"1\" hits=\"1\" branch=\"true\" condition-coverage=\"25% (1/4)\"/>"),
+                report("/ws", "<line number=\"1\" hits=\"1\" branch=\"true\" condition-coverage=\"75% (3/4)\"/>"));
+
+        Assert.assertTrue(merged.contains("condition-coverage=\"75% (3/4)\""));
+        Assert.assertTrue(merged.contains("branches-covered=\"3\" branches-valid=\"4\""));
+        Assert.assertTrue(merged.contains("<coverage line-rate=\"1.0\" branch-rate=\"0.75\""));
+    }
+
+    @Test
+    public void mergedReportCanBeMergedAgain() throws IOException {
+        String once = merge(report("/ws", "<line number=\"1\" hits=\"1\" branch=\"false\"/>"));
+        String twice = merge(once, once);
+
+        Assert.assertTrue(twice.contains("<line number=\"1\" hits=\"2\" branch=\"false\"/>"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMalformedReport() throws IOException {
+        merge("<coverage><packages>");
+    }
+}
@@ -0,0 +1,42 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+import static org.mockito.Mockito.*;
+
+import hudson.model.TaskListener;
+
+public class ListenerLogDecoratorTest {
+
+    @Test
+    public void writesLinesUnchanged() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        TaskListener listener = mock(TaskListener.class);
+        when(listener.getLogger()).thenReturn(new PrintStream(log));
+
+        byte[] content = "first line\nsecond \u00e9 line\r\nlast".getBytes(StandardCharsets.UTF_8);
+        try (ListenerLogDecorator decorator = new ListenerLogDecorator(listener)) {
+            decorator.write(content);
+        }
+
+        Assert.assertArrayEquals(content, log.toByteArray());
+    }
+
+    @Test
+    public void ignoresOutputWithoutListener() throws IOException {
+        try (ListenerLogDecorator decorator = new ListenerLogDecorator(null)) {
+            decorator.write("line\n".getBytes(StandardCharsets.UTF_8));
+            decorator.flush();
+        }
+    }
+}
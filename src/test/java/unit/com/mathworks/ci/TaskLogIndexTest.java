@@ -0,0 +1,126 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.Assert;
+import org.junit.rules.TemporaryFolder;
+
+import static org.mockito.Mockito.*;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.Run;
+
+public class TaskLogIndexTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private TaskLogIndex newIndex() throws IOException {
+        return new TaskLogIndex(new File(tempDir.getRoot(), "taskLogIndex.tsv"));
+    }
+
+    @Test
+    public void returnsRangeUpToNextTask() throws IOException {
+        TaskLogIndex index = newIndex();
+        index.append("check", 120);
+        index.append("test", 480);
+        index.append("", 900);
+
+        Assert.assertArrayEquals(new long[] { 120, 480 }, index.getRange("check"));
+        Assert.assertArrayEquals(new long[] { 480, 900 }, index.getRange("test"));
+    }
+
+    @Test
+    public void lastTaskRunsToEndOfLogWhileBuildRuns() throws IOException {
+        TaskLogIndex index = newIndex();
+        index.append("check", 120);
+        index.append("test", 480);
+
+        Assert.assertArrayEquals(new long[] { 480, Long.MAX_VALUE }, index.getRange("test"));
+    }
+
+    @Test
+    public void returnsNullForUnknownTask() throws IOException {
+        TaskLogIndex index = newIndex();
+        Assert.assertNull(index.getRange("check"));
+
+        index.append("check", 0);
+        Assert.assertNull(index.getRange("build"));
+        Assert.assertNull(index.getRange(""));
+    }
+
+    @Test
+    public void ignoresMalformedLines() throws IOException {
+        TaskLogIndex index = newIndex();
+        index.append("check", 10);
+        Files.write(index.getFile().toPath(), "garbage\nx\tbuild\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        index.append("test", 50);
+
+        Assert.assertArrayEquals(new long[] { 10, 50 }, index.getRange("check"));
+        Assert.assertNull(index.getRange("build"));
+    }
+
+    private File writeLog(String text) throws IOException {
+        File log = tempDir.newFile("log");
+        Files.write(log.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return log;
+    }
+
+    @Test
+    public void findsRangeAtRecordedOffsets() throws IOException {
+        String check = "[MATLAB-Build-check-abc]\nchecking\n";
+        String test = "[MATLAB-Build-test-abc]\ntesting\n";
+        File log = writeLog("Started\n" + check + test + "Finished\n");
+        TaskLogIndex index = newIndex();
+        index.append("check", 8);
+        index.append("test", 8 + check.length());
+        index.append("", 8 + check.length() + test.length());
+
+        Assert.assertArrayEquals(new long[] { 8, 8 + check.length() },
+                index.findRange(log, StandardCharsets.UTF_8, "check", "abc"));
+        Assert.assertArrayEquals(new long[] { 8 + check.length(), 8 + check.length() + test.length() },
+                index.findRange(log, StandardCharsets.UTF_8, "test", "abc"));
+    }
+
+    @Test
+    public void scansLogRewrittenAfterOffsetsWereRecorded() throws IOException {
+        // Masking a secret in the first line shortened the log by 5 bytes
+        String check = "[MATLAB-Build-check-abc]\nchecking\n";
+        String test = "[MATLAB-Build-test-abc]\ntesting\n";
+        File log = writeLog("Token ****\n" + check + test + "Finished\n");
+        TaskLogIndex index = newIndex();
+        index.append("check", 16);
+        index.append("test", 16 + check.length());
+        index.append("", 16 + check.length() + test.length());
+
+        Assert.assertArrayEquals(new long[] { 11, 11 + check.length() },
+                index.findRange(log, StandardCharsets.UTF_8, "check", "abc"));
+        Assert.assertArrayEquals(new long[] { 11 + check.length(), Long.MAX_VALUE },
+                index.findRange(log, StandardCharsets.UTF_8, "test", "abc"));
+        Assert.assertNull(index.findRange(log, StandardCharsets.UTF_8, "build", "abc"));
+    }
+
+    @Test
+    public void indexesOnlyPlainLogsOfFreestyleBuilds() throws IOException {
+        FreeStyleBuild build = mock(FreeStyleBuild.class);
+        when(build.getLogFile()).thenReturn(tempDir.newFile("log"));
+        Assert.assertTrue(TaskLogIndex.canIndex(build));
+
+        when(build.getLogFile()).thenReturn(tempDir.newFile("log.gz"));
+        Assert.assertFalse(TaskLogIndex.canIndex(build));
+
+        Run<?, ?> pipeline = mock(Run.class);
+        Assert.assertFalse(TaskLogIndex.canIndex(pipeline));
+    }
+}
@@ -0,0 +1,105 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.Assert;
+import org.junit.rules.TemporaryFolder;
+
+public class TestDurationIndexTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private TestDurationIndex newIndex() {
+        return new TestDurationIndex(new File(tempDir.getRoot(), "jobDurations.tsv"));
+    }
+
+    private static Map<String, Double> durations(Object... pairs) {
+        Map<String, Double> map = new TreeMap<String, Double>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            map.put((String) pairs[i], (Double) pairs[i + 1]);
+        }
+        return map;
+    }
+
+    private static Set<String> none() {
+        return Collections.emptySet();
+    }
+
+    @Test
+    public void parsesJUnitTestCases() throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+                + "<testsuites><testsuite name=\"MyTest\">"
+                + "<testcase classname=\"MyTest\" name=\"testA\" time=\"1.5\"/>"
+                + "<testcase classname=\"MyTest\" name=\"testB(size=large)\" time=\"0.25\"><failure/></testcase>"
+                + "<testcase classname=\"MyTest\" name=\"testC\" time=\"bad\"/>"
+                + "</testsuite></testsuites>";
+
+        Set<String> failed = new TreeSet<String>();
+        Map<String, Double> parsed = TestDurationIndex.parseJUnit(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), failed);
+
+        Assert.assertEquals(durations("MyTest/testA", 1.5, "MyTest/testB(size=large)", 0.25), parsed);
+        Assert.assertEquals(Collections.singleton("MyTest/testB(size=large)"), failed);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsDoctypeInJUnit() throws IOException {
+        String xml = "<!DOCTYPE x [<!ENTITY e SYSTEM \"file:///etc/passwd\">]><testsuites>&e;</testsuites>";
+        TestDurationIndex.parseJUnit(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                new TreeSet<String>());
+    }
+
+    @Test
+    public void recordKeepsDurationsOfOtherTests() throws IOException {
+        TestDurationIndex index = newIndex();
+        index.record(durations("A/t1", 1.0, "A/t2", 2.0), none());
+        index.record(durations("A/t2", 3.0, "B/t1", 4.0), none());
+
+        Assert.assertEquals(durations("A/t1", 1.0, "A/t2", 3.0, "B/t1", 4.0), index.read());
+    }
+
+    @Test
+    public void recordKeepsLatestOutcomeOfEachTest() throws IOException {
+        TestDurationIndex index = newIndex();
+        index.record(durations("A/t1", 1.0, "A/t2", 2.0), Collections.singleton("A/t1"));
+        index.record(durations("A/t2", 3.0), Collections.singleton("A/t2"));
+        Assert.assertEquals(new TreeSet<String>(Arrays.asList("A/t1", "A/t2")), index.readFailed());
+
+        index.record(durations("A/t1", 1.0), none());
+        Assert.assertEquals(Collections.singleton("A/t2"), index.readFailed());
+    }
+
+    @Test
+    public void snapshotDoesNotChangeWhenIndexIsUpdated() throws IOException {
+        TestDurationIndex index = newIndex();
+        File buildFile = new File(tempDir.getRoot(), "buildDurations.tsv");
+        index.record(durations("A/t1", 1.0), none());
+
+        Assert.assertEquals(durations("A/t1", 1.0), index.snapshot(buildFile));
+        index.record(durations("A/t1", 9.0, "A/t2", 2.0), none());
+
+        Assert.assertEquals(durations("A/t1", 1.0), index.snapshot(buildFile));
+    }
+
+    @Test
+    public void readsEmptyIndexWhenFileIsMissing() throws IOException {
+        Assert.assertTrue(newIndex().read().isEmpty());
+        Assert.assertTrue(newIndex().snapshot(new File(tempDir.getRoot(), "buildDurations.tsv")).isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.Assert;
+import org.junit.rules.TemporaryFolder;
+
+public class TestImpactIndexTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private File indexFile() {
+        return new File(tempDir.getRoot(), "jobImpact.tsv");
+    }
+
+    private static Set<String> set(String... values) {
+        return new TreeSet<String>(Arrays.asList(values));
+    }
+
+    private TestImpactIndex newIndex() throws IOException {
+        TestImpactIndex.record(indexFile(), TestImpactIndex.parse(
+                "tests/MathTest\ttests/MathTest.m\n"
+                        + "tests/MathTest\tsrc/add.m\n"
+                        + "tests/MathTest\tsrc/util/round.m\n"
+                        + "tests/TextTest\tsrc/util/round.m\n"
+                        + "tests/EmptyTest\t\n"),
+                1000);
+        return TestImpactIndex.read(indexFile());
+    }
+
+    @Test
+    public void readsRecordedDependencies() throws IOException {
+        TestImpactIndex index = newIndex();
+
+        Assert.assertEquals(1000, index.getLastFullRun());
+        Assert.assertEquals(set("tests/EmptyTest", "tests/MathTest", "tests/TextTest"),
+                index.getDependencies().keySet());
+        Assert.assertEquals(set(), index.getDependencies().get("tests/EmptyTest"));
+    }
+
+    @Test
+    public void selectsTestsDependingOnChangedFiles() throws IOException {
+        TestImpactIndex index = newIndex();
+
+        Assert.assertEquals(set("tests/MathTest"), index.getImpactedTests(Arrays.asList("src/add.m")));
+        Assert.assertEquals(set("tests/MathTest", "tests/TextTest"),
+                index.getImpactedTests(Arrays.asList("src\\util\\round.m")));
+    }
+
+    @Test
+    public void selectsChangedTestFiles() throws IOException {
+        TestImpactIndex index = newIndex();
+
+        Assert.assertEquals(set("tests/EmptyTest"), index.getImpactedTests(Arrays.asList("tests/EmptyTest.mlx")));
+    }
+
+    @Test
+    public void returnsNullForUnknownFile() throws IOException {
+        TestImpactIndex index = newIndex();
+
+        Assert.assertNull(index.getImpactedTests(Arrays.asList("src/add.m", "src/subtract.m")));
+
+        // Tests can load data files MATLAB does not find as dependencies
+        Assert.assertNull(index.getImpactedTests(Arrays.asList("src/add.m", "data/input.mat")));
+        Assert.assertNull(index.getImpactedTests(Arrays.asList("../README.md")));
+    }
+
+    @Test
+    public void keepsDigestsOfUnchangedDependencies() throws IOException {
+        newIndex();
+        Map<String, String> fileDigests = new HashMap<String, String>();
+        fileDigests.put("tests/MathTest.m", "1");
+        fileDigests.put("src/add.m", "2");
+        fileDigests.put("src/util/round.m", "3");
+        TestImpactIndex recorded = TestImpactIndex.read(indexFile());
+        recorded.setDigests(fileDigests);
+        TestImpactIndex.record(indexFile(), recorded, 0);
+
+        TestImpactIndex index = TestImpactIndex.read(indexFile());
+        Assert.assertEquals(set("tests/MathTest", "tests/TextTest"), index.getUnchangedTests(fileDigests));
+
+        fileDigests.put("src/add.m", "4");
+        Assert.assertEquals(set("tests/TextTest"), index.getUnchangedTests(fileDigests));
+        fileDigests.remove("src/util/round.m");
+        Assert.assertEquals(set(), index.getUnchangedTests(fileDigests));
+
+        // Dependencies found again replace the digest until it is set
+        TestImpactIndex.record(indexFile(), TestImpactIndex.parse("tests/TextTest\tsrc/text.m\n"), 0);
+        Assert.assertFalse(TestImpactIndex.read(indexFile()).getDigests().containsKey("tests/TextTest"));
+        Assert.assertTrue(TestImpactIndex.read(indexFile()).getDigests().containsKey("tests/MathTest"));
+    }
+
+    @Test
+    public void recordKeepsOtherTestsAndLatestFullRun() throws IOException {
+        newIndex();
+        TestImpactIndex.record(indexFile(), TestImpactIndex.parse("tests/TextTest\tsrc/text.m\n"), 0);
+
+        TestImpactIndex index = TestImpactIndex.read(indexFile());
+        Map<String, Set<String>> dependencies = index.getDependencies();
+        Assert.assertEquals(1000, index.getLastFullRun());
+        Assert.assertEquals(set("src/text.m"), dependencies.get("tests/TextTest"));
+        Assert.assertEquals(set("src/add.m", "src/util/round.m", "tests/MathTest.m"),
+                dependencies.get("tests/MathTest"));
+    }
+
+    @Test
+    public void snapshotDoesNotChangeWhenIndexIsUpdated() throws IOException {
+        newIndex();
+        File buildFile = new File(tempDir.getRoot(), "buildImpact.tsv");
+
+        TestImpactIndex.snapshot(indexFile(), buildFile);
+        TestImpactIndex.record(indexFile(), TestImpactIndex.parse("tests/NewTest\t\n"), 2000);
+
+        TestImpactIndex snapshot = TestImpactIndex.snapshot(indexFile(), buildFile);
+        Assert.assertEquals(1000, snapshot.getLastFullRun());
+        Assert.assertFalse(snapshot.getDependencies().containsKey("tests/NewTest"));
+    }
+}
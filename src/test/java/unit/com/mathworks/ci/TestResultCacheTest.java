@@ -0,0 +1,159 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.Assert;
+import org.junit.rules.TemporaryFolder;
+
+public class TestResultCacheTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static final String RESULTS = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+            + "<testsuites>"
+            + "<testsuite name=\"MathTest\" tests=\"2\">"
+            + "<testcase classname=\"pkg.MathTest\" name=\"testAdd\" time=\"0.5\"/>"
+            + "<testcase classname=\"pkg.MathTest\" name=\"testRound\" time=\"0.25\"/>"
+            + "</testsuite>"
+            + "<testsuite name=\"TextTest\" tests=\"2\">"
+            + "<testcase classname=\"TextTest\" name=\"testJoin\" time=\"1\"/>"
+            + "<testcase classname=\"TextTest\" name=\"testSplit\" time=\"1\"><failure>Oops</failure></testcase>"
+            + "</testsuite>"
+            + "</testsuites>";
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String key(String part) {
+        return TestResultCache.getKey(Arrays.asList(part));
+    }
+
+    @Test
+    public void keyDependsOnEveryPart() {
+        String key = TestResultCache.getKey(Arrays.asList("tests/MathTest", "24.1.0", "src/add.m abc"));
+
+        Assert.assertEquals(64, key.length());
+        Assert.assertEquals(key, TestResultCache.getKey(Arrays.asList("tests/MathTest", "24.1.0", "src/add.m abc")));
+        Assert.assertNotEquals(key, TestResultCache.getKey(Arrays.asList("tests/MathTest", "24.2.0", "src/add.m abc")));
+    }
+
+    @Test
+    public void namesTestFilesLikeMatlab() {
+        Assert.assertEquals("MathTest", TestResultCache.getTestParentName("tests/MathTest"));
+        Assert.assertEquals("pkg.sub.MathTest", TestResultCache.getTestParentName("tests/+pkg/+sub/MathTest"));
+        Assert.assertEquals("MathTest", TestResultCache.getTestParentName("MathTest"));
+    }
+
+    @Test
+    public void collectsOnlyClassesThatPassed() throws IOException {
+        Map<String, String> passed = TestResultCache.getPassedTestCases(stream(RESULTS));
+
+        Assert.assertEquals(Collections.singleton("pkg.MathTest"), passed.keySet());
+        Assert.assertTrue(passed.get("pkg.MathTest").contains("testAdd"));
+        Assert.assertTrue(passed.get("pkg.MathTest").contains("testRound"));
+    }
+
+    @Test
+    public void replaysCachedTestCasesIntoResults() throws IOException {
+        String cached = TestResultCache.getPassedTestCases(stream(RESULTS)).get("pkg.MathTest");
+        String results = "<testsuites><testsuite name=\"TextTest\" tests=\"1\">"
+                + "<testcase classname=\"TextTest\" name=\"testJoin\" time=\"1\"/>"
+                + "</testsuite></testsuites>";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TestResultCache.addTestCases(stream(results), out, Collections.singletonList(cached));
+
+        Set<String> failed = new TreeSet<String>();
+        Map<String, Double> durations = TestDurationIndex.parseJUnit(
+                new ByteArrayInputStream(out.toByteArray()), failed);
+        Assert.assertEquals(new TreeSet<String>(Arrays.asList(
+                "TextTest/testJoin", "pkg.MathTest/testAdd", "pkg.MathTest/testRound")), durations.keySet());
+        Assert.assertTrue(failed.isEmpty());
+    }
+
+    @Test
+    public void countsCachedTestCasesOfSingleSuite() throws IOException {
+        String cached = TestResultCache.getPassedTestCases(stream(RESULTS)).get("pkg.MathTest");
+        String results = "<testsuite name=\"TextTest\" tests=\"1\">"
+                + "<testcase classname=\"TextTest\" name=\"testJoin\" time=\"1\"/>"
+                + "</testsuite>";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TestResultCache.addTestCases(stream(results), out, Collections.singletonList(cached));
+        String merged = new String(out.toByteArray(), StandardCharsets.UTF_8);
+
+        Assert.assertTrue(merged.contains("tests=\"3\""));
+        Assert.assertEquals(1, merged.split("<testsuite ", -1).length - 1);
+        Assert.assertEquals(3, merged.split("<testcase ", -1).length - 1);
+        Assert.assertFalse(merged.contains("testcases"));
+    }
+
+    @Test
+    public void getsWhatWasPut() throws IOException {
+        TestResultCache cache = new TestResultCache(new File(tempDir.getRoot(), "cache"), 1000);
+
+        Assert.assertFalse(cache.contains(key("a")));
+        Assert.assertNull(cache.get(key("a")));
+
+        cache.put(key("a"), "<testcases/>");
+        Assert.assertTrue(cache.contains(key("a")));
+        Assert.assertEquals("<testcases/>", cache.get(key("a")));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntries() throws IOException {
+        File root = new File(tempDir.getRoot(), "cache");
+        TestResultCache cache = new TestResultCache(root, 25);
+        char[] ten = new char[10];
+        Arrays.fill(ten, 'x');
+
+        cache.put(key("a"), new String(ten));
+        cache.put(key("b"), new String(ten));
+        new File(root, key("a")).setLastModified(System.currentTimeMillis() - 60000);
+        new File(root, key("b")).setLastModified(System.currentTimeMillis() - 30000);
+
+        // Using a makes b the least recently used
+        Assert.assertTrue(cache.contains(key("a")));
+        cache.put(key("c"), new String(ten));
+
+        Assert.assertTrue(cache.contains(key("a")));
+        Assert.assertFalse(cache.contains(key("b")));
+        Assert.assertTrue(cache.contains(key("c")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsKeysThatAreNotHashes() throws IOException {
+        new TestResultCache(tempDir.getRoot(), 1000).get("../secrets");
+    }
+
+    @Test
+    public void jobsDoNotShareEntries() throws IOException {
+        File firstJob = tempDir.newFolder("first");
+        File secondJob = tempDir.newFolder("second");
+        String key = TestResultCache.getKey(Arrays.asList("tests/MathTest.m", "R2024a"));
+
+        TestCacheSelector.getResultCache(firstJob).put(key, "<testcase classname=\"MathTest\" name=\"testAdd\"/>");
+
+        Assert.assertTrue(TestCacheSelector.getResultCache(firstJob).contains(key));
+        Assert.assertFalse(TestCacheSelector.getResultCache(secondJob).contains(key));
+        Assert.assertNull(TestCacheSelector.getResultCache(secondJob).get(key));
+    }
+}
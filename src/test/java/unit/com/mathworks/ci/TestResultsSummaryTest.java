@@ -0,0 +1,167 @@
+package com.mathworks.ci;
+
+/**
+ * Copyright 2024 The MathWorks, Inc.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.Assert;
+import org.junit.rules.TemporaryFolder;
+
+public class TestResultsSummaryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private TestResultsSummary read(String xml) throws IOException {
+        return read(stream(xml), 100);
+    }
+
+    // Reads the results the way the recorder does, with a details file
+    private TestResultsSummary read(InputStream in, int maxMessages) throws IOException {
+        File build = this.folder.newFolder();
+        TestResultsSummary summary;
+        try (Writer out = Files.newBufferedWriter(new File(build, "details.jsonl").toPath(),
+                StandardCharsets.UTF_8)) {
+            summary = TestResultsSummary.read(in, "results.xml", maxMessages, 50, testCase -> {
+                out.write(testCase.toJSON());
+                out.write('\n');
+            });
+        }
+        summary.setDetails("details.jsonl");
+        summary.setFolder(build);
+        return summary;
+    }
+
+    @Test
+    public void countsTestsByOutcome() throws IOException {
+        String xml = "<testsuites><testsuite name=\"MyTest\">"
+                + "<testcase classname=\"MyTest\" name=\"testA\" time=\"1.5\"/>"
+                + "<testcase classname=\"MyTest\" name=\"testB\" time=\"0.25\">"
+                + "<failure type=\"Failure\">Verification failed.</failure></testcase>"
+                + "<testcase classname=\"MyTest\" name=\"testC\" time=\"0.5\"><error>Error occurred.</error></testcase>"
+                + "<testcase classname=\"MyTest\" name=\"testD\" time=\"0\"><skipped/></testcase>"
+                + "</testsuite></testsuites>";
+
+        TestResultsSummary summary = read(xml);
+
+        Assert.assertEquals("results.xml", summary.getName());
+        Assert.assertEquals(4, summary.getTotalCount());
+        Assert.assertEquals(2, summary.getFailCount());
+        Assert.assertEquals(1, summary.getSkipCount());
+        Assert.assertEquals(2.25, summary.getDuration(), 1e-9);
+
+        TestResultsSummary.TestCase testB = summary.getTestCases().get(1);
+        Assert.assertEquals("MyTest/testB", testB.getName());
+        Assert.assertEquals(TestResultsSummary.FAILED, testB.getStatus());
+        Assert.assertEquals("Verification failed.", testB.getMessage());
+        Assert.assertNull(summary.getTestCases().get(0).getMessage());
+        Assert.assertEquals(TestResultsSummary.SKIPPED, summary.getTestCases().get(3).getStatus());
+    }
+
+    @Test
+    public void cutsLongDiagnostics() throws IOException {
+        // Long enough to arrive in many chunks from the parser
+        char[] diagnostic = new char[1 << 20];
+        Arrays.fill(diagnostic, 'x');
+        InputStream in = new SequenceInputStream(
+                stream("<testsuite><testcase classname=\"A\" name=\"t\" time=\"1\"><failure message=\"Failed\">"),
+                new SequenceInputStream(stream(new String(diagnostic)), stream("</failure></testcase></testsuite>")));
+
+        TestResultsSummary summary = read(in, 100);
+
+        String message = summary.getTestCases().get(0).getMessage();
+        Assert.assertEquals(50, message.length());
+        Assert.assertTrue(message.startsWith("Failed\nxxx"));
+        Assert.assertTrue(message.endsWith("..."));
+    }
+
+    @Test
+    public void keepsOnlyFirstMessages() throws IOException {
+        StringBuilder xml = new StringBuilder("<testsuite>");
+        for (int i = 0; i < 5; i++) {
+            xml.append("<testcase classname=\"A\" name=\"t").append(i).append("\" time=\"1\">")
+                    .append("<failure>Failure ").append(i).append("</failure></testcase>");
+        }
+        xml.append("</testsuite>");
+
+        TestResultsSummary summary = read(stream(xml.toString()), 2);
+
+        Assert.assertEquals(5, summary.getFailCount());
+        Assert.assertEquals("Failure 0", summary.getTestCases().get(0).getMessage());
+        Assert.assertEquals("Failure 1", summary.getTestCases().get(1).getMessage());
+        Assert.assertNull(summary.getTestCases().get(2).getMessage());
+    }
+
+    @Test
+    public void getsDurationsAndFailedTests() throws IOException {
+        String xml = "<testsuite>"
+                + "<testcase classname=\"A\" name=\"t1\" time=\"1\"/>"
+                + "<testcase classname=\"A\" name=\"t1\" time=\"2\"/>"
+                + "<testcase classname=\"A\" name=\"t2\" time=\"3\"><failure/></testcase>"
+                + "</testsuite>";
+
+        Set<String> failed = new TreeSet<String>();
+        Map<String, Double> durations = new TreeMap<String, Double>();
+        TestResultsSummary.read(stream(xml), "results.xml", 0, 0,
+                testCase -> testCase.addDuration(durations, failed));
+
+        Assert.assertEquals(Double.valueOf(3.0), durations.get("A/t1"));
+        Assert.assertEquals(Double.valueOf(3.0), durations.get("A/t2"));
+        Assert.assertEquals(Collections.singleton("A/t2"), failed);
+    }
+
+    @Test
+    public void readsTestCasesFromDetailsFile() throws IOException {
+        StringBuilder xml = new StringBuilder("<testsuite>");
+        for (int i = 0; i < 20; i++) {
+            xml.append("<testcase classname=\"A\" name=\"t").append(i).append("\">")
+                    .append(i % 2 == 0 ? "" : "<failure>Failure</failure>").append("</testcase>");
+        }
+        xml.append("</testsuite>");
+
+        TestResultsSummary summary = read(xml.toString());
+
+        Assert.assertEquals(20, summary.getTestCases().size());
+        // Tests without a time stay without one, and are not balanced
+        Map<String, Double> durations = new TreeMap<String, Double>();
+        summary.getTestCases().get(0).addDuration(durations, new TreeSet<String>());
+        Assert.assertTrue(durations.isEmpty());
+        List<TestResultsSummary.TestCase> failed = summary.getFailedTests(3);
+        Assert.assertEquals(3, failed.size());
+        Assert.assertEquals("A/t1", failed.get(0).getName());
+        Assert.assertEquals("A/t5", failed.get(2).getName());
+        Assert.assertEquals("Failure", failed.get(2).getMessage());
+
+        // Without its details file, the summary still has its counts
+        summary.setFolder(this.folder.newFolder());
+        Assert.assertTrue(summary.getTestCases().isEmpty());
+        Assert.assertEquals(10, summary.getFailCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsExternalEntities() throws IOException {
+        read("<!DOCTYPE x [<!ENTITY e SYSTEM \"file:///etc/passwd\">]><testsuites>&e;</testsuites>");
+    }
+}
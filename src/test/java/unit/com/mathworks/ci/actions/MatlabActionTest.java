@@ -7,21 +7,28 @@ package unit.com.mathworks.ci.actions;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.Collections;
 
 import org.junit.Test;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import static org.junit.Assert.*;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 import hudson.FilePath;
+import hudson.model.Action;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 
@@ -29,6 +36,7 @@ import com.mathworks.ci.MatlabBuilderConstants;
 import com.mathworks.ci.BuildArtifactAction;
 import com.mathworks.ci.BuildConsoleAnnotator;
 import com.mathworks.ci.MatlabExecutionException;
+import com.mathworks.ci.StepTimingAction;
 import com.mathworks.ci.actions.RunMatlabCommandAction;
 import com.mathworks.ci.utilities.MatlabCommandRunner;
 import com.mathworks.ci.parameters.CommandActionParameters;
@@ -78,13 +86,14 @@ public class MatlabActionTest {
         InOrder inOrder = inOrder(runner);
 
         inOrder.verify(runner)
-                .copyFileToTempFolder(MatlabBuilderConstants.DEFAULT_PLUGIN, MatlabBuilderConstants.DEFAULT_PLUGIN);
+                .addResourceToTempFolder(MatlabBuilderConstants.DEFAULT_PLUGIN, MatlabBuilderConstants.DEFAULT_PLUGIN);
         inOrder.verify(runner)
-                .copyFileToTempFolder(MatlabBuilderConstants.BUILD_REPORT_PLUGIN,
+                .addResourceToTempFolder(MatlabBuilderConstants.BUILD_REPORT_PLUGIN,
                         MatlabBuilderConstants.BUILD_REPORT_PLUGIN);
         inOrder.verify(runner)
-                .copyFileToTempFolder(MatlabBuilderConstants.TASK_RUN_PROGRESS_PLUGIN,
+                .addResourceToTempFolder(MatlabBuilderConstants.TASK_RUN_PROGRESS_PLUGIN,
                         MatlabBuilderConstants.TASK_RUN_PROGRESS_PLUGIN);
+        inOrder.verify(runner).runMatlabCommand(anyString());
     }
 
     @Test
@@ -120,6 +129,42 @@ public class MatlabActionTest {
         assertTrue(new File(dest, "buildArtifact" + action.getActionID() + ".json").exists());
     }
 
+    @Test
+    public void shouldCopyTaskLinesToRoot()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        File tmp = Files.createTempDirectory("temp").toFile();
+        tmp.deleteOnExit();
+
+        File dest = Files.createTempDirectory("dest").toFile();
+        dest.deleteOnExit();
+
+        File lines = new File(tmp, "buildArtifact.jsonl");
+        Files.write(lines.toPath(),
+                "{\"name\":\"check\",\"failed\":true,\"duration\":\"00:00:02\"}\n"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        doReturn(new FilePath(tmp)).when(runner).getTempFolder();
+        doReturn(dest).when(build).getRootDir();
+
+        action.run();
+
+        assertFalse(lines.exists());
+        assertTrue(new File(dest, "buildArtifact" + action.getActionID() + ".jsonl").exists());
+
+        // The counts come from the tasks read when the file was copied
+        ArgumentCaptor<Action> captor = ArgumentCaptor.forClass(Action.class);
+        verify(build, atLeastOnce()).addAction(captor.capture());
+        BuildArtifactAction results = null;
+        for (Action added : captor.getAllValues()) {
+            if (added instanceof BuildArtifactAction) {
+                results = (BuildArtifactAction) added;
+            }
+        }
+        assertNotNull(results);
+        assertEquals(1, results.getTotalCount());
+        assertEquals(1, results.getFailCount());
+    }
+
     @Test
     public void shouldNotAddActionIfNoBuildResult() throws IOException, InterruptedException, MatlabExecutionException {
         action.run();
@@ -127,6 +172,18 @@ public class MatlabActionTest {
         verify(build, never()).addAction(any(BuildArtifactAction.class));
     }
 
+    @Test
+    public void shouldRecordStepTiming() throws IOException, InterruptedException, MatlabExecutionException {
+        doReturn(Collections.singletonMap(MatlabCommandRunner.PHASE_MATLAB, 10L)).when(runner).getPhaseTimes();
+
+        action.run();
+
+        InOrder inOrder = inOrder(runner, build);
+        inOrder.verify(runner).removeTempFolder();
+        inOrder.verify(runner).recordPhase(eq(MatlabCommandRunner.PHASE_TEARDOWN), anyLong());
+        inOrder.verify(build).addAction(any(StepTimingAction.class));
+    }
+
     @Test
     public void shouldRemoveTempFolder() throws IOException, InterruptedException, MatlabExecutionException {
         action.run();
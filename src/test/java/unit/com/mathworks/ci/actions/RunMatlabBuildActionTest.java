@@ -12,9 +12,11 @@ import org.junit.Before;
 import org.junit.runner.RunWith;
 import static org.junit.Assert.*;
 
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -23,6 +25,7 @@ import hudson.model.Run;
 import hudson.model.TaskListener;
 
 import com.mathworks.ci.BuildConsoleAnnotator;
+import com.mathworks.ci.BuildProgressAction;
 import com.mathworks.ci.MatlabExecutionException;
 import com.mathworks.ci.utilities.MatlabCommandRunner;
 import com.mathworks.ci.parameters.BuildActionParameters;
@@ -106,4 +109,14 @@ public class RunMatlabBuildActionTest {
         }
         ;
     }
+
+    @Test
+    public void shouldShowProgressWhileRunning() throws IOException, InterruptedException, MatlabExecutionException {
+        action.run();
+
+        InOrder inOrder = inOrder(build, runner);
+        inOrder.verify(build).addAction(any(BuildProgressAction.class));
+        inOrder.verify(runner).runMatlabCommand(anyString());
+        inOrder.verify(build).removeAction(any(BuildProgressAction.class));
+    }
 }
@@ -0,0 +1,135 @@
+package com.mathworks.ci.actions;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.*;
+
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+import com.mathworks.ci.BuildConsoleAnnotator;
+import com.mathworks.ci.BuildProgressAction;
+import com.mathworks.ci.MatlabBuilderConstants;
+import com.mathworks.ci.MatlabExecutionException;
+import com.mathworks.ci.utilities.MatlabCommandRunner;
+import com.mathworks.ci.parameters.CommandsActionParameters;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RunMatlabCommandsActionTest {
+    @Mock
+    CommandsActionParameters params;
+    @Mock
+    BuildConsoleAnnotator annotator;
+    @Mock
+    MatlabCommandRunner runner;
+    @Mock
+    TaskListener listener;
+    @Mock
+    PrintStream out;
+    @Mock
+    Run build;
+
+    @Mock
+    FilePath tempFolder;
+
+    private RunMatlabCommandsAction action;
+
+    @Before
+    public void init() {
+        action = new RunMatlabCommandsAction(runner, annotator, params);
+
+        Map<String, String> commands = new LinkedHashMap<String, String>();
+        commands.put("setup", "addpath('src')");
+        commands.put("mex", "mex timestwo.c");
+
+        when(runner.getTempFolder()).thenReturn(tempFolder);
+        when(tempFolder.getRemote()).thenReturn("/path/less/traveled");
+
+        when(params.getBuild()).thenReturn(build);
+        lenient().when(params.getCommands()).thenReturn(commands);
+    }
+
+    @Test
+    public void shouldRunAllCommandsInOneCall() throws IOException, InterruptedException, MatlabExecutionException {
+        action.run();
+
+        verify(runner, times(1)).runMatlabCommand(
+                "addpath('/path/less/traveled'); ciplugins.jenkins.runCommands({"
+                        + "'setup', 'addpath(''src'')'; 'mex', 'mex timestwo.c'; });");
+    }
+
+    @Test
+    public void shouldCopyRunCommandsFunctionToTemp()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        action.run();
+
+        InOrder inOrder = inOrder(runner);
+        inOrder.verify(runner).addResourceToTempFolder(MatlabBuilderConstants.RUN_COMMANDS_FUNCTION,
+                MatlabBuilderConstants.RUN_COMMANDS_FUNCTION);
+        inOrder.verify(runner).runMatlabCommand(anyString());
+    }
+
+    @Test
+    public void shouldReportCommandsLikeBuildTasks()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        action.run();
+
+        verify(runner).redirectStdOut(annotator);
+        verify(runner).addEnvironmentVariable("MW_BUILD_PLUGIN_ACTION_ID", action.getActionID());
+
+        InOrder inOrder = inOrder(build, runner, annotator);
+        inOrder.verify(build).addAction(any(BuildProgressAction.class));
+        inOrder.verify(runner).runMatlabCommand(anyString());
+        inOrder.verify(build).removeAction(any(BuildProgressAction.class));
+
+        // Pipeline logs have no offsets to index
+        verify(annotator, never()).setTaskLogIndex(any(), any());
+    }
+
+    @Test
+    public void shouldPrintAndRethrowMessage() throws IOException, InterruptedException, MatlabExecutionException {
+        when(params.getTaskListener()).thenReturn(listener);
+        when(listener.getLogger()).thenReturn(out);
+        doThrow(new MatlabExecutionException(12)).when(runner).runMatlabCommand(anyString());
+
+        try {
+            action.run();
+            fail("Expected the exception to be rethrown");
+        } catch (MatlabExecutionException e) {
+            verify(out).println(e.getMessage());
+            assertEquals(12, e.getExitCode());
+        }
+    }
+
+    @Test
+    public void shouldJoinLinesOfMultilineCommands()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        when(params.getCommands()).thenReturn(Collections.singletonMap("show", "a = 1;\r\ndisp('a')"));
+
+        action.run();
+
+        verify(runner).runMatlabCommand(
+                "addpath('/path/less/traveled'); ciplugins.jenkins.runCommands({"
+                        + "'show', ['a = 1;' newline 'disp(''a'')']; });");
+    }
+}
@@ -4,6 +4,7 @@ package com.mathworks.ci.actions;
  * Copyright 2024, The MathWorks Inc.
  */
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 
@@ -39,7 +40,7 @@ public class RunMatlabTestsActionTest {
     @Mock
     TaskListener listener;
     @Mock
-    FilePath tempFolder;
+    FilePath genScriptFolder;
 
     private boolean setup = false;
     private RunMatlabTestsAction action;
@@ -51,31 +52,28 @@ public class RunMatlabTestsActionTest {
             setup = true;
             action = new RunMatlabTestsAction(runner, params);
 
-            when(runner.getTempFolder()).thenReturn(tempFolder);
-            when(tempFolder.getRemote()).thenReturn("/gravel/path");
-            when(runner.copyFileToTempFolder(anyString(), anyString()))
-                    .thenReturn(tempFolder);
+            lenient().when(runner.getExtractedResource(anyString()))
+                    .thenReturn(genScriptFolder);
+            lenient().when(genScriptFolder.getRemote()).thenReturn("/cache/path");
         }
     }
 
     @Test
-    public void shouldCopyGenscriptToTempDir() throws IOException, InterruptedException, MatlabExecutionException {
+    public void shouldUseCachedGenscript() throws IOException, InterruptedException, MatlabExecutionException {
         action.run();
 
-        verify(runner).copyFileToTempFolder(
-                MatlabBuilderConstants.MATLAB_SCRIPT_GENERATOR,
-                "genscript.zip");
-        verify(tempFolder).unzip(tempFolder);
+        verify(runner).getExtractedResource(MatlabBuilderConstants.MATLAB_SCRIPT_GENERATOR);
+        verify(runner, never()).copyFileToTempFolder(anyString(), anyString());
     }
 
     @Test
-    public void shouldAddTempFolderToPath() throws IOException, InterruptedException, MatlabExecutionException {
+    public void shouldAddGenscriptFolderToPath() throws IOException, InterruptedException, MatlabExecutionException {
         action.run();
 
         ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
         verify(runner).runMatlabCommand(captor.capture());
 
-        assertThat(captor.getValue(), containsString("addpath('/gravel/path')"));
+        assertThat(captor.getValue(), containsString("addpath('/cache/path')"));
     }
 
     @Test
@@ -176,4 +174,160 @@ public class RunMatlabTestsActionTest {
         }
         ;
     }
+
+    @Test
+    public void shouldRunOneShardOfTests() throws IOException, InterruptedException, MatlabExecutionException {
+        FilePath tempFolder = mock(FilePath.class);
+        when(tempFolder.getRemote()).thenReturn("/tmp/matlabAbCd1234");
+        when(runner.getTempFolder()).thenReturn(tempFolder);
+        doReturn(2).when(params).getShardIndex();
+        doReturn(3).when(params).getShardCount();
+        doReturn("results/junit.xml").when(params).getTestResultsJUnit();
+        doReturn("cov.xml").when(params).getCodeCoverageCobertura();
+        doReturn("report").when(params).getTestResultsPDF();
+
+        action.run();
+
+        verify(runner).addResourceToTempFolder(MatlabBuilderConstants.TEST_SELECTION_RUNNER,
+                MatlabBuilderConstants.TEST_SELECTION_RUNNER);
+        verify(runner).addResourceToTempFolder(MatlabBuilderConstants.TEST_SHARD_SELECTOR,
+                MatlabBuilderConstants.TEST_SHARD_SELECTOR);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(runner).runMatlabCommand(captor.capture());
+
+        assertThat(captor.getValue(), containsString("addpath('/cache/path')"));
+        assertThat(captor.getValue(), containsString("addpath('/tmp/matlabAbCd1234')"));
+        assertThat(captor.getValue(), containsString(
+                "testScript = genscript('Test','PDFTestReport','report_shard2',"
+                        + "'JUnitTestResults','results/junit_shard2.xml',"
+                        + "'CoberturaCodeCoverage','cov_shard2.xml')"));
+        assertThat(captor.getValue(), containsString(
+                "ciplugins.jenkins.runSelectedTests(testScript, 'ciplugins.jenkins.selectTestShard(suite, 2, 3)', false);"));
+        verify(runner).getExtractedResource(MatlabBuilderConstants.MATLAB_SCRIPT_GENERATOR);
+    }
+
+    @Test
+    public void shouldPassSameOptionsToGenscriptWhenSelectingTests()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        FilePath tempFolder = new FilePath(new File("/tmp/matlabAbCd1234"));
+        when(runner.getTempFolder()).thenReturn(tempFolder);
+        doReturn("results.xml").when(params).getTestResultsJUnit();
+        doReturn("tap.txt").when(params).getTestResultsTAP();
+        doReturn("Smoke").when(params).getSelectByTag();
+        ArrayList<String> sourceFolders = new ArrayList<String>();
+        sourceFolders.add("src");
+        doReturn(sourceFolders).when(params).getSourceFolder();
+
+        action.run();
+        doReturn(true).when(params).getFailFast();
+        action.run();
+
+        // genscript finds the tests and adds the artifact plugins on both paths
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(runner, times(2)).runMatlabCommand(captor.capture());
+        String genscript = "genscript('Test','TAPTestResults','tap.txt','JUnitTestResults','results.xml',"
+                + "'SelectByTag','Smoke','SourceFolder',{'src'})";
+        assertThat(captor.getAllValues().get(0), containsString("testScript = " + genscript + ";"));
+        assertThat(captor.getAllValues().get(0), containsString("run(testScript);"));
+        assertThat(captor.getAllValues().get(1), containsString("testScript = " + genscript + ";"));
+        assertThat(captor.getAllValues().get(1), containsString(
+                "ciplugins.jenkins.runSelectedTests(testScript, 'suite', true);"));
+    }
+
+    @Test
+    public void shouldWriteShardResultsToTempFolderWithoutJUnitArtifact()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        FilePath tempFolder = new FilePath(new File("/tmp/matlabAbCd1234"));
+        when(runner.getTempFolder()).thenReturn(tempFolder);
+        doReturn(1).when(params).getShardIndex();
+        doReturn(2).when(params).getShardCount();
+
+        action.run();
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(runner).runMatlabCommand(captor.capture());
+
+        String results = new FilePath(tempFolder, MatlabBuilderConstants.TEST_HISTORY_RESULTS).getRemote();
+        assertThat(captor.getValue(), containsString("'JUnitTestResults','" + results + "'"));
+    }
+
+    @Test
+    public void shouldSelectImpactedTestsBeforeShard()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        FilePath tempFolder = new FilePath(new File("/tmp/matlabAbCd1234"));
+        when(runner.getTempFolder()).thenReturn(tempFolder);
+        doReturn(true).when(params).getSelectByChanges();
+        doReturn(1).when(params).getShardIndex();
+        doReturn(2).when(params).getShardCount();
+
+        action.run();
+
+        verify(runner).addResourceToTempFolder(MatlabBuilderConstants.TEST_IMPACT_SELECTOR,
+                MatlabBuilderConstants.TEST_IMPACT_SELECTOR);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(runner).runMatlabCommand(captor.capture());
+
+        assertThat(captor.getValue(), containsString(
+                "ciplugins.jenkins.selectTestShard(ciplugins.jenkins.selectImpactedTests(suite, true), 1, 2)"));
+    }
+
+    @Test
+    public void shouldOrderTestsAndFailFast() throws IOException, InterruptedException, MatlabExecutionException {
+        FilePath tempFolder = new FilePath(new File("/tmp/matlabAbCd1234"));
+        when(runner.getTempFolder()).thenReturn(tempFolder);
+        doReturn(true).when(params).getFailedFirst();
+        doReturn(true).when(params).getFailFast();
+
+        action.run();
+
+        verify(runner).addResourceToTempFolder(MatlabBuilderConstants.TEST_ORDER_SELECTOR,
+                MatlabBuilderConstants.TEST_ORDER_SELECTOR);
+        verify(runner).addResourceToTempFolder(MatlabBuilderConstants.FAIL_FAST_PLUGIN,
+                MatlabBuilderConstants.FAIL_FAST_PLUGIN);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(runner).runMatlabCommand(captor.capture());
+
+        String results = new FilePath(tempFolder, MatlabBuilderConstants.TEST_HISTORY_RESULTS).getRemote();
+        assertThat(captor.getValue(), containsString(
+                "ciplugins.jenkins.runSelectedTests(testScript, 'ciplugins.jenkins.orderTests(suite)', true);"));
+        assertThat(captor.getValue(), containsString("'JUnitTestResults','" + results + "'"));
+    }
+
+    @Test
+    public void shouldSelectTestsAndRecordDependenciesWhenCaching()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        FilePath tempFolder = new FilePath(new File("/tmp/matlabAbCd1234"));
+        when(runner.getTempFolder()).thenReturn(tempFolder);
+        doReturn(true).when(params).getCacheResults();
+
+        action.run();
+
+        verify(runner).addResourceToTempFolder(MatlabBuilderConstants.TEST_IMPACT_SELECTOR,
+                MatlabBuilderConstants.TEST_IMPACT_SELECTOR);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(runner).runMatlabCommand(captor.capture());
+
+        String results = new FilePath(tempFolder, MatlabBuilderConstants.TEST_HISTORY_RESULTS).getRemote();
+        assertThat(captor.getValue(), containsString(
+                "ciplugins.jenkins.runSelectedTests(testScript, 'ciplugins.jenkins.selectImpactedTests(suite, true)', false);"));
+        assertThat(captor.getValue(), containsString("'JUnitTestResults','" + results + "'"));
+    }
+
+    @Test
+    public void shouldRejectShardOutOfRange() throws IOException, InterruptedException, MatlabExecutionException {
+        doReturn(4).when(params).getShardIndex();
+        doReturn(3).when(params).getShardCount();
+
+        try {
+            action.run();
+            fail("Expected an exception for shard 4 of 3");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("4 of 3"));
+        }
+        verify(runner, never()).runMatlabCommand(anyString());
+    }
 }
@@ -79,6 +79,8 @@ public class RunMatlabTestsBuilderUnitTest {
                 assertEquals("false", actual.getStrict());
                 assertEquals(null, actual.getSourceFolder());
                 assertEquals(null, actual.getSelectByFolder());
+                assertEquals(false, actual.getFailedFirst());
+                assertEquals(false, actual.getFailFast());
                 verify(action).run();
         }
 
@@ -117,6 +119,8 @@ public class RunMatlabTestsBuilderUnitTest {
                 builder.setOutputDetail("Concise");
                 builder.setUseParallel(true);
                 builder.setStrict(true);
+                builder.setFailedFirst(true);
+                builder.setFailFast(true);
 
                 builder.perform(build, workspace, launcher, listener);
 
@@ -139,6 +143,8 @@ public class RunMatlabTestsBuilderUnitTest {
                 assertEquals("true", actual.getStrict());
                 assertEquals(2, actual.getSourceFolder().size());
                 assertEquals(2, actual.getSelectByFolder().size());
+                assertEquals(true, actual.getFailedFirst());
+                assertEquals(true, actual.getFailFast());
                 verify(action).run();
         }
 
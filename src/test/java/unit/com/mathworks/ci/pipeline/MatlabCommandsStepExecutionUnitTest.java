@@ -0,0 +1,96 @@
+package com.mathworks.ci.pipeline;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.*;
+
+import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
+import org.mockito.junit.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+
+import com.mathworks.ci.MatlabExecutionException;
+import com.mathworks.ci.actions.MatlabActionFactory;
+import com.mathworks.ci.actions.RunMatlabCommandsAction;
+import com.mathworks.ci.parameters.CommandsActionParameters;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MatlabCommandsStepExecutionUnitTest {
+    @Mock
+    StepContext context;
+    @Mock
+    MatlabActionFactory factory;
+    @Mock
+    RunMatlabCommandsAction action;
+
+    @Test
+    public void shouldPassCommandsInOrder()
+            throws Exception, IOException, InterruptedException, MatlabExecutionException {
+        when(factory.createAction(any(CommandsActionParameters.class))).thenReturn(action);
+
+        RunMatlabCommandsStep step = new RunMatlabCommandsStep(Arrays.asList(
+                new MatlabNamedCommand("setup", "addpath('src')"),
+                new MatlabNamedCommand("analysis", "analyze")));
+        step.setStartupOptions("-nojvm");
+
+        new MatlabCommandsStepExecution(factory, context, step).run();
+
+        ArgumentCaptor<CommandsActionParameters> captor = ArgumentCaptor.forClass(CommandsActionParameters.class);
+        verify(factory).createAction(captor.capture());
+
+        CommandsActionParameters params = captor.getValue();
+        assertEquals("-nojvm", params.getStartupOptions());
+        assertEquals(Arrays.asList("setup", "analysis"), Arrays.asList(params.getCommands().keySet().toArray()));
+        assertEquals("analyze", params.getCommands().get("analysis"));
+
+        verify(action).run();
+    }
+
+    @Test
+    public void shouldFailWithoutCommands() throws Exception {
+        new MatlabCommandsStepExecution(factory, context,
+                new RunMatlabCommandsStep(Collections.<MatlabNamedCommand>emptyList())).run();
+
+        verify(context).onFailure(any(IllegalArgumentException.class));
+        verify(factory, never()).createAction(any(CommandsActionParameters.class));
+    }
+
+    @Test
+    public void shouldFailOnInvalidName() throws Exception {
+        new MatlabCommandsStepExecution(factory, context, new RunMatlabCommandsStep(
+                Arrays.asList(new MatlabNamedCommand("build mex", "mex a.c")))).run();
+
+        verify(context).onFailure(any(IllegalArgumentException.class));
+    }
+
+    @Test
+    public void shouldFailOnDuplicateName() throws Exception {
+        new MatlabCommandsStepExecution(factory, context, new RunMatlabCommandsStep(Arrays.asList(
+                new MatlabNamedCommand("a", "disp(1)"),
+                new MatlabNamedCommand("a", "disp(2)")))).run();
+
+        verify(context).onFailure(any(IllegalArgumentException.class));
+    }
+
+    @Test
+    public void shouldHandleActionThrowing()
+            throws Exception, IOException, InterruptedException, MatlabExecutionException {
+        when(factory.createAction(any(CommandsActionParameters.class))).thenReturn(action);
+        doThrow(new MatlabExecutionException(12)).when(action).run();
+
+        new MatlabCommandsStepExecution(factory, context, new RunMatlabCommandsStep(
+                Arrays.asList(new MatlabNamedCommand("a", "disp(1)")))).run();
+
+        verify(context).onFailure(any(MatlabExecutionException.class));
+    }
+}
@@ -63,6 +63,12 @@ public class MatlabRunTestsStepExecutionUnitTest {
         assertEquals("false", params.getStrict());
         assertEquals(null, params.getSourceFolder());
         assertEquals(null, params.getSelectByFolder());
+        assertEquals(0, params.getShardIndex());
+        assertEquals(0, params.getShardCount());
+        assertEquals(false, params.getSelectByChanges());
+        assertEquals(false, params.getFailedFirst());
+        assertEquals(false, params.getFailFast());
+        assertEquals(false, params.getCacheResults());
 
         verify(action).run();
     }
@@ -83,6 +89,12 @@ public class MatlabRunTestsStepExecutionUnitTest {
         step.setOutputDetail("Concise");
         step.setUseParallel(true);
         step.setStrict(true);
+        step.setShardIndex(2);
+        step.setShardCount(3);
+        step.setSelectByChanges(true);
+        step.setFailedFirst(true);
+        step.setFailFast(true);
+        step.setCacheResults(true);
 
         ArrayList<String> folders = new ArrayList<String>();
         folders.add("src");
@@ -113,6 +125,12 @@ public class MatlabRunTestsStepExecutionUnitTest {
         assertEquals("true", params.getStrict());
         assertEquals(folders, params.getSourceFolder());
         assertEquals(folders, params.getSelectByFolder());
+        assertEquals(2, params.getShardIndex());
+        assertEquals(3, params.getShardCount());
+        assertEquals(true, params.getSelectByChanges());
+        assertEquals(true, params.getFailedFirst());
+        assertEquals(true, params.getFailFast());
+        assertEquals(true, params.getCacheResults());
 
         verify(action).run();
     }
@@ -0,0 +1,51 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.Assert;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.FilePath;
+
+public class FileTailerTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private void append(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Test
+    public void returnsNothingForMissingFile() throws IOException, InterruptedException {
+        FileTailer tailer = new FileTailer(new FilePath(new File(tempDir.getRoot(), "missing")));
+
+        Assert.assertTrue(tailer.readLines().isEmpty());
+    }
+
+    @Test
+    public void returnsOnlyNewCompleteLines() throws IOException, InterruptedException {
+        File file = new File(tempDir.getRoot(), "progress.jsonl");
+        FileTailer tailer = new FileTailer(new FilePath(file));
+
+        append(file, "one\ntw");
+        Assert.assertEquals(Arrays.asList("one"), tailer.readLines());
+
+        append(file, "o\r\nthree\n");
+        Assert.assertEquals(Arrays.asList("two", "three"), tailer.readLines());
+
+        Assert.assertTrue(tailer.readLines().isEmpty());
+    }
+}
@@ -9,6 +9,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import hudson.FilePath;
 import hudson.EnvVars;
@@ -26,6 +27,7 @@ import org.junit.Assert;
 import org.junit.runner.RunWith;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
 
 import org.mockito.Mock;
 import org.mockito.stubbing.Answer;
@@ -99,12 +101,61 @@ public class MatlabCommandRunnerTest {
 
         FilePath expected = WorkspaceList.tempDir(new FilePath(tempDir.getRoot()));
 
-        Assert.assertTrue(tmp.exists());
         Assert.assertThat(
                 tmp.getRemote(),
                 startsWith(expected.getRemote()));
     }
 
+    @Test
+    public void tempFolderIsCreatedWhenCommandRuns()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        runner = new MatlabCommandRunner(params);
+        FilePath tmp = runner.getTempFolder();
+
+        Assert.assertFalse(tmp.exists());
+
+        runner.runMatlabCommand("COMMAND");
+
+        Assert.assertTrue(tmp.exists());
+    }
+
+    @Test
+    public void runCopiesAddedResourcesToTempFolder()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        runner = new MatlabCommandRunner(params);
+        runner.addResourceToTempFolder("testcontent.txt", "+pkg/target.txt");
+
+        runner.runMatlabCommand("COMMAND");
+
+        FilePath f = new FilePath(runner.getTempFolder(), "+pkg/target.txt");
+        Assert.assertTrue(f.exists());
+        Assert.assertThat(f.readToString(), startsWith("This has text!"));
+    }
+
+    @Test
+    public void runWritesAddedFilesToTempFolder()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        runner = new MatlabCommandRunner(params);
+        runner.addFileToTempFolder("data.tsv", "1.5\tMyTest/testA\n");
+
+        runner.runMatlabCommand("COMMAND");
+
+        FilePath f = new FilePath(runner.getTempFolder(), "data.tsv");
+        Assert.assertEquals("1.5\tMyTest/testA\n", f.readToString());
+    }
+
+    @Test
+    public void runWritesScriptFileToTempFolder()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        runner = new MatlabCommandRunner(params);
+
+        runner.runMatlabCommand("OBEY");
+
+        List<FilePath> scripts = runner.getTempFolder().list("script_*.m");
+        Assert.assertEquals(1, scripts.size());
+        Assert.assertEquals("cd(getenv('MW_ORIG_WORKING_FOLDER'));\nOBEY", scripts.get(0).readToString());
+    }
+
     @Test
     public void removeTempFolderDeletesContents() throws IOException, InterruptedException {
         runner = new MatlabCommandRunner(params);
@@ -122,23 +173,18 @@ public class MatlabCommandRunnerTest {
     }
 
     @Test
-    public void prepareRunnerExecutableMaci() throws IOException, InterruptedException {
+    public void runUsesCachedRunnerMaci() throws IOException, InterruptedException, MatlabExecutionException {
         runner = new MatlabCommandRunner(params);
 
         doReturn(true).when(launcher).isUnix();
 
-        FilePath f = runner.prepareRunnerExecutable();
+        runner.runMatlabCommand("COMMAND");
 
-        Assert.assertTrue(f.exists());
-        Assert.assertEquals(
-                runner.getTempFolder().getRemote()
-                        + File.separator
-                        + "run-matlab-command",
-                f.getRemote());
+        assertRunnerIs("maci64/run-matlab-command");
     }
 
     @Test
-    public void prepareRunnerExecutableMaca() throws IOException, InterruptedException {
+    public void runUsesCachedRunnerMaca() throws IOException, InterruptedException, MatlabExecutionException {
         runner = new MatlabCommandRunner(params);
 
         doReturn(true).when(launcher).isUnix();
@@ -154,18 +200,13 @@ public class MatlabCommandRunnerTest {
                     }
                 });
 
-        FilePath f = runner.prepareRunnerExecutable();
+        runner.runMatlabCommand("COMMAND");
 
-        Assert.assertTrue(f.exists());
-        Assert.assertEquals(
-                runner.getTempFolder().getRemote()
-                        + File.separator
-                        + "run-matlab-command",
-                f.getRemote());
+        assertRunnerIs("maca64/run-matlab-command");
     }
 
     @Test
-    public void prepareRunnerExecutableLinux() throws IOException, InterruptedException {
+    public void runUsesCachedRunnerLinux() throws IOException, InterruptedException, MatlabExecutionException {
         runner = new MatlabCommandRunner(params);
 
         doReturn(true).when(launcher).isUnix();
@@ -181,44 +222,63 @@ public class MatlabCommandRunnerTest {
                     }
                 });
 
-        FilePath f = runner.prepareRunnerExecutable();
+        runner.runMatlabCommand("COMMAND");
 
-        Assert.assertTrue(f.exists());
-        Assert.assertEquals(
-                runner.getTempFolder().getRemote()
-                        + File.separator
-                        + "run-matlab-command",
-                f.getRemote());
+        assertRunnerIs("glnxa64/run-matlab-command");
     }
 
     @Test
-    public void prepareRunnerExecutableWindows() throws IOException, InterruptedException {
+    public void runUsesCachedRunnerWindows() throws IOException, InterruptedException, MatlabExecutionException {
         runner = new MatlabCommandRunner(params);
 
-        FilePath f = runner.prepareRunnerExecutable();
+        runner.runMatlabCommand("COMMAND");
 
-        Assert.assertTrue(f.exists());
-        Assert.assertEquals(
-                runner.getTempFolder().getRemote()
-                        + File.separator
-                        + "run-matlab-command.exe",
-                f.getRemote());
+        assertRunnerIs("win64/run-matlab-command.exe");
+    }
+
+    @Test
+    public void runReusesCachedRunner() throws IOException, InterruptedException, MatlabExecutionException {
+        runner = new MatlabCommandRunner(params);
+        runner.runMatlabCommand("COMMAND");
+
+        MatlabCommandRunner other = new MatlabCommandRunner(params);
+        other.runMatlabCommand("COMMAND");
+
+        ArgumentCaptor<ArgumentListBuilder> captor = ArgumentCaptor.forClass(ArgumentListBuilder.class);
+        verify(procStarter, times(2)).cmds(captor.capture());
+
+        String first = captor.getAllValues().get(0).toList().get(0);
+        String second = captor.getAllValues().get(1).toList().get(0);
+        Assert.assertEquals(first, second);
+        Assert.assertNotEquals(runner.getTempFolder().getRemote(), other.getTempFolder().getRemote());
+        Assert.assertThat(first, not(startsWith(runner.getTempFolder().getRemote())));
     }
 
     @Test
-    public void createFileWithContentWorks() throws IOException, InterruptedException {
+    public void removeTempFolderKeepsCachedRunner()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        runner = new MatlabCommandRunner(params);
+        runner.runMatlabCommand("COMMAND");
+
+        runner.removeTempFolder();
+
+        Assert.assertTrue(new FilePath(new File(getCachedRunnerLocation("win64/run-matlab-command.exe"))).exists());
+    }
+
+    @Test
+    public void runWritesSpecialCharactersToScript()
+            throws IOException, InterruptedException, MatlabExecutionException {
         runner = new MatlabCommandRunner(params);
 
         String content = "I'm a $pecia1 $tri^g";
-        FilePath f = runner.createFileWithContent(content);
+        runner.runMatlabCommand(content);
 
         String expected = "cd(getenv('MW_ORIG_WORKING_FOLDER'));\n"
                 + content;
 
-        Assert.assertTrue(f.exists());
-        Assert.assertThat(f.getRemote(),
-                startsWith(runner.getTempFolder().getRemote()));
-        Assert.assertEquals(f.readToString(), expected);
+        List<FilePath> scripts = runner.getTempFolder().list("script_*.m");
+        Assert.assertEquals(1, scripts.size());
+        Assert.assertEquals(expected, scripts.get(0).readToString());
     }
 
     @Test
@@ -231,6 +291,26 @@ public class MatlabCommandRunnerTest {
         Assert.assertThat(f.readToString(), startsWith("This has text!"));
     }
 
+    @Test
+    public void getExtractedResourceExtractsOncePerAgent() throws IOException, InterruptedException {
+        runner = new MatlabCommandRunner(params);
+
+        FilePath folder = runner.getExtractedResource("testcontent.zip");
+
+        Assert.assertTrue(new FilePath(folder, "genscript.m").exists());
+        Assert.assertTrue(new FilePath(folder, "+scriptgen/Code.m").exists());
+        Assert.assertThat(folder.getRemote(),
+                not(startsWith(runner.getTempFolder().getRemote())));
+
+        // A second runner reuses the folder without extracting again
+        new FilePath(folder, "genscript.m").delete();
+        FilePath again = new MatlabCommandRunner(params).getExtractedResource("testcontent.zip");
+
+        Assert.assertEquals(folder.getRemote(), again.getRemote());
+        Assert.assertFalse(new FilePath(again, "genscript.m").exists());
+        Assert.assertEquals(1, again.getParent().list().size());
+    }
+
     @Test
     public void runWorksInBasicCase() throws IOException, InterruptedException, MatlabExecutionException {
         runner = new MatlabCommandRunner(params);
@@ -238,12 +318,10 @@ public class MatlabCommandRunnerTest {
         String myCommand = "OBEY";
         runner.runMatlabCommand(myCommand);
 
-        String exe = runner.getTempFolder().getRemote()
-                + File.separator
-                + "run-matlab-command.exe";
+        String exe = getCachedRunnerLocation("win64/run-matlab-command.exe");
         String cmd = "setenv('MW_ORIG_WORKING_FOLDER', cd('"
                 + runner.getTempFolder().getRemote()
-                + "'));script_";
+                + "'));ciplugins.jenkins.recordTiming('started');script_";
 
         ArgumentCaptor<ArgumentListBuilder> captor = ArgumentCaptor.forClass(ArgumentListBuilder.class);
         verify(procStarter).cmds(captor.capture());
@@ -254,6 +332,53 @@ public class MatlabCommandRunnerTest {
         Assert.assertThat(cmds.get(1), startsWith(cmd));
     }
 
+    @Test
+    public void runRecordsPhaseTimes() throws IOException, InterruptedException, MatlabExecutionException {
+        runner = new MatlabCommandRunner(params);
+
+        runner.runMatlabCommand("COMMAND");
+        runner.removeTempFolder();
+
+        Map<String, Long> phases = runner.getPhaseTimes();
+        Assert.assertTrue(phases.containsKey(MatlabCommandRunner.PHASE_SETUP));
+        Assert.assertTrue(phases.containsKey(MatlabCommandRunner.PHASE_MATLAB));
+        Assert.assertFalse(phases.containsKey(MatlabCommandRunner.PHASE_MATLAB_STARTUP));
+    }
+
+    @Test
+    public void runSplitsMatlabTimeUsingTimingFile()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        runner = new MatlabCommandRunner(params);
+        FilePath timingFile = new FilePath(runner.getTempFolder(), "timing.txt");
+
+        // MATLAB writes when it started, 200ms after the temp folder was ready
+        when(procStarter.join()).thenAnswer(invocation -> {
+            long prepared = Long.parseLong(timingFile.readToString().trim().split(" ")[1]);
+            timingFile.write("prepared " + prepared + "\nstarted " + (prepared + 200) + "\n", "UTF-8");
+            Thread.sleep(300);
+            return 0;
+        });
+
+        runner.runMatlabCommand("COMMAND");
+        Assert.assertFalse(runner.getPhaseTimes().containsKey(MatlabCommandRunner.PHASE_MATLAB_STARTUP));
+        runner.removeTempFolder();
+
+        Map<String, Long> phases = runner.getPhaseTimes();
+        Assert.assertEquals(Long.valueOf(200), phases.get(MatlabCommandRunner.PHASE_MATLAB_STARTUP));
+        Assert.assertTrue(phases.get(MatlabCommandRunner.PHASE_COMMAND) >= 100);
+        Assert.assertFalse(phases.containsKey(MatlabCommandRunner.PHASE_MATLAB));
+    }
+
+    @Test
+    public void runCopiesTimingFunctionToTempFolder()
+            throws IOException, InterruptedException, MatlabExecutionException {
+        runner = new MatlabCommandRunner(params);
+
+        runner.runMatlabCommand("COMMAND");
+
+        Assert.assertTrue(new FilePath(runner.getTempFolder(), "+ciplugins/+jenkins/recordTiming.m").exists());
+    }
+
     @Test
     public void runUsesWorkspaceLocationAsWD() throws IOException, InterruptedException, MatlabExecutionException {
         runner = new MatlabCommandRunner(params);
@@ -280,12 +405,13 @@ public class MatlabCommandRunnerTest {
 
     @Test
     public void runShouldExpandAddedEnvVars() throws IOException, InterruptedException, MatlabExecutionException {
-        runner = new MatlabCommandRunnerTester(params);
+        runner = new MatlabCommandRunner(params);
 
         String myCommand = "STAY";
         runner.addEnvironmentVariable("COMMAND", myCommand);
-        FilePath f = runner.createFileWithContent("$COMMAND");
+        runner.runMatlabCommand("$COMMAND");
 
+        FilePath f = runner.getTempFolder().list("script_*.m").get(0);
         Assert.assertThat(f.readToString(), containsString(myCommand));
     }
 
@@ -336,4 +462,25 @@ public class MatlabCommandRunnerTest {
             Assert.assertEquals(8, e.getExitCode());
         }
     }
+
+    /*
+     * Checks that the last command ran the cached runner for the platform.
+     */
+    private void assertRunnerIs(String resource) throws IOException, InterruptedException {
+        ArgumentCaptor<ArgumentListBuilder> captor = ArgumentCaptor.forClass(ArgumentListBuilder.class);
+        verify(procStarter, atLeastOnce()).cmds(captor.capture());
+
+        String exe = captor.getValue().toList().get(0);
+        Assert.assertEquals(getCachedRunnerLocation(resource), exe);
+        Assert.assertTrue(new FilePath(new File(exe)).exists());
+    }
+
+    private String getCachedRunnerLocation(String resource) throws IOException {
+        FilePath root = ResourceCache.getRoot(new FilePath(tempDir.getRoot()));
+        return root.getRemote()
+                + File.separator
+                + ResourceCache.getDigest(resource)
+                + File.separator
+                + resource.substring(resource.indexOf('/') + 1);
+    }
 }
@@ -0,0 +1,162 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import hudson.EnvVars;
+
+import org.junit.Test;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.Assert;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+
+import static org.mockito.Mockito.*;
+
+public class MatlabSessionTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private Process process;
+    private MatlabSession session;
+
+    @Before
+    public void initialize() {
+        process = mock(Process.class);
+        doReturn(true).when(process).isAlive();
+        session = new MatlabSession("key", tempDir.getRoot(), process);
+    }
+
+    @Test
+    public void writeRequestContainsFolderEnvAndCommand() throws IOException {
+        Map<String, String> env = new LinkedHashMap<String, String>();
+        env.put("MYVAR", "a=b");
+        session.writeRequest("/my/workspace", env, "disp(1)");
+
+        String request = new String(
+                Files.readAllBytes(new File(tempDir.getRoot(), "request").toPath()),
+                StandardCharsets.UTF_8);
+
+        Assert.assertEquals("cd:/my/workspace\nenv:MYVAR=a=b\ncmd:disp(1)\n", request);
+        Assert.assertFalse(new File(tempDir.getRoot(), "request.tmp").exists());
+    }
+
+    @Test
+    public void writeRequestSkipsProcessCookiesAndMultilineValues() throws IOException {
+        Map<String, String> env = new LinkedHashMap<String, String>();
+        env.put("BUILD_ID", "42");
+        env.put("JENKINS_NODE_COOKIE", "cookie");
+        env.put("MULTI", "one\ntwo");
+        session.writeRequest("/ws", env, "disp(1)");
+
+        String request = new String(
+                Files.readAllBytes(new File(tempDir.getRoot(), "request").toPath()),
+                StandardCharsets.UTF_8);
+
+        Assert.assertThat(request, not(containsString("BUILD_ID")));
+        Assert.assertThat(request, not(containsString("JENKINS_NODE_COOKIE")));
+        Assert.assertThat(request, not(containsString("MULTI")));
+    }
+
+    @Test
+    public void runCopiesOutputAndReturnsStatus() throws Exception {
+        File root = tempDir.getRoot();
+        // Simulate MATLAB finishing the request before the first poll.
+        Thread matlab = new Thread(() -> {
+            try {
+                File request = new File(root, "request");
+                while (!request.exists()) {
+                    Thread.sleep(5);
+                }
+                Files.write(new File(root, "job.log").toPath(), "hello\n".getBytes(StandardCharsets.UTF_8));
+                Files.write(new File(root, "status").toPath(), "3".getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        matlab.start();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int code = session.run("/ws", new LinkedHashMap<String, String>(), "disp(1)", out, 0);
+        matlab.join();
+
+        Assert.assertEquals(3, code);
+        Assert.assertEquals("hello\n", out.toString("UTF-8"));
+        Assert.assertFalse(new File(root, "status").exists());
+    }
+
+    @Test
+    public void runReturnsProcessExitCodeWhenMatlabDies() throws Exception {
+        doReturn(false).when(process).isAlive();
+        doReturn(7).when(process).exitValue();
+
+        int code = session.run("/ws", new LinkedHashMap<String, String>(), "exit(7)", new ByteArrayOutputStream(), 0);
+
+        Assert.assertEquals(7, code);
+    }
+
+    @Test(expected = IOException.class)
+    public void runStopsSessionWhenCommandTimesOut() throws Exception {
+        try {
+            session.run("/ws", new LinkedHashMap<String, String>(), "pause(inf)", new ByteArrayOutputStream(), 1);
+        } finally {
+            verify(process).destroyForcibly();
+        }
+    }
+
+    @Test
+    public void startupEnvironmentLeavesOutBuildVariables() {
+        Map<String, String> env = new LinkedHashMap<String, String>();
+        env.put("Path", "/matlab/bin");
+        env.put("HOME", "/home/jenkins");
+        env.put("PASSWORD", "secret");
+        env.put("JENKINS_NODE_COOKIE", "cookie");
+
+        Map<String, String> startupEnv = MatlabSession.getStartupEnvironment(env);
+
+        Assert.assertEquals(Arrays.asList("HOME", "Path"), new ArrayList<String>(startupEnv.keySet()));
+    }
+
+    @Test
+    public void sessionKeyDependsOnProject() {
+        Map<String, String> env = new LinkedHashMap<String, String>();
+        env.put("PATH", "/matlab/bin");
+        env.put("PASSWORD", "secret");
+
+        String keyA = newCommand("folder/projectA").getKey(env);
+        String keyB = newCommand("projectB").getKey(env);
+
+        Assert.assertNotEquals(keyA, keyB);
+        Assert.assertThat(keyA, containsString("-nodisplay -nosplash"));
+        Assert.assertThat(keyA, not(containsString("secret")));
+    }
+
+    private static RunMatlabSessionCommand newCommand(String project) {
+        return new RunMatlabSessionCommand("runner", "disp(1)", Arrays.asList("-nodisplay", "-nosplash"), project,
+                "/ws", new EnvVars(), new ByteArrayOutputStream(), 2, 30, 1440);
+    }
+
+    @Test
+    public void poolReturnsNullWhenAllSessionsAreBusy() throws IOException {
+        MatlabSessionPool pool = new MatlabSessionPool();
+
+        Assert.assertNull(pool.acquire("key", 0, 30, new File("runner"), Collections.<String>emptyList(),
+                new LinkedHashMap<String, String>()));
+        Assert.assertEquals(0, pool.size());
+    }
+}
@@ -0,0 +1,119 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.Assert;
+
+public class RemoveTempFolderTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static final long STALE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private File newTempFolder(String name) throws IOException {
+        File folder = tempDir.newFolder(name);
+        Files.write(new File(folder, "script_a.m").toPath(), "disp(1)".getBytes("UTF-8"));
+        return folder;
+    }
+
+    private void waitUntilDeleted(File folder) throws InterruptedException {
+        for (int i = 0; i < 100 && folder.exists(); i++) {
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    public void folderIsGoneWhenCallReturns() throws IOException, InterruptedException {
+        File folder = newTempFolder("matlabAbCd1234");
+
+        new RemoveTempFolder(STALE_MILLIS).invoke(folder, null);
+
+        Assert.assertFalse(folder.exists());
+        File trash = new File(tempDir.getRoot(), "matlabAbCd1234" + RemoveTempFolder.TRASH_SUFFIX);
+        waitUntilDeleted(trash);
+        Assert.assertFalse(trash.exists());
+    }
+
+    @Test
+    public void sweepsFoldersLeftBehind() throws IOException, InterruptedException {
+        File trash = newTempFolder("matlab11111111" + RemoveTempFolder.TRASH_SUFFIX);
+        File stale = newTempFolder("matlab22222222");
+        stale.setLastModified(System.currentTimeMillis() - 2 * STALE_MILLIS);
+        File inUse = newTempFolder("matlab33333333");
+        File other = newTempFolder("matlabcache");
+
+        // Earlier versions named temp folders with FilePath.createTempDir
+        File earlier = newTempFolder("matlab4837261094857362514");
+        earlier.setLastModified(System.currentTimeMillis() - 2 * STALE_MILLIS);
+        File earlierInUse = newTempFolder("matlab1029384756");
+
+        new RemoveTempFolder(STALE_MILLIS).invoke(new File(tempDir.getRoot(), "matlab44444444"), null);
+
+        waitUntilDeleted(trash);
+        waitUntilDeleted(stale);
+        Assert.assertFalse(trash.exists());
+        Assert.assertFalse(stale.exists());
+        Assert.assertTrue(inUse.exists());
+        Assert.assertTrue(other.exists());
+        waitUntilDeleted(earlier);
+        Assert.assertFalse(earlier.exists());
+        Assert.assertTrue(earlierInUse.exists());
+    }
+
+    @Test
+    public void sweepKeepsLockedFolders() throws IOException, InterruptedException {
+        File locked = newTempFolder("matlab55555555");
+        TempFolderLock.lock(locked);
+        locked.setLastModified(System.currentTimeMillis() - 2 * STALE_MILLIS);
+
+        try {
+            new RemoveTempFolder(STALE_MILLIS).invoke(new File(tempDir.getRoot(), "matlab44444444"), null);
+            Thread.sleep(200);
+            Assert.assertTrue(locked.exists());
+        } finally {
+            TempFolderLock.unlock(locked);
+        }
+    }
+
+    @Test
+    public void sweepDeletesFoldersWhoseLockIsReleased() throws IOException, InterruptedException {
+        File released = newTempFolder("matlab66666666");
+        Files.write(new File(released, TempFolderLock.LOCK_FILE).toPath(), new byte[0]);
+
+        new RemoveTempFolder(STALE_MILLIS).invoke(new File(tempDir.getRoot(), "matlab44444444"), null);
+
+        waitUntilDeleted(released);
+        Assert.assertFalse(released.exists());
+    }
+
+    @Test
+    public void removesLockedFolder() throws IOException, InterruptedException {
+        File folder = newTempFolder("matlab77777777");
+        TempFolderLock.lock(folder);
+        Assert.assertEquals(Boolean.FALSE, TempFolderLock.isReleased(folder));
+
+        new RemoveTempFolder(STALE_MILLIS).invoke(folder, null);
+
+        Assert.assertFalse(folder.exists());
+    }
+
+    @Test
+    public void returnsTimingFile() throws IOException, InterruptedException {
+        File folder = newTempFolder("matlab88888888");
+        Files.write(new File(folder, "timing.txt").toPath(), "prepared 1\nstarted 2\n".getBytes("UTF-8"));
+
+        Assert.assertEquals("prepared 1\nstarted 2\n", new RemoveTempFolder(STALE_MILLIS).invoke(folder, null));
+        Assert.assertNull(new RemoveTempFolder(STALE_MILLIS).invoke(folder, null));
+    }
+}
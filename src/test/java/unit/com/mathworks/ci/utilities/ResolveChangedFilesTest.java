@@ -0,0 +1,65 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.Assert;
+import org.junit.rules.TemporaryFolder;
+
+public class ResolveChangedFilesTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static final List<String> CHANGED = Arrays.asList("src/add.m", "README.md");
+
+    private File repository(String path) {
+        File root = new File(tempDir.getRoot(), path);
+        new File(root, ".git").mkdirs();
+        return root;
+    }
+
+    @Test
+    public void keepsPathsOfRepositoryInWorkspace() throws IOException {
+        File workspace = repository("workspace");
+
+        Assert.assertEquals(CHANGED, new ResolveChangedFiles(CHANGED).invoke(workspace, null));
+    }
+
+    @Test
+    public void addsFolderOfCheckoutInWorkspace() throws IOException {
+        File workspace = new File(tempDir.getRoot(), "workspace");
+        repository("workspace/repo");
+        new File(workspace, "other").mkdirs();
+
+        Assert.assertEquals(Arrays.asList("repo/src/add.m", "repo/README.md"),
+                new ResolveChangedFiles(CHANGED).invoke(workspace, null));
+    }
+
+    @Test
+    public void removesFolderOfWorkspaceInRepository() throws IOException {
+        repository("repo");
+        File workspace = new File(tempDir.getRoot(), "repo/matlab");
+        workspace.mkdirs();
+
+        Assert.assertEquals(Arrays.asList("src/add.m", "../README.md"),
+                new ResolveChangedFiles(Arrays.asList("matlab/src/add.m", "README.md")).invoke(workspace, null));
+    }
+
+    @Test
+    public void keepsPathsWhenCheckoutIsAmbiguous() throws IOException {
+        File workspace = new File(tempDir.getRoot(), "workspace");
+        repository("workspace/repo1");
+        repository("workspace/repo2");
+
+        Assert.assertEquals(CHANGED, new ResolveChangedFiles(CHANGED).invoke(workspace, null));
+    }
+}
@@ -0,0 +1,148 @@
+package com.mathworks.ci.utilities;
+
+/**
+ * Copyright 2024, The MathWorks Inc.
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+public class TokenSchedulerTest {
+
+    private final Map<String, Integer> limits = new HashMap<String, Integer>();
+    private final TokenScheduler scheduler = new TokenScheduler(limits::get);
+
+    private final List<String> order = new CopyOnWriteArrayList<String>();
+
+    // Starts a thread that takes tokens, records its name and holds them until released
+    private Thread acquireLater(String name, List<String> pools, int priority, CountDownLatch release) {
+        Thread t = new Thread(() -> {
+            try (TokenScheduler.Ticket ticket = scheduler.acquire(pools, priority)) {
+                order.add(name);
+                release.await();
+            } catch (InterruptedException e) {
+                order.add(name + " interrupted");
+            }
+        });
+        t.start();
+        return t;
+    }
+
+    private void waitForQueueLength(int length) throws InterruptedException {
+        for (int i = 0; i < 500 && scheduler.getQueueLength() != length; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(length, scheduler.getQueueLength());
+    }
+
+    @Test
+    public void unlimitedPoolsNeverWait() throws InterruptedException {
+        try (TokenScheduler.Ticket a = scheduler.acquire(Arrays.asList("R2024a"), 0);
+                TokenScheduler.Ticket b = scheduler.acquire(Arrays.asList("R2024a"), 0)) {
+            Assert.assertEquals(0, scheduler.getQueueLength());
+        }
+    }
+
+    @Test
+    public void ticketIsLimitedOnlyByLimitedPools() throws InterruptedException {
+        limits.put("R2024a", 1);
+        try (TokenScheduler.Ticket unlimited = scheduler.acquire(Arrays.asList("Simulink"), 0);
+                TokenScheduler.Ticket limited = scheduler.acquire(Arrays.asList("R2024a", "Simulink"), 0)) {
+            Assert.assertFalse(unlimited.isLimited());
+            Assert.assertTrue(limited.isLimited());
+        }
+    }
+
+    @Test
+    public void waitsUntilTokenIsReturned() throws InterruptedException {
+        limits.put("R2024a", 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TokenScheduler.Ticket first = scheduler.acquire(Arrays.asList("R2024a"), 0);
+        Thread t = acquireLater("second", Arrays.asList("R2024a"), 0, release);
+        waitForQueueLength(1);
+        Assert.assertTrue(order.isEmpty());
+
+        first.close();
+        first.close();
+        release.countDown();
+        t.join(5000);
+
+        Assert.assertEquals(Arrays.asList("second"), order);
+    }
+
+    @Test
+    public void servesHigherPriorityFirst() throws InterruptedException {
+        limits.put("R2024a", 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TokenScheduler.Ticket holder = scheduler.acquire(Arrays.asList("R2024a"), 0);
+        Thread low = acquireLater("low", Arrays.asList("R2024a"), 0, release);
+        waitForQueueLength(1);
+        Thread high = acquireLater("high", Arrays.asList("R2024a"), 5, release);
+        waitForQueueLength(2);
+
+        holder.close();
+        release.countDown();
+        low.join(5000);
+        high.join(5000);
+
+        Assert.assertEquals(Arrays.asList("high", "low"), order);
+    }
+
+    @Test
+    public void keepsTokensForEarlierWaiters() throws InterruptedException {
+        limits.put("Simulink", 1);
+        limits.put("R2024a", 2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Needs both pools, but Simulink is taken
+        TokenScheduler.Ticket simulink = scheduler.acquire(Arrays.asList("Simulink"), 0);
+        Thread big = acquireLater("big", Arrays.asList("R2024a", "Simulink"), 0, release);
+        waitForQueueLength(1);
+
+        // One R2024a token is kept for the waiter ahead, one is free
+        TokenScheduler.Ticket small = scheduler.acquire(Arrays.asList("R2024a"), 0);
+        Thread another = acquireLater("another", Arrays.asList("R2024a"), 0, release);
+        waitForQueueLength(2);
+
+        simulink.close();
+        waitForQueueLength(1);
+        Assert.assertEquals(Arrays.asList("big"), order);
+
+        small.close();
+        release.countDown();
+        big.join(5000);
+        another.join(5000);
+        Assert.assertEquals(Arrays.asList("big", "another"), order);
+    }
+
+    @Test
+    public void interruptedWaiterLeavesQueue() throws InterruptedException {
+        limits.put("R2024a", 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TokenScheduler.Ticket holder = scheduler.acquire(Collections.singletonList("R2024a"), 0);
+        Thread t = acquireLater("waiter", Arrays.asList("R2024a"), 0, release);
+        waitForQueueLength(1);
+
+        t.interrupt();
+        t.join(5000);
+        Assert.assertEquals(0, scheduler.getQueueLength());
+        Assert.assertEquals(Arrays.asList("waiter interrupted"), order);
+
+        holder.close();
+        try (TokenScheduler.Ticket again = scheduler.acquire(Arrays.asList("R2024a"), 0)) {
+            Assert.assertTrue(again.getWaitMillis() < TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}